@@ -0,0 +1,380 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.jboss.logging.Logger;
+import org.testcontainers.DockerClientFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A manifest of what has already been imported into a given Microcks container. It's stored as a local
+ * state file so that a container that is reused (discovered as shared or kept across restarts) only gets
+ * the artifacts whose content hash changed since the previous import. As Microcks uber image holds its repository in
+ * memory, a manifest is bound to a run of the container and not only to its identifier: a restarted container is
+ * empty again. It also records the services imported from
+ * primary artifacts, so that the services of artifacts that are gone can be deleted from the container.
+ * @author laurent
+ */
+final class ArtifactImportManifest {
+
+   private static final Logger log = Logger.getLogger(ArtifactImportManifest.class);
+
+   /** Pattern for the location of manifest files, relative to the build output directory. */
+   static final String MANIFEST_FILE = "microcks/import-manifest-%s.properties";
+
+   private static final String CONTAINER_ID = "container.id";
+   private static final String STARTED_AT_SEPARATOR = "@";
+   private static final String ARTIFACT_PREFIX = "artifact.";
+   private static final String REMOTE_ARTIFACT_PREFIX = "remote-artifact.";
+   private static final String SECRET_PREFIX = "secret.";
+   private static final String SERVICE_PREFIX = "service.";
+   private static final String PRIMARY = "primary:";
+   private static final String SECONDARY = "secondary:";
+
+   /** Hashes of local artifact files, shared by every manifest and snapshot key of this JVM. */
+   private static final Map<Path, ContentHash> contentHashes = new ConcurrentHashMap<>();
+
+   private final Path manifestFile;
+   private final Properties entries;
+   /** The artifacts that are still part of the application during this import. */
+   private final Set<String> seenArtifacts = ConcurrentHashMap.newKeySet();
+   /** The primary artifacts imported during this import, whose services have been rebuilt by Microcks. */
+   private final Set<String> importedPrimaries = ConcurrentHashMap.newKeySet();
+
+   private ArtifactImportManifest(Path manifestFile, String containerRun, Properties entries) {
+      this.manifestFile = manifestFile;
+      this.entries = entries;
+      this.entries.setProperty(CONTAINER_ID, containerRun);
+   }
+
+   /**
+    * Identify the current run of a container, as its identifier and the time it has been started at.
+    * @param containerId The identifier of the container artifacts are imported into
+    * @return The run of this container, or only its identifier if it cannot be inspected.
+    */
+   static String containerRunOf(String containerId) {
+      try {
+         String startedAt = DockerClientFactory.instance().client().inspectContainerCmd(containerId).exec()
+               .getState().getStartedAt();
+         return containerId + STARTED_AT_SEPARATOR + startedAt;
+      } catch (RuntimeException re) {
+         log.debugf("Failed to inspect container '%s': %s", containerId, re.getMessage());
+         return containerId;
+      }
+   }
+
+   /**
+    * Load the manifest of a container run. An empty manifest is returned if the stored one is about another
+    * container or another run of it, as a new or restarted container does not hold anything yet.
+    * @param manifestFile The manifest file to read
+    * @param containerRun The run of the container artifacts are imported into, see {@link #containerRunOf(String)}
+    * @return The loaded manifest, never null.
+    */
+   static ArtifactImportManifest load(Path manifestFile, String containerRun) {
+      Properties entries = new Properties();
+      if (manifestFile != null && Files.isRegularFile(manifestFile)) {
+         try (InputStream is = Files.newInputStream(manifestFile)) {
+            entries.load(is);
+         } catch (IOException ioe) {
+            log.debugf("Ignoring unreadable import manifest '%s': %s", manifestFile, ioe.getMessage());
+         }
+         if (!String.valueOf(containerRun).equals(entries.getProperty(CONTAINER_ID))) {
+            entries.clear();
+         }
+      }
+      return new ArtifactImportManifest(manifestFile, String.valueOf(containerRun), entries);
+   }
+
+   /**
+    * Save the manifest, replacing the previous file atomically. Failures are only logged.
+    */
+   void save() {
+      if (manifestFile == null) {
+         return;
+      }
+      try {
+         Files.createDirectories(manifestFile.getParent());
+         Path tmpFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+         try (OutputStream os = Files.newOutputStream(tmpFile)) {
+            entries.store(os, "Microcks import manifest");
+         }
+         Files.move(tmpFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException ioe) {
+         log.debugf("Failed to save import manifest '%s': %s", manifestFile, ioe.getMessage());
+      }
+   }
+
+   /**
+    * Record an artifact as still being part of the application, before anything can fail while reading it, so that
+    * the service of an artifact that cannot be imported is never taken for a stale one.
+    * @param artifactKey The artifact key (file absolute path or packaged artifact key)
+    */
+   void markSeen(String artifactKey) {
+      seenArtifacts.add(artifactKey);
+   }
+
+   /**
+    * Tell if an artifact with this exact content has already been imported with the same kind.
+    * @param artifactKey The artifact key (file absolute path or packaged artifact key)
+    * @param contentHash The current content hash of this artifact
+    * @param primary Whether it's imported as primary
+    * @return True if it's already present in container.
+    */
+   boolean isImported(String artifactKey, String contentHash, boolean primary) {
+      seenArtifacts.add(artifactKey);
+      return (kindOf(primary) + contentHash).equals(entries.getProperty(ARTIFACT_PREFIX + artifactKey));
+   }
+
+   /**
+    * Record an artifact as being imported.
+    * @param artifactKey The artifact key (file absolute path or packaged artifact key)
+    * @param contentHash The content hash of this artifact
+    * @param primary Whether it's imported as primary
+    */
+   void recordImported(String artifactKey, String contentHash, boolean primary) {
+      seenArtifacts.add(artifactKey);
+      entries.setProperty(ARTIFACT_PREFIX + artifactKey, kindOf(primary) + contentHash);
+      if (primary) {
+         importedPrimaries.add(artifactKey);
+      }
+   }
+
+   /**
+    * @param artifactKey The artifact key of a primary artifact
+    * @return Whether this primary artifact has been imported during this import, so that Microcks rebuilt its service.
+    */
+   boolean isPrimaryImported(String artifactKey) {
+      return importedPrimaries.contains(artifactKey);
+   }
+
+   /**
+    * @return Whether any primary artifact has been imported during this import.
+    */
+   boolean hasImportedPrimaries() {
+      return !importedPrimaries.isEmpty();
+   }
+
+   /**
+    * Record the service imported from a primary artifact.
+    * @param artifactKey The artifact key (file absolute path or packaged artifact key)
+    * @param serviceId The service name and version, ignored if null
+    */
+   void recordService(String artifactKey, String serviceId) {
+      if (serviceId != null) {
+         entries.setProperty(SERVICE_PREFIX + artifactKey, serviceId);
+      }
+   }
+
+   /**
+    * @param artifactKey The artifact key (file absolute path or packaged artifact key)
+    * @return The service imported from this artifact by a previous import, or null if unknown.
+    */
+   String serviceOf(String artifactKey) {
+      return entries.getProperty(SERVICE_PREFIX + artifactKey);
+   }
+
+   /**
+    * Forget about the artifacts that have not been seen during this import, as they have been deleted or are
+    * not part of the application anymore.
+    * @return The services that were only imported from those artifacts, and can be deleted from container.
+    */
+   Set<String> removeUnseenArtifacts() {
+      Set<String> staleServices = new TreeSet<>();
+      Set<String> currentServices = new HashSet<>();
+      for (String name : entries.stringPropertyNames()) {
+         if (name.startsWith(ARTIFACT_PREFIX) && !seenArtifacts.contains(name.substring(ARTIFACT_PREFIX.length()))) {
+            entries.remove(name);
+         } else if (name.startsWith(SERVICE_PREFIX)) {
+            if (seenArtifacts.contains(name.substring(SERVICE_PREFIX.length()))) {
+               currentServices.add(entries.getProperty(name));
+            } else {
+               staleServices.add((String) entries.remove(name));
+            }
+         }
+      }
+      // A service may have moved to another artifact.
+      staleServices.removeAll(currentServices);
+      return staleServices;
+   }
+
+   /**
+    * @return Whether nothing has been imported into container yet, as far as this manifest knows.
+    */
+   boolean isEmpty() {
+      return entries.stringPropertyNames().stream().noneMatch(name -> !CONTAINER_ID.equals(name));
+   }
+
+   /**
+    * @return The entries about local artifacts and their services, that a snapshot of the container holds.
+    */
+   Properties artifactEntries() {
+      Properties artifactEntries = new Properties();
+      for (String name : entries.stringPropertyNames()) {
+         if (name.startsWith(ARTIFACT_PREFIX) || name.startsWith(SERVICE_PREFIX)) {
+            artifactEntries.setProperty(name, entries.getProperty(name));
+         }
+      }
+      return artifactEntries;
+   }
+
+   /**
+    * @return The services imported from local artifacts, as {@code name:version}.
+    */
+   Set<String> services() {
+      Set<String> services = new TreeSet<>();
+      for (String name : entries.stringPropertyNames()) {
+         if (name.startsWith(SERVICE_PREFIX)) {
+            services.add(entries.getProperty(name));
+         }
+      }
+      return services;
+   }
+
+   /**
+    * Record the artifacts and services of a restored snapshot as being imported.
+    * @param artifactEntries The entries that have been saved with snapshot
+    */
+   void recordRestored(Properties artifactEntries) {
+      for (String name : artifactEntries.stringPropertyNames()) {
+         if (name.startsWith(ARTIFACT_PREFIX) || name.startsWith(SERVICE_PREFIX)) {
+            entries.setProperty(name, artifactEntries.getProperty(name));
+         }
+      }
+   }
+
+   /**
+    * Record a remote artifact as being downloaded by Microcks. Remote artifacts are never skipped, as their content is
+    * not known on the host side, but a primary one makes the secondary artifacts be imported again.
+    * @param remoteArtifactUrl The remote artifact entry, possibly including a secret name
+    * @param primary Whether it's a primary artifact
+    */
+   void recordRemoteArtifactImported(String remoteArtifactUrl, boolean primary) {
+      entries.setProperty(REMOTE_ARTIFACT_PREFIX + remoteArtifactUrl, kindOf(primary));
+      if (primary) {
+         importedPrimaries.add(REMOTE_ARTIFACT_PREFIX + remoteArtifactUrl);
+      }
+   }
+
+   /**
+    * Tell whether a secret has already been created, so that it has to be updated rather than created. Nothing derived
+    * from secret values is recorded, so secrets are always sent again.
+    * @param secretName The name of the secret
+    * @return True if it has been created in this run of the container.
+    */
+   boolean isSecretCreated(String secretName) {
+      return entries.containsKey(SECRET_PREFIX + secretName);
+   }
+
+   void recordSecretCreated(String secretName) {
+      entries.setProperty(SECRET_PREFIX + secretName, "created");
+   }
+
+   /**
+    * Get the SHA-256 hash of a local file content, computed once as long as the file size and modification time do not
+    * change. The same artifacts are hashed for the snapshot key and for the manifest, possibly several times in dev mode.
+    * @param file The file to hash, may be located in a zip file system that is not cached
+    * @return The hexadecimal representation of the hash.
+    * @throws IOException if file cannot be read
+    */
+   static String contentHashOf(Path file) throws IOException {
+      if (file.getFileSystem() != FileSystems.getDefault()) {
+         return sha256(file);
+      }
+      Path key = file.toAbsolutePath().normalize();
+      BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+      ContentHash cached = contentHashes.get(key);
+      if (cached != null && cached.matches(attributes)) {
+         return cached.hash;
+      }
+      String hash = sha256(key);
+      contentHashes.put(key, new ContentHash(attributes, hash));
+      return hash;
+   }
+
+   /**
+    * Compute the SHA-256 hash of a file content.
+    * @param file The file to hash, may be located in a zip file system
+    * @return The hexadecimal representation of the hash.
+    * @throws IOException if file cannot be read
+    */
+   static String sha256(Path file) throws IOException {
+      MessageDigest digest = newDigest();
+      try (InputStream is = new DigestInputStream(Files.newInputStream(file), digest)) {
+         byte[] buffer = new byte[8192];
+         while (is.read(buffer) != -1) {
+            // Just consume the stream to update digest.
+         }
+      }
+      return toHex(digest.digest());
+   }
+
+   static MessageDigest newDigest() {
+      try {
+         return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+         // Every Java platform is required to support SHA-256.
+         throw new IllegalStateException(e);
+      }
+   }
+
+   static String toHex(byte[] bytes) {
+      StringBuilder builder = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+         builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return builder.toString();
+   }
+
+   /** The hash of a file content, along with the attributes it is valid for. */
+   private static final class ContentHash {
+
+      private final long size;
+      private final FileTime lastModified;
+      private final String hash;
+
+      ContentHash(BasicFileAttributes attributes, String hash) {
+         this.size = attributes.size();
+         this.lastModified = attributes.lastModifiedTime();
+         this.hash = hash;
+      }
+
+      boolean matches(BasicFileAttributes attributes) {
+         return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+      }
+   }
+
+   private static String kindOf(boolean primary) {
+      return primary ? PRIMARY : SECONDARY;
+   }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+/**
+ * Timing and size of the import of a single artifact or secret into Microcks, or timing of the warm-up of a mock.
+ * @author laurent
+ */
+final class ArtifactImportMetric {
+
+   /** What has been imported. */
+   enum Kind {
+      PRIMARY_ARTIFACT("primary"),
+      SECONDARY_ARTIFACT("secondary"),
+      REMOTE_PRIMARY_ARTIFACT("remote primary"),
+      REMOTE_SECONDARY_ARTIFACT("remote secondary"),
+      SECRET("secret"),
+      WARM_UP("warm-up");
+
+      private final String label;
+
+      Kind(String label) {
+         this.label = label;
+      }
+
+      String label() {
+         return label;
+      }
+
+      static Kind of(boolean primary, boolean remote) {
+         if (remote) {
+            return primary ? REMOTE_PRIMARY_ARTIFACT : REMOTE_SECONDARY_ARTIFACT;
+         }
+         return primary ? PRIMARY_ARTIFACT : SECONDARY_ARTIFACT;
+      }
+   }
+
+   /** How the import ended. */
+   enum Outcome {
+      IMPORTED,
+      SKIPPED,
+      WARMED_UP,
+      FAILED
+   }
+
+   /** Status code used when Microcks has not answered. */
+   static final int NO_STATUS = -1;
+
+   private final String name;
+   private final Kind kind;
+   private final Outcome outcome;
+   private final long durationMillis;
+   private final long bytes;
+   private final int statusCode;
+   private final int retries;
+
+   /**
+    * Build a new metric.
+    * @param name The name of imported artifact or secret, or of warmed up mock
+    * @param kind What has been imported
+    * @param outcome How the import ended
+    * @param durationMillis The wall time of import, including content hashing
+    * @param bytes The number of bytes sent to Microcks
+    * @param statusCode The Http status returned by Microcks, or {@code NO_STATUS}
+    * @param retries The number of retried calls
+    */
+   ArtifactImportMetric(String name, Kind kind, Outcome outcome, long durationMillis, long bytes, int statusCode,
+                               int retries) {
+      this.name = name;
+      this.kind = kind;
+      this.outcome = outcome;
+      this.durationMillis = durationMillis;
+      this.bytes = bytes;
+      this.statusCode = statusCode;
+      this.retries = retries;
+   }
+
+   String name() {
+      return name;
+   }
+
+   Kind kind() {
+      return kind;
+   }
+
+   Outcome outcome() {
+      return outcome;
+   }
+
+   long durationMillis() {
+      return durationMillis;
+   }
+
+   long bytes() {
+      return bytes;
+   }
+
+   int statusCode() {
+      return statusCode;
+   }
+
+   int retries() {
+      return retries;
+   }
+}
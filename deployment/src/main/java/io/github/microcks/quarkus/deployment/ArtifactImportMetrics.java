@@ -0,0 +1,130 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader.UploadException;
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader.UploadResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe recorder of import metrics, filled by concurrent import tasks.
+ * @author laurent
+ */
+final class ArtifactImportMetrics {
+
+   private static final String ROW_FORMAT = "%10s  %10s  %6s  %7s  %-9s  %-16s  %s";
+
+   private final ConcurrentLinkedQueue<ArtifactImportMetric> metrics = new ConcurrentLinkedQueue<>();
+
+   /**
+    * Record a successful import.
+    * @param name The name of imported artifact or secret
+    * @param kind What has been imported
+    * @param startNanos The {@code System.nanoTime()} at import start
+    * @param result The result of the call to Microcks
+    */
+   void recordImported(String name, ArtifactImportMetric.Kind kind, long startNanos, UploadResult result) {
+      metrics.add(new ArtifactImportMetric(name, kind, ArtifactImportMetric.Outcome.IMPORTED, elapsedMillis(startNanos),
+            result.bytesSent(), result.statusCode(), result.retries()));
+   }
+
+   /**
+    * Record an import that has been skipped.
+    * @param name The name of skipped artifact or secret
+    * @param kind What has been skipped
+    * @param startNanos The {@code System.nanoTime()} at import start
+    */
+   void recordSkipped(String name, ArtifactImportMetric.Kind kind, long startNanos) {
+      metrics.add(new ArtifactImportMetric(name, kind, ArtifactImportMetric.Outcome.SKIPPED, elapsedMillis(startNanos),
+            0, ArtifactImportMetric.NO_STATUS, 0));
+   }
+
+   /**
+    * Record the warm-up of a mock.
+    * @param name The method and path of warmed up mock
+    * @param startNanos The {@code System.nanoTime()} at warm-up start
+    * @param statusCode The Http status returned by the last call to mock
+    */
+   void recordWarmedUp(String name, long startNanos, int statusCode) {
+      metrics.add(new ArtifactImportMetric(name, ArtifactImportMetric.Kind.WARM_UP, ArtifactImportMetric.Outcome.WARMED_UP,
+            elapsedMillis(startNanos), 0, statusCode, 0));
+   }
+
+   /**
+    * Record a failed import.
+    * @param name The name of artifact or secret
+    * @param kind What has failed to be imported
+    * @param startNanos The {@code System.nanoTime()} at import start
+    * @param failure The import failure
+    */
+   void recordFailed(String name, ArtifactImportMetric.Kind kind, long startNanos, Exception failure) {
+      UploadResult result = failure instanceof UploadException ? ((UploadException) failure).getResult() : null;
+      metrics.add(new ArtifactImportMetric(name, kind, ArtifactImportMetric.Outcome.FAILED, elapsedMillis(startNanos),
+            result != null ? result.bytesSent() : 0, result != null ? result.statusCode() : ArtifactImportMetric.NO_STATUS,
+            result != null ? result.retries() : 0));
+   }
+
+   boolean isEmpty() {
+      return metrics.isEmpty();
+   }
+
+   boolean hasFailures() {
+      return metrics.stream().anyMatch(metric -> metric.outcome() == ArtifactImportMetric.Outcome.FAILED);
+   }
+
+   /**
+    * @return The recorded metrics, the slowest first.
+    */
+   List<ArtifactImportMetric> slowestFirst() {
+      List<ArtifactImportMetric> sorted = new ArrayList<>(metrics);
+      sorted.sort(Comparator.comparingLong(ArtifactImportMetric::durationMillis).reversed());
+      return sorted;
+   }
+
+   /**
+    * @return A table of recorded metrics, the slowest first.
+    */
+   String summary() {
+      StringBuilder summary = new StringBuilder(String.format(Locale.ROOT, ROW_FORMAT,
+            "Time (ms)", "Size (KB)", "Status", "Retries", "Outcome", "Kind", "Artifact"));
+      long totalBytes = 0;
+      int warmUps = 0;
+      for (ArtifactImportMetric metric : slowestFirst()) {
+         totalBytes += metric.bytes();
+         warmUps += metric.kind() == ArtifactImportMetric.Kind.WARM_UP ? 1 : 0;
+         summary.append(System.lineSeparator()).append(String.format(Locale.ROOT, ROW_FORMAT,
+               metric.durationMillis(), String.format(Locale.ROOT, "%.1f", metric.bytes() / 1024.0),
+               metric.statusCode() == ArtifactImportMetric.NO_STATUS ? "-" : String.valueOf(metric.statusCode()),
+               metric.retries(), metric.outcome().name().toLowerCase(Locale.ROOT), metric.kind().label(), metric.name()));
+      }
+      summary.append(System.lineSeparator()).append(String.format(Locale.ROOT, "%d artifacts or secrets, %.1f KB sent",
+            metrics.size() - warmUps, totalBytes / 1024.0));
+      if (warmUps > 0) {
+         summary.append(String.format(Locale.ROOT, ", %d mocks warmed up", warmUps));
+      }
+      return summary.toString();
+   }
+
+   private static long elapsedMillis(long startNanos) {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+   }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pipeline running import tasks concurrently, with a bounded level of parallelism. Tasks are submitted by
+ * stages: {@code awaitStage()} waits for every task submitted so far, so that secondary artifacts are
+ * only imported once all the primary ones are in Microcks.
+ * <p>
+ * Tasks run on virtual threads when the running JVM provides them, on a fixed pool of threads otherwise.
+ * @author laurent
+ */
+final class ArtifactImportPipeline implements AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(ArtifactImportPipeline.class);
+
+   private final MicrocksArtifactUploader uploader;
+   private final ArtifactImportMetrics metrics;
+   private final ExecutorService executor;
+   private final Semaphore permits;
+   private final List<CompletableFuture<Void>> stageTasks = new ArrayList<>();
+
+   /**
+    * Create a new pipeline.
+    * @param parallelism The maximum number of tasks running at the same time
+    * @param uploader The uploader shared by every task of this pipeline
+    * @param metrics The recorder of tasks metrics
+    */
+   ArtifactImportPipeline(int parallelism, MicrocksArtifactUploader uploader, ArtifactImportMetrics metrics) {
+      this.uploader = uploader;
+      this.metrics = metrics;
+      int boundedParallelism = Math.max(1, parallelism);
+      this.executor = newExecutor(boundedParallelism);
+      this.permits = new Semaphore(boundedParallelism);
+   }
+
+   /**
+    * @return The uploader tasks should use for calling Microcks.
+    */
+   MicrocksArtifactUploader uploader() {
+      return uploader;
+   }
+
+   /**
+    * @return The recorder tasks should use for their metrics.
+    */
+   ArtifactImportMetrics metrics() {
+      return metrics;
+   }
+
+   /**
+    * Submit a task in current stage. Task is expected to deal with its own errors.
+    * @param task The task to run
+    * @return A future completing when task has run
+    */
+   synchronized CompletableFuture<Void> submit(Runnable task) {
+      CompletableFuture<Void> future = CompletableFuture.runAsync(bounded(task), executor);
+      stageTasks.add(future);
+      return future;
+   }
+
+   /**
+    * Submit a task in current stage that should only start once another one has completed.
+    * @param dependency The future of the task to wait for
+    * @param task The task to run
+    * @return A future completing when task has run
+    */
+   synchronized CompletableFuture<Void> submitAfter(CompletableFuture<?> dependency, Runnable task) {
+      CompletableFuture<Void> future = dependency.handle((result, failure) -> null).thenRunAsync(bounded(task), executor);
+      stageTasks.add(future);
+      return future;
+   }
+
+   /**
+    * Wait for completion of every task submitted in current stage, then start a new stage.
+    */
+   void awaitStage() {
+      CompletableFuture<?>[] tasks;
+      synchronized (this) {
+         tasks = stageTasks.toArray(new CompletableFuture<?>[0]);
+         stageTasks.clear();
+      }
+      CompletableFuture.allOf(tasks).join();
+   }
+
+   private Runnable bounded(Runnable task) {
+      return () -> {
+         permits.acquireUninterruptibly();
+         try {
+            task.run();
+         } catch (RuntimeException e) {
+            log.error("Unexpected failure of an import task", e);
+         } finally {
+            permits.release();
+         }
+      };
+   }
+
+   @Override
+   public void close() {
+      awaitStage();
+      executor.shutdown();
+   }
+
+   private static ExecutorService newExecutor(int parallelism) {
+      try {
+         // Virtual threads only exist starting with Java 21 while this extension is compiled for Java 11.
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+         AtomicInteger counter = new AtomicInteger();
+         return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "microcks-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+   }
+}
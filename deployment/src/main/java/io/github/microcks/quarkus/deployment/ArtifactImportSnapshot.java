@@ -0,0 +1,202 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.github.microcks.quarkus.deployment.MicrocksDevServicesConfig.ArtifactsConfiguration;
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+
+import org.jboss.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of Microcks repository, exported once local artifacts have been imported into a container. Restoring
+ * it into a new container takes a single call instead of having Microcks parse every artifact again. A snapshot is
+ * keyed by the content hash of every local artifact and by the container image, and it's stored next to the import
+ * manifest entries of its artifacts so that the import pipeline then skips them as already imported.
+ * @author laurent
+ */
+final class ArtifactImportSnapshot {
+
+   private static final Logger log = Logger.getLogger(ArtifactImportSnapshot.class);
+
+   /** Pattern for the location of snapshot files, relative to the build output directory. */
+   static final String SNAPSHOT_FILE = "microcks/import-snapshot-%s.json";
+   /** Pattern for the location of snapshot entries files, relative to the build output directory. */
+   static final String SNAPSHOT_ENTRIES_FILE = "microcks/import-snapshot-%s.properties";
+
+   private static final String SNAPSHOT_KEY = "snapshot.key";
+
+   private final Path snapshotFile;
+   private final Path entriesFile;
+
+   /**
+    * Create the snapshot of a Microcks service.
+    * @param outputDirectory The build output directory
+    * @param serviceName The name of Microcks service
+    */
+   ArtifactImportSnapshot(Path outputDirectory, String serviceName) {
+      this.snapshotFile = outputDirectory.resolve(String.format(SNAPSHOT_FILE, serviceName));
+      this.entriesFile = outputDirectory.resolve(String.format(SNAPSHOT_ENTRIES_FILE, serviceName));
+   }
+
+   /**
+    * Compute the key of a snapshot holding the local artifacts of a Microcks service.
+    * @param imageName The Microcks image name, as snapshots may not be compatible between versions
+    * @param scanResults The scanned artifacts
+    * @param artifacts The explicitly configured artifacts, if any
+    * @return The hexadecimal representation of the key.
+    * @throws IOException if an artifact cannot be read
+    */
+   static String keyOf(String imageName, ScanResultsBuildItem scanResults, Optional<ArtifactsConfiguration> artifacts)
+         throws IOException {
+      // Sort everything so that key does not depend on the scan order.
+      Set<String> lines = new TreeSet<>();
+      lines.add("image=" + imageName);
+      for (Map.Entry<File, String> primary : scanResults.primary().entrySet()) {
+         lines.add("primary:" + primary.getValue() + "=" + ArtifactImportManifest.contentHashOf(primary.getKey().toPath()));
+      }
+      for (Map.Entry<File, String> secondary : scanResults.secondary().entrySet()) {
+         lines.add("secondary:" + secondary.getValue() + "=" + ArtifactImportManifest.contentHashOf(secondary.getKey().toPath()));
+      }
+      // Packaged artifacts are keyed by the hash of their archive, each archive being hashed once.
+      addPackagedLines(lines, "packaged-primary:", scanResults.packagedPrimary());
+      addPackagedLines(lines, "packaged-secondary:", scanResults.packagedSecondary());
+      if (artifacts.isPresent()) {
+         addConfiguredLines(lines, "configured-primary:", artifacts.get().primaries());
+         addConfiguredLines(lines, "configured-secondary:", artifacts.get().secondaries().orElse(List.of()));
+      }
+
+      MessageDigest digest = ArtifactImportManifest.newDigest();
+      for (String line : lines) {
+         digest.update(line.getBytes(StandardCharsets.UTF_8));
+         digest.update((byte) '\n');
+      }
+      return ArtifactImportManifest.toHex(digest.digest());
+   }
+
+   private static void addPackagedLines(Set<String> lines, String prefix, List<PackagedArtifact> packagedArtifacts)
+         throws IOException {
+      for (PackagedArtifact artifact : packagedArtifacts) {
+         String archiveHash = ArtifactImportManifest.contentHashOf(artifact.archive());
+         lines.add(prefix + artifact.dependency() + "!/" + artifact.entryName() + "=" + archiveHash);
+      }
+   }
+
+   private static void addConfiguredLines(Set<String> lines, String prefix, List<String> configuredArtifacts) throws IOException {
+      for (String configuredArtifact : configuredArtifacts) {
+         Path artifactPath = Path.of(configuredArtifact).toAbsolutePath().normalize();
+         lines.add(prefix + artifactPath + "=" + (Files.isRegularFile(artifactPath) ? ArtifactImportManifest.contentHashOf(artifactPath) : "missing"));
+      }
+   }
+
+   /**
+    * Restore the snapshot into Microcks if it has been exported with the same key, then record its artifacts
+    * as being imported. Failures are only logged.
+    * @param uploader The uploader to use for calling Microcks
+    * @param connectionInfo The Http endpoint of the Microcks container
+    * @param key The key of current artifacts
+    * @param manifest The import manifest of container
+    * @return True if snapshot has been restored.
+    */
+   boolean restore(MicrocksArtifactUploader uploader, String connectionInfo, String key, ArtifactImportManifest manifest) {
+      Properties entries = loadEntries();
+      if (!key.equals(entries.getProperty(SNAPSHOT_KEY)) || !Files.isRegularFile(snapshotFile)) {
+         log.debugf("No snapshot of current artifacts to restore into Microcks running at '%s'", connectionInfo);
+         return false;
+      }
+      long start = System.nanoTime();
+      try {
+         uploader.importSnapshot(connectionInfo, snapshotFile);
+      } catch (IOException ioe) {
+         log.warnf("Failed to restore snapshot '%s', importing artifacts one by one: %s", snapshotFile.getFileName(), ioe.getMessage());
+         return false;
+      }
+      manifest.recordRestored(entries);
+      log.infof("Restored snapshot of %d services into Microcks running at '%s' in %dms", manifest.services().size(),
+            connectionInfo, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return true;
+   }
+
+   /**
+    * Export a snapshot of the services imported from local artifacts, unless it already exists with the same key.
+    * Failures are only logged.
+    * @param uploader The uploader to use for calling Microcks
+    * @param connectionInfo The Http endpoint of the Microcks container
+    * @param key The key of current artifacts
+    * @param manifest The import manifest of container, once every artifact has been imported
+    */
+   void save(MicrocksArtifactUploader uploader, String connectionInfo, String key, ArtifactImportManifest manifest) {
+      if (key.equals(loadEntries().getProperty(SNAPSHOT_KEY)) && Files.isRegularFile(snapshotFile)) {
+         return;
+      }
+      Set<String> services = manifest.services();
+      if (services.isEmpty()) {
+         return;
+      }
+      long start = System.nanoTime();
+      try {
+         Files.createDirectories(snapshotFile.getParent());
+         Path tmpSnapshotFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+         int exported = uploader.exportSnapshot(connectionInfo, services, tmpSnapshotFile);
+         if (exported == 0) {
+            return;
+         }
+         Files.deleteIfExists(entriesFile);
+         Files.move(tmpSnapshotFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+         // Entries are written last, so that a snapshot is only restored once it's complete.
+         Properties entries = manifest.artifactEntries();
+         entries.setProperty(SNAPSHOT_KEY, key);
+         Path tmpEntriesFile = entriesFile.resolveSibling(entriesFile.getFileName() + ".tmp");
+         try (OutputStream os = Files.newOutputStream(tmpEntriesFile)) {
+            entries.store(os, "Microcks import snapshot entries");
+         }
+         Files.move(tmpEntriesFile, entriesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         log.infof("Exported snapshot of %d services from Microcks running at '%s' in %dms", exported, connectionInfo,
+               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      } catch (IOException ioe) {
+         log.warnf("Failed to export snapshot of Microcks running at '%s': %s", connectionInfo, ioe.getMessage());
+      }
+   }
+
+   private Properties loadEntries() {
+      Properties entries = new Properties();
+      if (Files.isRegularFile(entriesFile)) {
+         try (InputStream is = Files.newInputStream(entriesFile)) {
+            entries.load(is);
+         } catch (IOException ioe) {
+            log.debugf("Ignoring unreadable snapshot entries '%s': %s", entriesFile, ioe.getMessage());
+         }
+      }
+      return entries;
+   }
+}
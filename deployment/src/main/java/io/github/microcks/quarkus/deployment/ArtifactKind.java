@@ -0,0 +1,29 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+/**
+ * The kind of artifact a file has been recognized as during a scan.
+ * @author laurent
+ */
+public enum ArtifactKind {
+   /** File to import as a main/primary artifact. */
+   PRIMARY,
+   /** File to import as a secondary artifact. */
+   SECONDARY,
+   /** File that is not a Microcks artifact. */
+   NONE
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent index of scanned resource directories, stored under the build directory so that
+ * later scans only have to re-walk the directories whose timestamp changed since the previous build.
+ * Each indexed directory holds its sub-directories and its artifact files with their size, modification
+ * time and artifact kind.
+ * @author laurent
+ */
+final class ArtifactScanIndex {
+
+   private static final Logger log = Logger.getLogger(ArtifactScanIndex.class);
+
+   /** Pattern for the location of index files, relative to the module build directory. */
+   static final String INDEX_FILE = "microcks/scan-index-%s.txt";
+
+   private static final String HEADER = "# Microcks artifacts scan index";
+   private static final String FINGERPRINT = "fingerprint";
+   private static final String TIMESTAMP = "timestamp";
+   private static final String DIRECTORY = "D";
+   private static final String SUBDIRECTORY = "S";
+   private static final String FILE = "F";
+   private static final String SEPARATOR = "\t";
+
+   private final String fingerprint;
+   private final long timestamp;
+   private final Map<Path, DirectoryEntry> directories = new ConcurrentHashMap<>();
+
+   /**
+    * Create a new empty index.
+    * @param fingerprint A fingerprint of the scan settings this index is valid for
+    */
+   ArtifactScanIndex(String fingerprint) {
+      this(fingerprint, System.currentTimeMillis());
+   }
+
+   private ArtifactScanIndex(String fingerprint, long timestamp) {
+      this.fingerprint = fingerprint;
+      this.timestamp = timestamp;
+   }
+
+   /**
+    * Load a previously saved index. An empty index is returned if file is missing, unreadable or has been
+    * produced with different scan settings.
+    * @param indexFile The index file to read
+    * @param fingerprint The fingerprint of current scan settings
+    * @return The loaded index, never null.
+    */
+   static ArtifactScanIndex load(Path indexFile, String fingerprint) {
+      if (indexFile == null || !Files.isRegularFile(indexFile)) {
+         return new ArtifactScanIndex(fingerprint);
+      }
+      try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+         if (!HEADER.equals(reader.readLine())) {
+            return new ArtifactScanIndex(fingerprint);
+         }
+         String[] fingerprintLine = reader.readLine().split(SEPARATOR, 2);
+         String[] timestampLine = reader.readLine().split(SEPARATOR, 2);
+         if (!FINGERPRINT.equals(fingerprintLine[0]) || !fingerprint.equals(fingerprintLine[1])
+               || !TIMESTAMP.equals(timestampLine[0])) {
+            log.debugf("Discarding artifacts scan index '%s' as scan settings have changed", indexFile);
+            return new ArtifactScanIndex(fingerprint);
+         }
+
+         ArtifactScanIndex index = new ArtifactScanIndex(fingerprint, Long.parseLong(timestampLine[1]));
+         DirectoryEntry current = null;
+         String line;
+         while ((line = reader.readLine()) != null) {
+            String[] parts = line.split(SEPARATOR);
+            if (DIRECTORY.equals(parts[0])) {
+               current = new DirectoryEntry(Long.parseLong(parts[2]));
+               index.directories.put(Paths.get(parts[1]), current);
+            } else if (SUBDIRECTORY.equals(parts[0]) && current != null) {
+               current.subdirectories.add(Paths.get(parts[1]));
+            } else if (FILE.equals(parts[0]) && current != null) {
+               current.files.add(new FileEntry(parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                     ArtifactKind.valueOf(parts[4])));
+            }
+         }
+         return index;
+      } catch (Exception e) {
+         log.debugf("Ignoring unreadable artifacts scan index '%s': %s", indexFile, e.getMessage());
+         return new ArtifactScanIndex(fingerprint);
+      }
+   }
+
+   /**
+    * Save this index, replacing the previous file atomically.
+    * @param indexFile The index file to write
+    * @throws IOException if index cannot be written
+    */
+   void save(Path indexFile) throws IOException {
+      Files.createDirectories(indexFile.getParent());
+      Path tmpFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+         writer.write(HEADER);
+         writer.newLine();
+         writer.write(FINGERPRINT + SEPARATOR + fingerprint);
+         writer.newLine();
+         writer.write(TIMESTAMP + SEPARATOR + timestamp);
+         writer.newLine();
+         for (Map.Entry<Path, DirectoryEntry> directory : directories.entrySet()) {
+            DirectoryEntry entry = directory.getValue();
+            writer.write(DIRECTORY + SEPARATOR + directory.getKey() + SEPARATOR + entry.lastModified);
+            writer.newLine();
+            for (Path subdirectory : entry.subdirectories) {
+               writer.write(SUBDIRECTORY + SEPARATOR + subdirectory);
+               writer.newLine();
+            }
+            for (FileEntry file : entry.files) {
+               writer.write(FILE + SEPARATOR + file.name + SEPARATOR + file.size + SEPARATOR + file.lastModified
+                     + SEPARATOR + file.kind);
+               writer.newLine();
+            }
+         }
+      }
+      Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   /**
+    * Get the indexed entry of a directory if it's still up-to-date.
+    * @param directory The directory to look for
+    * @param lastModified The current modification time of this directory
+    * @return The indexed entry or null if directory is unknown or has changed since.
+    */
+   DirectoryEntry getUpToDate(Path directory, FileTime lastModified) {
+      DirectoryEntry entry = directories.get(directory);
+      long lastModifiedMillis = lastModified.toMillis();
+      // A directory modified in the same instant the index was produced may have changed afterward
+      // without its timestamp moving, depending on file system granularity. Consider it as changed.
+      if (entry != null && entry.lastModified == lastModifiedMillis && lastModifiedMillis < timestamp - 1000) {
+         return entry;
+      }
+      return null;
+   }
+
+   /**
+    * Record a directory entry into this index.
+    * @param directory The directory path
+    * @param entry Its entry
+    */
+   void put(Path directory, DirectoryEntry entry) {
+      directories.put(directory, entry);
+   }
+
+   /**
+    * Get a directory entry recorded into this index.
+    * @param directory The directory path
+    * @return The entry, or null if not recorded.
+    */
+   DirectoryEntry get(Path directory) {
+      return directories.get(directory);
+   }
+
+   /** The content of an indexed directory. */
+   static final class DirectoryEntry {
+      final long lastModified;
+      final List<Path> subdirectories = new ArrayList<>();
+      final List<FileEntry> files = new ArrayList<>();
+
+      DirectoryEntry(long lastModified) {
+         this.lastModified = lastModified;
+      }
+   }
+
+   /** An artifact file within an indexed directory. */
+   static final class FileEntry {
+      final String name;
+      final long size;
+      final long lastModified;
+      final ArtifactKind kind;
+
+      FileEntry(String name, long size, long lastModified, ArtifactKind kind) {
+         this.name = name;
+         this.size = size;
+         this.lastModified = lastModified;
+         this.kind = kind;
+      }
+   }
+}
@@ -15,19 +15,39 @@
  */
 package io.github.microcks.quarkus.deployment;
 
+import io.github.microcks.quarkus.runtime.ArtifactServices;
+import io.quarkus.bootstrap.model.ApplicationModel;
 import io.quarkus.bootstrap.workspace.SourceDir;
+import io.quarkus.bootstrap.workspace.WorkspaceModule;
 import io.quarkus.deployment.pkg.builditem.CurateOutcomeBuildItem;
+import io.quarkus.maven.dependency.ResolvedDependency;
+import org.jboss.logging.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A scanner for detecting artifacts to import in Microcks.
@@ -37,8 +57,7 @@ public class ArtifactScanner {
     /**
      * List of extensions for detecting artifacts to import as primary ones.
      */
-    private static final List<String> PRIMARY_ARTIFACTS_EXTENSIONS = Arrays.asList("-openapi.yml", "-openapi.yaml", "-openapi.json",
-            ".proto", ".graphql", "-asyncapi.yml", "-asyncapi.yaml", "-asyncapi.json", "-soapui-project.xml");
+    private static final List<String> PRIMARY_ARTIFACTS_EXTENSIONS = ArtifactServices.PRIMARY_ARTIFACT_SUFFIXES;
     /**
      * List of extensions for detecting artifacts to import as secondary ones.
      */
@@ -48,73 +67,296 @@ public class ArtifactScanner {
      * List of extensions corresponding to Postman collection artifacts.
      */
     private static final List<String> POSTMAN_COLLECTION_EXTENSIONS = Arrays.asList("postman-collection.json", "postman_collection.json");
+    /**
+     * List of extensions corresponding to AsyncAPI specification artifacts.
+     */
+    private static final List<String> ASYNCAPI_SPEC_EXTENSIONS = Arrays.asList("-asyncapi.yml", "-asyncapi.yaml", "-asyncapi.json");
+
+
+    /**
+     * Matcher built once from the lists above for sorting files in a single pass.
+     */
+    private static final ArtifactSuffixMatcher SUFFIX_MATCHER = new ArtifactSuffixMatcher(PRIMARY_ARTIFACTS_EXTENSIONS,
+            SECONDARY_ARTIFACTS_EXTENSIONS);
+
+    private static final Logger log = Logger.getLogger(ArtifactScanner.class);
+
 
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final int maxDepth;
+    private final String serviceName;
 
     private Map<File, String> primaryArtifacts;
     private Map<File, String> secondaryArtifacts;
+    private List<PackagedArtifact> packagedPrimaryArtifacts;
+    private List<PackagedArtifact> packagedSecondaryArtifacts;
+    private Map<String, List<String>> secondariesByPrimary;
     private boolean aPostmanCollectionIsPresent = false;
+    private boolean anAsyncAPISpecIsPresent = false;
 
-    public ArtifactScanner(CurateOutcomeBuildItem outcomeBuildItem) throws IOException {
-        primaryArtifacts = scanPrimaryArtifacts(outcomeBuildItem);
-        // Continue with secondary artifacts only if we found something.
-        if (primaryArtifacts != null && !primaryArtifacts.isEmpty()) {
-            secondaryArtifacts = scanSecondaryArtifacts(outcomeBuildItem);
+    public ArtifactScanner(CurateOutcomeBuildItem outcomeBuildItem, MicrocksDevServicesConfig.ScanConfiguration scanConfig,
+                           String serviceName) throws IOException {
+        this.serviceName = serviceName;
+        // Compile glob patterns once for the whole walk.
+        includes = compileGlobs(scanConfig.includes().orElse(List.of()));
+        excludes = compileGlobs(scanConfig.excludes().orElse(List.of()));
+        maxDepth = scanConfig.maxDepth();
+
+        // A persisted scan index is only reused if it has been produced with the same settings.
+        String fingerprint = String.join(",", PRIMARY_ARTIFACTS_EXTENSIONS) + "|" + String.join(",", SECONDARY_ARTIFACTS_EXTENSIONS)
+                + "|" + String.join(",", scanConfig.includes().orElse(List.of()))
+                + "|" + String.join(",", scanConfig.excludes().orElse(List.of())) + "|" + maxDepth;
+
+        WorkspaceModule module = outcomeBuildItem.getApplicationModel().getApplicationModule();
+        Path indexFile = module.getBuildDir() != null ? module.getBuildDir().toPath()
+                .resolve(String.format(ArtifactScanIndex.INDEX_FILE, serviceName)) : null;
+
+        // Reuse what previous builds have found in directories that did not change since.
+        ArtifactScanIndex previousIndex = ArtifactScanIndex.load(indexFile, fingerprint);
+        ArtifactScanIndex index = new ArtifactScanIndex(fingerprint);
+
+        Map<File, String> primaries = new ConcurrentHashMap<>();
+        Map<File, String> secondaries = new ConcurrentHashMap<>();
+        scanArtifacts(module, previousIndex, index, primaries, secondaries);
+
+        // Then look into the archives of configured dependencies.
+        List<PackagedArtifact> packagedPrimaries = new CopyOnWriteArrayList<>();
+        List<PackagedArtifact> packagedSecondaries = new CopyOnWriteArrayList<>();
+        if (scanConfig.dependencies().isPresent()) {
+            scanDependencies(outcomeBuildItem.getApplicationModel(), scanConfig.dependencies().get(), previousIndex, index,
+                    primaries, secondaries, packagedPrimaries, packagedSecondaries);
+        }
+
+        if (indexFile != null) {
+            try {
+                index.save(indexFile);
+            } catch (IOException ioe) {
+                log.debugf("Failed to save artifacts scan index '%s': %s", indexFile, ioe.getMessage());
+            }
+        }
+
+        primaryArtifacts = primaries;
+        packagedPrimaryArtifacts = packagedPrimaries;
+        // Keep secondary artifacts only if we found something.
+        if (!primaries.isEmpty() || !packagedPrimaries.isEmpty()) {
+            secondaryArtifacts = secondaries;
+            packagedSecondaryArtifacts = packagedSecondaries;
+            aPostmanCollectionIsPresent = secondaries.keySet().stream().anyMatch(file -> isAPostmanCollection(file.getName()))
+                    || packagedSecondaries.stream().anyMatch(artifact -> isAPostmanCollection(artifact.fileName()));
+            anAsyncAPISpecIsPresent = primaries.keySet().stream().anyMatch(file -> isAnAsyncAPISpec(file.getName()))
+                    || packagedPrimaries.stream().anyMatch(artifact -> isAnAsyncAPISpec(artifact.fileName()));
+            secondariesByPrimary = buildDependencies(primaries.values(), secondaries.values());
         }
     }
 
     public ScanResultsBuildItem toBuildItem() {
-        return new ScanResultsBuildItem(primaryArtifacts, secondaryArtifacts, aPostmanCollectionIsPresent);
+        return new ScanResultsBuildItem(serviceName, primaryArtifacts, secondaryArtifacts, packagedPrimaryArtifacts, packagedSecondaryArtifacts,
+                secondariesByPrimary, aPostmanCollectionIsPresent, anAsyncAPISpecIsPresent, false);
     }
 
-    private Map<File, String> scanPrimaryArtifacts(CurateOutcomeBuildItem outcomeBuildItem) throws IOException {
-        return scanArtifacts(outcomeBuildItem, PRIMARY_ARTIFACTS_EXTENSIONS);
+    /**
+     * Link each primary artifact to the secondary artifacts sharing its base name in the same directory, as Microcks
+     * replaces a service when its primary artifact is imported again and secondary ones have to be re-applied.
+     * @param primaries The relative paths of primary artifacts
+     * @param secondaries The relative paths of secondary artifacts
+     * @return The sorted relative paths of secondary artifacts by primary artifact relative path.
+     */
+    static Map<String, List<String>> buildDependencies(Collection<String> primaries, Collection<String> secondaries) {
+        Map<String, List<String>> secondariesByBaseName = new HashMap<>();
+        for (String secondary : secondaries) {
+            String baseName = SUFFIX_MATCHER.baseName(secondary);
+            if (baseName != null) {
+                secondariesByBaseName.computeIfAbsent(baseName, k -> new ArrayList<>()).add(secondary);
+            }
+        }
+
+        Map<String, List<String>> dependencies = new TreeMap<>();
+        for (String primary : primaries) {
+            List<String> dependents = secondariesByBaseName.get(SUFFIX_MATCHER.baseName(primary));
+            if (dependents != null) {
+                List<String> sortedDependents = new ArrayList<>(dependents);
+                Collections.sort(sortedDependents);
+                dependencies.put(primary, sortedDependents);
+            }
+        }
+        return dependencies;
     }
 
-    private Map<File, String> scanSecondaryArtifacts(CurateOutcomeBuildItem outcomeBuildItem) throws IOException {
-        return scanArtifacts(outcomeBuildItem, SECONDARY_ARTIFACTS_EXTENSIONS);
+    private void scanDependencies(ApplicationModel model, List<String> dependencies, ArtifactScanIndex previousIndex,
+                                  ArtifactScanIndex index, Map<File, String> primaries, Map<File, String> secondaries,
+                                  List<PackagedArtifact> packagedPrimaries, List<PackagedArtifact> packagedSecondaries) throws IOException {
+        for (ResolvedDependency dependency : model.getDependencies()) {
+            if (!dependencies.contains(dependency.getGroupId() + ":" + dependency.getArtifactId())) {
+                continue;
+            }
+            String coordinates = dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getVersion();
+            for (Path path : dependency.getResolvedPaths()) {
+                if (Files.isDirectory(path)) {
+                    // Dependency is a module of the workspace, its output directory can be walked like a resources dir.
+                    try {
+                        collectFilesAndRelativePaths(path, previousIndex, index, primaries, secondaries);
+                    } catch (UncheckedIOException uioe) {
+                        throw uioe.getCause();
+                    }
+                } else if (Files.isRegularFile(path)) {
+                    collectPackagedArtifacts(path, coordinates, packagedPrimaries, packagedSecondaries);
+                }
+            }
+        }
     }
 
-    private Map<File, String> scanArtifacts(CurateOutcomeBuildItem outcomeBuildItem,
-                                            List<String> validSuffixes) throws IOException {
+    private void collectPackagedArtifacts(Path archive, String coordinates, List<PackagedArtifact> packagedPrimaries,
+                                          List<PackagedArtifact> packagedSecondaries) throws IOException {
+        // Browse archive through a zip file system, nothing is extracted.
+        try (FileSystem archiveFs = FileSystems.newFileSystem(archive, (ClassLoader) null)) {
+            Path archiveRoot = archiveFs.getPath("/");
+            Files.walkFileTree(archiveRoot, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path current, BasicFileAttributes attrs) {
+                    if (!current.equals(archiveRoot) && matchesOneOf(archiveRoot.relativize(current), excludes)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (regularFileAttributes(file, attrs) != null) {
+                        ArtifactKind kind = SUFFIX_MATCHER.match(file.getFileName().toString());
+                        Path relativePath = archiveRoot.relativize(file);
+                        if (kind != ArtifactKind.NONE && isIncluded(relativePath)) {
+                            PackagedArtifact artifact = new PackagedArtifact(archive, relativePath.toString(), coordinates);
+                            (kind == ArtifactKind.PRIMARY ? packagedPrimaries : packagedSecondaries).add(artifact);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    private void scanArtifacts(WorkspaceModule module, ArtifactScanIndex previousIndex, ArtifactScanIndex index,
+                               Map<File, String> primaries, Map<File, String> secondaries) throws IOException {
         List<SourceDir> resourceDirs = new ArrayList<>();
-        resourceDirs.addAll(outcomeBuildItem.getApplicationModel().getApplicationModule().getMainSources().getResourceDirs());
-        resourceDirs.addAll(outcomeBuildItem.getApplicationModel().getApplicationModule().getTestSources().getResourceDirs());
+        resourceDirs.addAll(module.getMainSources().getResourceDirs());
+        resourceDirs.addAll(module.getTestSources().getResourceDirs());
 
-        Map<File, String> filesAndRelativePath = new HashMap<>();
-        // Extract all the files and their relative path from resource dir.
+        // Extract all the files and their relative path from resource dirs, walking them in parallel.
         // This path is the one that will be used for hot reloading so we should compute it now.
-        for (SourceDir resourceDir : resourceDirs) {
-            filesAndRelativePath.putAll(collectFilesAndRelativePaths(resourceDir.getDir(), validSuffixes));
+        try {
+            resourceDirs.parallelStream().forEach(resourceDir ->
+                    collectFilesAndRelativePaths(resourceDir.getDir(), previousIndex, index, primaries, secondaries));
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    private void collectFilesAndRelativePaths(Path dir, ArtifactScanIndex previousIndex, ArtifactScanIndex index,
+                                              Map<File, String> primaries, Map<File, String> secondaries) {
+        if (!Files.isDirectory(dir)) {
+            return;
         }
+        // Directories that are unchanged since previous index are not walked again but their
+        // sub-directories still have to be checked. They're queued as new walk roots.
+        Deque<Path> roots = new ArrayDeque<>();
+        roots.add(dir);
+        while (!roots.isEmpty()) {
+            Path root = roots.poll();
+            int rootDepth = root.equals(dir) ? 0 : dir.relativize(root).getNameCount();
+            try {
+                Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth - rootDepth, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path current, BasicFileAttributes attrs) {
+                        // Prune excluded sub-trees so that they're never descended into.
+                        if (!current.equals(dir) && matchesOneOf(dir.relativize(current), excludes)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        if (!current.equals(root)) {
+                            index.get(current.getParent()).subdirectories.add(current);
+                        }
+                        ArtifactScanIndex.DirectoryEntry upToDate = previousIndex.getUpToDate(current, attrs.lastModifiedTime());
+                        if (upToDate != null) {
+                            index.put(current, upToDate);
+                            for (ArtifactScanIndex.FileEntry file : upToDate.files) {
+                                collect(dir, current.resolve(file.name), file.kind, primaries, secondaries);
+                            }
+                            roots.addAll(upToDate.subdirectories);
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        index.put(current, new ArtifactScanIndex.DirectoryEntry(attrs.lastModifiedTime().toMillis()));
+                        return FileVisitResult.CONTINUE;
+                    }
 
-        return filesAndRelativePath;
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        // Symbolic links are not followed by the walk: index the size and modification time of their target.
+                        BasicFileAttributes fileAttrs = regularFileAttributes(file, attrs);
+                        if (fileAttrs != null) {
+                            ArtifactKind kind = SUFFIX_MATCHER.match(file.getFileName().toString());
+                            if (kind != ArtifactKind.NONE && isIncluded(dir.relativize(file))) {
+                                index.get(file.getParent()).files.add(new ArtifactScanIndex.FileEntry(file.getFileName().toString(),
+                                        fileAttrs.size(), fileAttrs.lastModifiedTime().toMillis(), kind));
+                                collect(dir, file, kind, primaries, secondaries);
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
     }
 
-    private Map<File, String> collectFilesAndRelativePaths(Path dir, List<String> validSuffixes) throws IOException {
-        Map<File, String> filesPaths = new HashMap<>();
-        if (Files.isDirectory(dir)) {
-            try (Stream<Path> stream = Files.walk(dir, 2)) {
-                stream.filter(Files::isRegularFile)
-                        .map(Path::toFile)
-                        .filter(candidate -> endsWithOneOf(candidate.getName(), validSuffixes))
-                        .forEach(file -> filesPaths.put(file, dir.relativize(file.toPath()).toString()));
+    /**
+     * Get the attributes of a visited file if it's a regular file or a symbolic link to a regular file.
+     * @param file The visited file
+     * @param attrs The attributes of the visited file, not following symbolic links
+     * @return The attributes of the file or of the target of the link, or null if it's not a regular file.
+     */
+    static BasicFileAttributes regularFileAttributes(Path file, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile()) {
+            return attrs;
+        }
+        if (attrs.isSymbolicLink()) {
+            try {
+                BasicFileAttributes targetAttrs = Files.readAttributes(file, BasicFileAttributes.class);
+                return targetAttrs.isRegularFile() ? targetAttrs : null;
+            } catch (IOException ioe) {
+                // Broken link, ignore it.
+                return null;
             }
         }
-        return filesPaths;
+        return null;
     }
 
-    private boolean endsWithOneOf(String candidate, List<String> validSuffixes) {
-        for (String validSuffix : validSuffixes) {
-            if (candidate.endsWith(validSuffix)) {
-                if (isAPostmanCollection(candidate)) {
-                    aPostmanCollectionIsPresent = true;
-                }
+    private boolean isIncluded(Path relativePath) {
+        return (includes.isEmpty() || matchesOneOf(relativePath, includes)) && !matchesOneOf(relativePath, excludes);
+    }
+
+    private static boolean matchesOneOf(Path relativePath, List<PathMatcher> matchers) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relativePath)) {
                 return true;
             }
         }
         return false;
     }
 
+    private static List<PathMatcher> compileGlobs(List<String> globs) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String glob : globs) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        }
+        return matchers;
+    }
+
+    private static void collect(Path dir, Path file, ArtifactKind kind, Map<File, String> primaries, Map<File, String> secondaries) {
+        Map<File, String> target = kind == ArtifactKind.PRIMARY ? primaries : secondaries;
+        target.put(file.toFile(), dir.relativize(file).toString());
+    }
+
     private static boolean isAPostmanCollection(String candidate) {
         for (String postmanSuffix : POSTMAN_COLLECTION_EXTENSIONS) {
             if (candidate.endsWith(postmanSuffix)) {
@@ -123,4 +365,13 @@ public class ArtifactScanner {
         }
         return false;
     }
+
+    static boolean isAnAsyncAPISpec(String candidate) {
+        for (String asyncAPISuffix : ASYNCAPI_SPEC_EXTENSIONS) {
+            if (candidate.endsWith(asyncAPISuffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A matcher that sorts file names into primary, secondary or no artifact at all.
+ * Suffixes are indexed by their file extension once, so that matching a name only checks
+ * the few suffixes sharing its extension instead of every known suffix.
+ * @author laurent
+ */
+final class ArtifactSuffixMatcher {
+
+   private static final String SEPARATORS = "-_.";
+
+   private final Map<String, List<Suffix>> suffixesByExtension = new HashMap<>();
+
+   ArtifactSuffixMatcher(List<String> primarySuffixes, List<String> secondarySuffixes) {
+      // Register primary suffixes first so that they win if a name matches both lists.
+      primarySuffixes.forEach(suffix -> register(suffix, ArtifactKind.PRIMARY));
+      secondarySuffixes.forEach(suffix -> register(suffix, ArtifactKind.SECONDARY));
+   }
+
+   /**
+    * Tell what kind of artifact a file name corresponds to.
+    * @param fileName The simple name of the file (without any directory)
+    * @return The artifact kind, {@code NONE} if name does not match any suffix.
+    */
+   ArtifactKind match(String fileName) {
+      List<Suffix> candidates = suffixesByExtension.get(extensionOf(fileName));
+      if (candidates != null) {
+         for (Suffix candidate : candidates) {
+            if (fileName.endsWith(candidate.value)) {
+               return candidate.kind;
+            }
+         }
+      }
+      return ArtifactKind.NONE;
+   }
+
+   /**
+    * Get the base name shared by artifacts describing the same API, eg. {@code petstore} for both
+    * {@code petstore-openapi.yaml} and {@code petstore-examples.yaml}.
+    * @param fileName The name of the file, may be prefixed by a relative directory
+    * @return The name without its artifact suffix and trailing separators, null if name does not match any suffix.
+    */
+   String baseName(String fileName) {
+      List<Suffix> candidates = suffixesByExtension.get(extensionOf(fileName));
+      if (candidates != null) {
+         for (Suffix candidate : candidates) {
+            if (fileName.endsWith(candidate.value)) {
+               int end = fileName.length() - candidate.value.length();
+               while (end > 0 && SEPARATORS.indexOf(fileName.charAt(end - 1)) >= 0) {
+                  end--;
+               }
+               return fileName.substring(0, end);
+            }
+         }
+      }
+      return null;
+   }
+
+   private void register(String suffix, ArtifactKind kind) {
+      suffixesByExtension.computeIfAbsent(extensionOf(suffix), k -> new ArrayList<>()).add(new Suffix(suffix, kind));
+   }
+
+   private static String extensionOf(String name) {
+      return name.substring(name.lastIndexOf('.') + 1);
+   }
+
+   private static final class Suffix {
+      private final String value;
+      private final ArtifactKind kind;
+
+      private Suffix(String value, ArtifactKind kind) {
+         this.value = value;
+         this.kind = kind;
+      }
+   }
+}
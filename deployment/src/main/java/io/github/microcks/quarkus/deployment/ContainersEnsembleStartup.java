@@ -0,0 +1,217 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.github.dockerjava.api.DockerClient;
+import org.jboss.logging.Logger;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.startupcheck.StartupCheckStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The startup coordinator of the containers forming a Microcks ensemble. Images of every member are pulled in the
+ * background as soon as the member is registered, and starting any independent member starts all the independent
+ * ones concurrently. Members depending on some other Dev Service config (like the Async Minion waiting for Kafka)
+ * are only started when Quarkus asks for them. Pull, create, start and ready phases of each member are logged as a
+ * timeline relative to the registration of the first member, and recorded as startup stages.
+ * @author laurent
+ */
+final class ContainersEnsembleStartup {
+
+   private static final Logger log = Logger.getLogger(ContainersEnsembleStartup.class);
+
+   private static final AtomicInteger threadCounter = new AtomicInteger();
+   private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "microcks-ensemble-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   private final String serviceName;
+   private final StartupStages stages;
+   private final long originNanos = System.nanoTime();
+   private final Map<String, Member> members = new LinkedHashMap<>();
+
+   /**
+    * Create a new coordinator.
+    * @param serviceName The name of the Microcks service this ensemble is for
+    * @param stages The recorder of startup stages
+    */
+   ContainersEnsembleStartup(String serviceName, StartupStages stages) {
+      this.serviceName = serviceName;
+      this.stages = stages;
+   }
+
+   /**
+    * Register a member of the ensemble and start pulling its image in the background.
+    * @param name The name of member within the ensemble
+    * @param container The container of this member, not started yet
+    * @param independent Whether this member can be started as soon as any other independent member is
+    */
+   synchronized void register(String name, GenericContainer<?> container, boolean independent) {
+      Member member = new Member(name, container, independent);
+      members.put(name, member);
+      container.setStartupCheckStrategy(new TimedStartupCheckStrategy(container.getStartupCheckStrategy(), member));
+      container.withCreateContainerCmdModifier(cmd -> member.createNanos = System.nanoTime());
+      member.pull = CompletableFuture.runAsync(() -> {
+         member.pullNanos = System.nanoTime();
+         container.getDockerImageName();
+         member.pulledNanos = System.nanoTime();
+      }, executor);
+   }
+
+   /**
+    * Start a member of the ensemble, waiting for it to be ready. If this member is independent, the other
+    * independent members are started concurrently.
+    * @param name The name of member to start
+    */
+   void start(String name) {
+      Member member;
+      synchronized (this) {
+         member = members.get(name);
+         if (member.independent) {
+            members.values().stream().filter(other -> other.independent).forEach(this::startAsync);
+         } else {
+            startAsync(member);
+         }
+      }
+      try {
+         member.start.join();
+      } catch (CompletionException ce) {
+         if (ce.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) ce.getCause();
+         }
+         throw ce;
+      }
+   }
+
+   private void startAsync(Member member) {
+      if (member.start != null) {
+         return;
+      }
+      member.start = member.pull.handle((result, failure) -> null).thenRunAsync(() -> {
+         member.startNanos = System.nanoTime();
+         member.container.start();
+         member.readyNanos = System.nanoTime();
+         logTimeline(member);
+      }, executor);
+   }
+
+   private void logTimeline(Member member) {
+      log.infof("Microcks ensemble '%s' member '%s' is ready at +%dms: pull %s, create %s, start %s, ready %s",
+            serviceName, member.name, offsetMillis(member.readyNanos), phase(member.pullNanos, member.pulledNanos),
+            phase(member.createNanos, member.checkNanos), phase(member.checkNanos, member.runningNanos),
+            phase(member.runningNanos, member.readyNanos));
+      recordStage(StartupStage.Stage.IMAGE_PULL, member.name, member.pullNanos, member.pulledNanos);
+      recordStage(StartupStage.Stage.CONTAINER_CREATE, member.name, member.createNanos, member.checkNanos);
+      recordStage(StartupStage.Stage.CONTAINER_START, member.name, member.checkNanos, member.runningNanos);
+      recordStage(StartupStage.Stage.WAIT_STRATEGY, member.name, member.runningNanos, member.readyNanos);
+
+      // Members that have not been asked for yet (like on-demand ones) are not waited for.
+      List<Member> started;
+      synchronized (this) {
+         started = members.values().stream().filter(other -> other.start != null).collect(Collectors.toList());
+         if (started.stream().anyMatch(other -> other.readyNanos == 0)) {
+            return;
+         }
+      }
+      recordStage(StartupStage.Stage.ENSEMBLE, null, originNanos, member.readyNanos);
+      long sequentialNanos = started.stream().mapToLong(Member::busyNanos).sum();
+      log.infof("Microcks ensemble '%s' is ready in %dms, its members would have taken %dms one after another",
+            serviceName, offsetMillis(member.readyNanos), TimeUnit.NANOSECONDS.toMillis(sequentialNanos));
+   }
+
+   private void recordStage(StartupStage.Stage stage, String subject, long fromNanos, long toNanos) {
+      if (fromNanos != 0 && toNanos != 0) {
+         stages.record(serviceName, stage, subject, fromNanos, toNanos);
+      }
+   }
+
+   /** @return A phase description like {@code +120ms/350ms}, with its offset and its duration. */
+   private String phase(long fromNanos, long toNanos) {
+      if (fromNanos == 0 || toNanos == 0) {
+         return "-";
+      }
+      return "+" + offsetMillis(fromNanos) + "ms/" + TimeUnit.NANOSECONDS.toMillis(toNanos - fromNanos) + "ms";
+   }
+
+   private long offsetMillis(long nanos) {
+      return TimeUnit.NANOSECONDS.toMillis(nanos - originNanos);
+   }
+
+   /** A member of the ensemble with the {@code System.nanoTime()} of its phases, 0 meaning not reached. */
+   private static final class Member {
+      private final String name;
+      private final GenericContainer<?> container;
+      private final boolean independent;
+      private CompletableFuture<Void> pull;
+      private CompletableFuture<Void> start;
+      private volatile long pullNanos;
+      private volatile long pulledNanos;
+      private volatile long startNanos;
+      private volatile long createNanos;
+      private volatile long checkNanos;
+      private volatile long runningNanos;
+      private volatile long readyNanos;
+
+      private Member(String name, GenericContainer<?> container, boolean independent) {
+         this.name = name;
+         this.container = container;
+         this.independent = independent;
+      }
+
+      /** @return The time spent pulling and starting this member, without waiting for its dependencies. */
+      private long busyNanos() {
+         return (pulledNanos - pullNanos) + (readyNanos - startNanos);
+      }
+   }
+
+   /** A startup check strategy recording when the container has been started and is running. */
+   private static final class TimedStartupCheckStrategy extends StartupCheckStrategy {
+      private final StartupCheckStrategy delegate;
+      private final Member member;
+
+      private TimedStartupCheckStrategy(StartupCheckStrategy delegate, Member member) {
+         this.delegate = delegate;
+         this.member = member;
+      }
+
+      @Override
+      public boolean waitUntilStartupSuccessful(GenericContainer<?> container) {
+         member.checkNanos = System.nanoTime();
+         try {
+            return delegate.waitUntilStartupSuccessful(container);
+         } finally {
+            member.runningNanos = System.nanoTime();
+         }
+      }
+
+      @Override
+      public StartupStatus checkStartupState(DockerClient dockerClient, String containerId) {
+         return delegate.checkStartupState(dockerClient, containerId);
+      }
+   }
+}
@@ -16,11 +16,17 @@
 package io.github.microcks.quarkus.deployment;
 
 import io.github.microcks.quarkus.deployment.MicrocksDevServicesConfig.ArtifactsConfiguration;
+import io.github.microcks.quarkus.runtime.ArtifactDependencies;
+import io.github.microcks.quarkus.runtime.ArtifactServices;
+import io.github.microcks.quarkus.runtime.ConfiguredArtifactsWatcher;
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader.UploadResult;
+import io.github.microcks.quarkus.runtime.MicrocksImportStatus;
 import io.github.microcks.quarkus.runtime.MicrocksJsonRPCService;
 import io.github.microcks.quarkus.runtime.MicrocksProperties;
+import io.github.microcks.quarkus.runtime.RemoteArtifactsPoller;
 import io.github.microcks.testcontainers.MicrocksAsyncMinionContainer;
 import io.github.microcks.testcontainers.MicrocksContainer;
-import io.github.microcks.testcontainers.RemoteArtifact;
 import io.github.microcks.testcontainers.connection.KafkaConnection;
 import io.github.microcks.testcontainers.model.Secret;
 
@@ -35,12 +41,14 @@ import io.quarkus.deployment.IsProduction;
 import io.quarkus.deployment.annotations.BuildProducer;
 import io.quarkus.deployment.annotations.BuildStep;
 import io.quarkus.deployment.annotations.BuildSteps;
+import io.quarkus.deployment.builditem.CuratedApplicationShutdownBuildItem;
 import io.quarkus.deployment.builditem.DevServicesResultBuildItem;
 import io.quarkus.deployment.builditem.DevServicesSharedNetworkBuildItem;
 import io.quarkus.deployment.builditem.DockerStatusBuildItem;
 import io.quarkus.deployment.builditem.LaunchModeBuildItem;
 import io.quarkus.deployment.builditem.Startable;
 import io.quarkus.deployment.dev.devservices.DevServicesConfig;
+import io.quarkus.deployment.pkg.builditem.BuildSystemTargetBuildItem;
 import io.quarkus.deployment.pkg.builditem.CurateOutcomeBuildItem;
 import io.quarkus.devservices.common.ConfigureUtil;
 import io.quarkus.devservices.common.ContainerAddress;
@@ -62,14 +70,30 @@ import org.testcontainers.utility.DockerImageName;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static io.quarkus.runtime.LaunchMode.DEVELOPMENT;
 
@@ -86,7 +110,10 @@ public class DevServicesMicrocksProcessor {
    private static final Logger log = Logger.getLogger(DevServicesMicrocksProcessor.class);
 
    private static final String MICROCKS = "microcks";
+   private static final int POSTMAN_RUNTIME_PORT = 3000;
    private static final String HTTP_SCHEME = "http://";
+   /** Pattern for the location of import status files, relative to the build output directory. */
+   private static final String IMPORT_STATUS_FILE = "microcks/import-status-%s.properties";
 
    /**
     * Label to add to shared Dev Service for Microcks running in containers.
@@ -96,6 +123,18 @@ public class DevServicesMicrocksProcessor {
 
    private static final ContainerLocator microcksContainerLocator = new ContainerLocator(DEV_SERVICE_LABEL, MicrocksContainer.MICROCKS_HTTP_PORT);
    private static final ContainerLocator microcksContainerLocatorForGRPC = new ContainerLocator(DEV_SERVICE_LABEL, MicrocksContainer.MICROCKS_GRPC_PORT);
+   private static final ContainerLocator reusedContainerLocator = new ContainerLocator(ReusedTestContainer.LABEL, MicrocksContainer.MICROCKS_HTTP_PORT);
+   private static final ContainerLocator reusedContainerLocatorForGRPC = new ContainerLocator(ReusedTestContainer.LABEL, MicrocksContainer.MICROCKS_GRPC_PORT);
+   /** Label of Microcks containers reused in test mode, as shown in Dev UI. */
+   private static final String REUSED = "reused";
+
+   /** Runs the imports that happen in the background or into discovered containers, off the common pool. */
+   private static final AtomicInteger importThreadCounter = new AtomicInteger();
+   private static final ExecutorService importExecutor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "microcks-imports-" + importThreadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+   });
 
    public static final String KAFKA_BOOTSTRAP_SERVERS = "kafka.bootstrap.servers";
 
@@ -105,15 +144,12 @@ public class DevServicesMicrocksProcessor {
     */
    @BuildStep
    public Optional<DevServicesSharedNetworkBuildItem> prepareSharedNetwork(MicrocksBuildTimeConfig config) {
-      // Retrieve DevServices config. Only manage a default one at the moment.
-      MicrocksDevServicesConfig devServicesConfiguration = config.defaultDevService().devservices();
-
       log.info("================================");
       log.info("Checking whether we need to prepare a shared network for Microcks DevServices...");
 
-      if (!devServicesConfiguration.enabled()) {
+      if (devServicesConfigs(config).values().stream().noneMatch(MicrocksDevServicesConfig::enabled)) {
          // Explicitly disabled
-         log.debug("Not preparing a shared network as Microcks devservices has been disabled in the config");
+         log.debug("Not preparing a shared network as Microcks devservices have been disabled in the config");
          return Optional.empty();
       }
 
@@ -124,29 +160,40 @@ public class DevServicesMicrocksProcessor {
    }
 
    public static final class MicrocksContainerBuildItem extends MultiBuildItem {
+      private final String serviceName;
       private final boolean isOwned;
       private final ContainerAddress containerAddress;
       private final ContainerAddress containerAddressForGRPC;
       private final MicrocksContainerStartable container;
       private final String label;
+      private final StartupStages stages;
 
-      public MicrocksContainerBuildItem(ContainerAddress containerAddress, ContainerAddress containerAddressForGRPC, String label) {
+      public MicrocksContainerBuildItem(String serviceName, ContainerAddress containerAddress, ContainerAddress containerAddressForGRPC, String label,
+                                        StartupStages stages) {
+         this.serviceName = serviceName;
          isOwned = false;
          this.containerAddress = containerAddress;
          this.containerAddressForGRPC = containerAddressForGRPC;
          this.container = null;
          this.label = label;
+         this.stages = stages;
       }
 
-      public MicrocksContainerBuildItem(MicrocksContainerStartable container, String label) {
+      public MicrocksContainerBuildItem(String serviceName, MicrocksContainerStartable container, String label, StartupStages stages) {
+         this.serviceName = serviceName;
          isOwned = true;
          this.container = container;
          this.containerAddressForGRPC = null;
          this.containerAddress = null;
          this.label = label;
+         this.stages = stages;
       }
 
 
+      public String serviceName() {
+         return serviceName;
+      }
+
       public boolean isOwned() {
          return isOwned;
       }
@@ -166,57 +213,204 @@ public class DevServicesMicrocksProcessor {
       public String label() {
          return label;
       }
+
+      /**
+       * @return The recorder of startup stages, shared by every Microcks service of this build.
+       */
+      StartupStages stages() {
+         return stages;
+      }
    }
 
    /**
-    * Start one (or many in the future) MicrocksContainer(s) depending on extension configuration.
+    * Start one MicrocksContainer per enabled Dev Service depending on extension configuration.
     * We also take care of locating and re-using existing container if configured in shared modeL
     */
    @BuildStep
-   public void startMicrocksDevService(BuildProducer<DevServicesResultBuildItem> producer, List<MicrocksContainerBuildItem> containers, MicrocksBuildTimeConfig microcksBuildTimeConfig, ScanResultsBuildItem scanResults) {
-      MicrocksDevServicesConfig config = microcksBuildTimeConfig.defaultDevService().devservices();
-
+   public void startMicrocksDevService(BuildProducer<DevServicesResultBuildItem> producer, List<MicrocksContainerBuildItem> containers,
+                                       MicrocksBuildTimeConfig microcksBuildTimeConfig, List<ScanResultsBuildItem> allScanResults,
+                                       BuildSystemTargetBuildItem buildSystemTarget, LaunchModeBuildItem launchMode,
+                                       CuratedApplicationShutdownBuildItem closeBuildItem) {
+      if (containers.isEmpty()) {
+         return;
+      }
+      Map<String, MicrocksDevServicesConfig> devServicesConfigs = devServicesConfigs(microcksBuildTimeConfig);
+      StartupStages stages = containers.get(0).stages();
+      // Every service publishes the names of all services so that hot reload and Dev UI can route to each of them.
+      String serviceNames = containers.stream().map(MicrocksContainerBuildItem::serviceName).collect(Collectors.joining(","));
+      stages.starting(containers.stream().map(MicrocksContainerBuildItem::serviceName).collect(Collectors.toList()));
+      // Save the stages of a startup that fails or of members started later on too.
+      closeBuildItem.addCloseTask(stages::close, true);
+
+      List<CompletableFuture<DevServicesResultBuildItem>> discoveredServices = new ArrayList<>();
       for (MicrocksContainerBuildItem container : containers) {
+         String serviceName = container.serviceName();
+         MicrocksDevServicesConfig config = devServicesConfigs.get(serviceName);
+         ScanResultsBuildItem scanResults = scanResultsOf(serviceName, allScanResults);
+         Path manifestFile = buildSystemTarget.getOutputDirectory()
+               .resolve(String.format(ArtifactImportManifest.MANIFEST_FILE, serviceName));
+         ArtifactImportSnapshot snapshot = config.importSnapshots()
+               ? new ArtifactImportSnapshot(buildSystemTarget.getOutputDirectory(), serviceName) : null;
+         Path statusFile = buildSystemTarget.getOutputDirectory().resolve(String.format(IMPORT_STATUS_FILE, serviceName));
+
          if (container.isOwned()) {
             Supplier<MicrocksContainerStartable> microcksSupplier = () -> container.getContainer();
+            SeededImage seededImage = container.getContainer().getSeededImage();
+            if (seededImage != null) {
+               // Let an in-flight commit of the seeded image complete before the application shuts down.
+               closeBuildItem.addCloseTask(seededImage::awaitCommit, true);
+            }
             producer.produce(DevServicesResultBuildItem.owned()
-                  .serviceName("microcks-" + config.serviceName())
+                  .serviceName("microcks-" + serviceName)
                   .name(MicrocksQuarkusProcessor.FEATURE)
                   .serviceConfig(config)
                   .startable(microcksSupplier)
                   .postStartHook(s -> {
-                     List<String> loadedSecrets = importSecrets(config, s.getConnectionInfo());
-                     importArtifacts(scanResults, loadedSecrets, config, s);
+                     Supplier<LoadedArtifacts> imports = () -> {
+                        ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile,
+                              ArtifactImportManifest.containerRunOf(s.getContainerId()));
+                        LoadedArtifacts loadedArtifacts = importArtifacts(scanResults, config, s.getConnectionInfo(), manifest, snapshot,
+                              s.getSnapshotKey(), s.getSeededImage(), stages);
+                        manifest.save();
+                        watchConfiguredArtifacts(serviceName, config, s.getConnectionInfo(), loadedArtifacts, launchMode);
+                        pollRemoteArtifacts(serviceName, config, s.getConnectionInfo(), launchMode);
+
+                        // Publish the loaded artifacts list so that Hot reload will be able to use it.
+                        s.setLoadedPrimaryArtifacts(String.join(",", loadedArtifacts.primaryArtifacts));
+                        s.setLoadedSecondaryArtifacts(String.join(",", loadedArtifacts.secondaryArtifacts));
+                        s.setArtifactDependencies(ArtifactDependencies.encode(loadedArtifacts.artifactDependencies));
+                        s.setArtifactServices(loadedArtifacts.artifactServices.encode());
+                        return loadedArtifacts;
+                     };
+                     MicrocksImportStatus.write(statusFile, MicrocksImportStatus.IMPORTING, Map.of());
+                     if (config.asyncImports()) {
+                        // Container address is already published: application starts while imports are running.
+                        CompletableFuture.runAsync(() -> importWithStatus(serviceName, statusFile, stages, imports), importExecutor)
+                              .exceptionally(failure -> {
+                                 log.errorf(failure, "Failed to import artifacts into Microcks service '%s'", serviceName);
+                                 return null;
+                              });
+                     } else {
+                        importWithStatus(serviceName, statusFile, stages, imports);
+                     }
                   })
-                  .configProvider(getDevServiceExposedConfig(config.serviceName()))
+                  .configProvider(getDevServiceExposedConfig(serviceName, serviceNames, statusFile))
                   .build());
          } else {
-            ContainerAddress containerAddress = container.getContainerAddress();
-
-            ContainerAddress containerAddressForGRPC = container.getContainerAddressForGRPC();
-            producer.produce(DevServicesResultBuildItem.discovered()
-                  .name(config.serviceName())
-                  .containerId(containerAddress.getId())
-                  .config(getDevServiceExposedConfig(config.serviceName(), containerAddress.getHost(),
-                        containerAddress.getPort(), containerAddressForGRPC.getPort()))
-                  .build());
+            // Discovered containers are not closed by Quarkus, so artifacts are watched until the application shuts down.
+            closeBuildItem.addCloseTask(() -> stopWatchingArtifacts(serviceName), true);
+            // Discovered containers are already running: import into each of them concurrently.
+            discoveredServices.add(CompletableFuture.supplyAsync(() ->
+                  discoveredDevService(serviceName, config, container, scanResults, manifestFile, snapshot, statusFile, serviceNames,
+                        launchMode, stages), importExecutor));
          }
       }
+      discoveredServices.forEach(discoveredService -> producer.produce(discoveredService.join()));
+   }
+
+   private DevServicesResultBuildItem discoveredDevService(String serviceName, MicrocksDevServicesConfig config,
+                                                           MicrocksContainerBuildItem container, ScanResultsBuildItem scanResults,
+                                                           Path manifestFile, ArtifactImportSnapshot snapshot, Path statusFile,
+                                                           String serviceNames, LaunchModeBuildItem launchMode, StartupStages stages) {
+      if (REUSED.equals(container.label())) {
+         container = resetReusedContainer(serviceName, config, container, manifestFile);
+      }
+      ContainerAddress containerAddress = container.getContainerAddress();
+      ContainerAddress containerAddressForGRPC = container.getContainerAddressForGRPC();
+
+      // A discovered container may already hold our artifacts: only import what changed since last time.
+      String connectionInfo = HTTP_SCHEME + containerAddress.getHost() + ":" + containerAddress.getPort();
+      MicrocksImportStatus.write(statusFile, MicrocksImportStatus.IMPORTING, Map.of());
+      LoadedArtifacts loadedArtifacts = importWithStatus(serviceName, statusFile, stages, () -> {
+         ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile,
+               ArtifactImportManifest.containerRunOf(containerAddress.getId()));
+         String snapshotKey = snapshot != null ? snapshotKeyOf(config, scanResults) : null;
+         LoadedArtifacts imported = importArtifacts(scanResults, config, connectionInfo, manifest, snapshot, snapshotKey,
+               null, stages);
+         manifest.save();
+         return imported;
+      });
+      watchConfiguredArtifacts(serviceName, config, connectionInfo, loadedArtifacts, launchMode);
+      pollRemoteArtifacts(serviceName, config, connectionInfo, launchMode);
+
+      Map<String, String> exposedConfig = new HashMap<>(getDevServiceExposedConfig(serviceName,
+            containerAddress.getHost(), containerAddress.getPort(), containerAddressForGRPC.getPort()));
+      exposedConfig.putAll(getLoadedArtifactsConfig(serviceName, loadedArtifacts));
+      exposedConfig.put(MicrocksProperties.getConfigPrefix(serviceName) + MicrocksProperties.IMPORT_STATUS_FILE, statusFile.toString());
+      exposedConfig.put(MicrocksProperties.SERVICE_NAMES, serviceNames);
+
+      return DevServicesResultBuildItem.discovered()
+            .name(serviceName)
+            .containerId(containerAddress.getId())
+            .config(exposedConfig)
+            .build();
+   }
+
+   /**
+    * Reset the state of a container reused in tests by restarting it. Restarted container gets new ports.
+    */
+   private MicrocksContainerBuildItem resetReusedContainer(String serviceName, MicrocksDevServicesConfig config,
+                                                          MicrocksContainerBuildItem container, Path manifestFile) {
+      ContainerAddress containerAddress = container.getContainerAddress();
+      ReusedTestContainer reusedContainer = new ReusedTestContainer(
+            MicrocksArtifactUploader.getInstance(config.http2()), manifestFile);
+      reusedContainer.restart(HTTP_SCHEME + containerAddress.getHost() + ":" + containerAddress.getPort(), containerAddress.getId());
+
+      String labelValue = ReusedTestContainer.labelValue(serviceName, config);
+      ContainerAddress restartedAddress = reusedContainerLocator.locateContainer(labelValue, true, DEVELOPMENT)
+            .orElseThrow(() -> new IllegalStateException("Reused Microcks container '" + labelValue + "' is gone after restart"));
+      ContainerAddress restartedAddressForGRPC = reusedContainerLocatorForGRPC.locateContainer(labelValue, true, DEVELOPMENT)
+            .orElseThrow(() -> new IllegalStateException("Reused Microcks container '" + labelValue + "' is gone after restart"));
+      reusedContainer.restore(HTTP_SCHEME + restartedAddress.getHost() + ":" + restartedAddress.getPort(), restartedAddress.getId());
+      return new MicrocksContainerBuildItem(serviceName, restartedAddress, restartedAddressForGRPC, REUSED, container.stages());
    }
 
    @BuildStep
-   public MicrocksContainerBuildItem makeTheContainer(
+   public void makeTheContainers(
+         BuildProducer<MicrocksContainerBuildItem> containerProducer,
          BuildProducer<MicrocksContainersEnsembleHostsBuildItem> ensembleConfigBuildItemProducer,
          LaunchModeBuildItem launchMode,
          DockerStatusBuildItem dockerStatusBuildItem,
          MicrocksBuildTimeConfig microcksBuildTimeConfig,
+         List<ScanResultsBuildItem> allScanResults,
+         StartupStagesBuildItem startupStages,
+         BuildSystemTargetBuildItem buildSystemTarget,
+         Capabilities capabilities,
+         List<DevServicesSharedNetworkBuildItem> sharedNetworks,
+         DevServicesConfig devServicesConfig) {
+
+      // Stages are saved under build output directory, and as spans too when the application traces with OpenTelemetry.
+      Config config = ConfigProvider.getConfig();
+      boolean tracing = capabilities.isPresent(Capability.OPENTELEMETRY_TRACER)
+            && config.getOptionalValue("quarkus.otel.enabled", Boolean.class).orElse(true)
+            && config.getOptionalValue("quarkus.otel.traces.enabled", Boolean.class).orElse(true);
+      StartupStages stages = new StartupStages(buildSystemTarget.getOutputDirectory(), tracing);
+      startupStages.getStages().forEach(stages::record);
+
+      for (Map.Entry<String, MicrocksDevServicesConfig> devService : devServicesConfigs(microcksBuildTimeConfig).entrySet()) {
+         MicrocksContainerBuildItem container = makeTheContainer(devService.getKey(), devService.getValue(),
+               scanResultsOf(devService.getKey(), allScanResults), stages, ensembleConfigBuildItemProducer,
+               launchMode, dockerStatusBuildItem, sharedNetworks, devServicesConfig);
+         if (container != null) {
+            containerProducer.produce(container);
+         }
+      }
+   }
+
+   private MicrocksContainerBuildItem makeTheContainer(
+         String serviceName,
+         MicrocksDevServicesConfig config,
+         ScanResultsBuildItem scanResults,
+         StartupStages stages,
+         BuildProducer<MicrocksContainersEnsembleHostsBuildItem> ensembleConfigBuildItemProducer,
+         LaunchModeBuildItem launchMode,
+         DockerStatusBuildItem dockerStatusBuildItem,
          List<DevServicesSharedNetworkBuildItem> sharedNetworks,
          DevServicesConfig devServicesConfig) {
 
       // If the dev service is disabled, we return null to indicate that no dev service was started.
-      MicrocksDevServicesConfig config = microcksBuildTimeConfig.defaultDevService().devservices();
       if (!config.enabled()) {
-         log.debug("Not starting dev services for Microcks as it has been disabled in the config.");
+         log.debugf("Not starting dev services for Microcks '%s' as it has been disabled in the config.", serviceName);
          return null;
       }
 
@@ -232,15 +426,23 @@ public class DevServicesMicrocksProcessor {
 
       boolean useSharedNetwork = DevServicesSharedNetworkBuildItem.isSharedNetworkRequired(devServicesConfig, sharedNetworks);
 
-      log.info("Starting Microcks DevServices" + (useSharedNetwork ? " using shared network" : ""));
+      log.info("Starting Microcks DevServices '" + serviceName + "'" + (useSharedNetwork ? " using shared network" : ""));
       log.info("================================");
 
 
-      Supplier<MicrocksContainerBuildItem> thing = () -> new MicrocksContainerBuildItem(createMicrocksContainer(config, launchMode.getLaunchMode(), ensembleConfigBuildItemProducer), config.serviceName());
+      Supplier<MicrocksContainerBuildItem> thing = () -> new MicrocksContainerBuildItem(serviceName, createMicrocksContainer(serviceName, config, scanResults, stages, launchMode.getLaunchMode(), ensembleConfigBuildItemProducer), serviceName, stages);
 
-      return microcksContainerLocator.locateContainer(config.serviceName(), config.shared(), launchMode.getLaunchMode())
-            .map(containerAddress -> microcksContainerLocatorForGRPC.locateContainer(config.serviceName(), config.shared(), launchMode.getLaunchMode())
-                  .map(containerAddressForGRPC -> new MicrocksContainerBuildItem(containerAddress, containerAddressForGRPC, "discovered")).orElseGet(thing))
+      if (reusedInTests(serviceName, config, scanResults, launchMode.getLaunchMode())) {
+         // Locator only looks for containers in dev mode: reused ones are looked for as shared ones.
+         String labelValue = ReusedTestContainer.labelValue(serviceName, config);
+         return reusedContainerLocator.locateContainer(labelValue, true, DEVELOPMENT)
+               .map(containerAddress -> reusedContainerLocatorForGRPC.locateContainer(labelValue, true, DEVELOPMENT)
+                     .map(containerAddressForGRPC -> new MicrocksContainerBuildItem(serviceName, containerAddress, containerAddressForGRPC, REUSED, stages)).orElseGet(thing))
+               .orElseGet(thing);
+      }
+      return microcksContainerLocator.locateContainer(serviceName, config.shared(), launchMode.getLaunchMode())
+            .map(containerAddress -> microcksContainerLocatorForGRPC.locateContainer(serviceName, config.shared(), launchMode.getLaunchMode())
+                  .map(containerAddressForGRPC -> new MicrocksContainerBuildItem(serviceName, containerAddress, containerAddressForGRPC, "discovered", stages)).orElseGet(thing))
             .orElseGet(thing);
    }
 
@@ -251,17 +453,25 @@ public class DevServicesMicrocksProcessor {
     */
    @BuildStep
    public void completeMicrocksEnsembleForMinion(Capabilities capabilities, MicrocksBuildTimeConfig microcksBuildTimeConfig,
-                                                 List<MicrocksContainersEnsembleHostsBuildItem> ensembleHostses, BuildProducer<DevServicesResultBuildItem> producer) {
+                                                 List<MicrocksContainersEnsembleHostsBuildItem> ensembleHostses, List<ScanResultsBuildItem> allScanResults,
+                                                 BuildProducer<DevServicesResultBuildItem> producer) {
 
       log.info("================================");
       log.info("Adding Minion to Microcks DevServices Ensemble if required...");
 
+      Map<String, MicrocksDevServicesConfig> devServicesConfigs = devServicesConfigs(microcksBuildTimeConfig);
       for (MicrocksContainersEnsembleHostsBuildItem ensembleHosts : ensembleHostses) {
 
-         // Get the ensemble configuration.
-         MicrocksDevServicesConfig.EnsembleConfiguration ensembleConfiguration = microcksBuildTimeConfig.defaultDevService().devservices().ensemble();
+         // Get the ensemble configuration of the service this ensemble is for.
+         MicrocksDevServicesConfig config = devServicesConfigs.get(ensembleHosts.getServiceName());
+         MicrocksDevServicesConfig.EnsembleConfiguration ensembleConfiguration = config.ensemble();
+
+         // On demand, the minion is only needed for AsyncAPI artifacts. Otherwise, the presence of Kafka is enough.
+         boolean minionIsNeeded = ensembleConfiguration.onDemand()
+               ? anAsyncAPISpecIsPresent(config, scanResultsOf(ensembleHosts.getServiceName(), allScanResults))
+               : kafkaBrokerIsPresent(capabilities);
 
-         if (ensembleConfiguration.asyncEnabled() || kafkaBrokerIsPresent(capabilities)) {
+         if (ensembleConfiguration.asyncEnabled() || minionIsNeeded) {
             log.debugf("Starting a MicrocksAsyncMinionContainer with image '%s'", ensembleConfiguration.asyncImageName());
 
             // Force compatibility of configured image.
@@ -278,13 +488,15 @@ public class DevServicesMicrocksProcessor {
             aliases.add(ensembleHosts.getAsyncMinionHost());
             asyncMinionContainer.setNetworkAliases(aliases);
 
-            MicrocksDevServicesConfig config = microcksBuildTimeConfig.defaultDevService().devservices();
+            // The minion depends on Kafka config: only pull its image ahead, Quarkus will start it once Kafka is there.
+            ensembleHosts.getStartup().register("async-minion", asyncMinionContainer, false);
 
             // It would be nice not to hardcode this port
-            Supplier<? extends MinionContainerStartable> microcksSupplier = () -> new MinionContainerStartable(asyncMinionContainer, 8081);
+            Supplier<? extends MinionContainerStartable> microcksSupplier = () -> new MinionContainerStartable(asyncMinionContainer, 8081,
+                  ensembleHosts.getStartup());
             producer.produce(DevServicesResultBuildItem.owned()
                   .feature(MicrocksQuarkusProcessor.FEATURE)
-                  .serviceName(MicrocksQuarkusProcessor.FEATURE + "-" + config.serviceName() + "minion")
+                  .serviceName(MicrocksQuarkusProcessor.FEATURE + "-" + ensembleHosts.getServiceName() + "minion")
                   .serviceConfig(config) // the lifecycle of the postman container should be the same as of the microcks container
                   .startable(microcksSupplier)
                   .dependsOnConfig(KAFKA_BOOTSTRAP_SERVERS, MinionContainerStartable::setKafkaBootstrapServersFromDevService) // the minion shouldn't be started until kafka is started
@@ -295,6 +507,40 @@ public class DevServicesMicrocksProcessor {
       log.info("================================");
    }
 
+   private static boolean anAsyncAPISpecIsPresent(MicrocksDevServicesConfig config, ScanResultsBuildItem scanResults) {
+      return scanResults.anAsyncAPISpecIsPresent() || config.artifacts()
+            .map(artifacts -> artifacts.primaries().stream().anyMatch(ArtifactScanner::isAnAsyncAPISpec))
+            .orElse(false);
+   }
+
+   /**
+    * Containers of an ensemble are not kept running, so only a Microcks container without them can be reused in tests.
+    * Nor can a container with host access: it reaches the host through the Testcontainers port forwarding container,
+    * that goes away with the JVM that started it.
+    */
+   static boolean reusableInTests(MicrocksDevServicesConfig config, ScanResultsBuildItem scanResults, LaunchMode launchMode) {
+      return launchMode == LaunchMode.TEST && config.reuseInTests() && !config.hostAccess() && !postmanIsNeeded(config, scanResults)
+            && !config.ensemble().asyncEnabled() && !anAsyncAPISpecIsPresent(config, scanResults);
+   }
+
+   /**
+    * A reusable container is only reused by the test JVM holding its lease: others start a fresh one, not kept running.
+    */
+   private static boolean reusedInTests(String serviceName, MicrocksDevServicesConfig config, ScanResultsBuildItem scanResults,
+                                        LaunchMode launchMode) {
+      return reusableInTests(config, scanResults, launchMode)
+            && ReusedTestContainer.acquireLease(ReusedTestContainer.labelValue(serviceName, config));
+   }
+
+   private static boolean postmanIsNeeded(MicrocksDevServicesConfig config, ScanResultsBuildItem scanResults) {
+      return config.ensemble().postmanEnabled() || scanResults.aPostmanCollectionIsPresent();
+   }
+
+   private static ScanResultsBuildItem scanResultsOf(String serviceName, List<ScanResultsBuildItem> allScanResults) {
+      return allScanResults.stream().filter(results -> serviceName.equals(results.serviceName()))
+            .findFirst().orElseGet(() -> new ScanResultsBuildItem(serviceName));
+   }
+
    private static boolean kafkaBrokerIsPresent(Capabilities capabilities) {
 
       // Now we need to figure out if there is a kafka broker, either configured by a user or instantiated as a dev service
@@ -322,17 +568,20 @@ public class DevServicesMicrocksProcessor {
    }
 
    @BuildStep
-   public DevServicesResultBuildItem completePostmanMicrocksEnsemble(MicrocksBuildTimeConfig microcksBuildTimeConfig, List<MicrocksContainersEnsembleHostsBuildItem> ensembleHostses, ScanResultsBuildItem scanResults) {
+   public void completePostmanMicrocksEnsemble(MicrocksBuildTimeConfig microcksBuildTimeConfig, List<MicrocksContainersEnsembleHostsBuildItem> ensembleHostses,
+                                               List<ScanResultsBuildItem> allScanResults, BuildProducer<DevServicesResultBuildItem> producer) {
 
       log.info("================================");
       log.info("Completing Postman part of Microcks DevServices Ensemble if required...");
 
+      Map<String, MicrocksDevServicesConfig> devServicesConfigs = devServicesConfigs(microcksBuildTimeConfig);
       for (MicrocksContainersEnsembleHostsBuildItem ensembleHosts : ensembleHostses) {
 
-         // Get the ensemble configuration.
-         MicrocksDevServicesConfig.EnsembleConfiguration ensembleConfiguration = microcksBuildTimeConfig.defaultDevService().devservices().ensemble();
+         // Get the ensemble configuration of the service this ensemble is for.
+         MicrocksDevServicesConfig config = devServicesConfigs.get(ensembleHosts.getServiceName());
+         MicrocksDevServicesConfig.EnsembleConfiguration ensembleConfiguration = config.ensemble();
 
-         if (ensembleConfiguration.postmanEnabled() || scanResults.aPostmanCollectionIsPresent()) {
+         if (postmanIsNeeded(config, scanResultsOf(ensembleHosts.getServiceName(), allScanResults))) {
             log.debugf("Starting a GenericContainer with Postman image '%s'", ensembleConfiguration.postmanImageName());
 
             // Force compatibility of configured image.
@@ -347,20 +596,32 @@ public class DevServicesMicrocksProcessor {
                   .waitingFor(Wait.forLogMessage(".*postman-runtime wrapper listening on port.*", 1));
 
 
-            MicrocksDevServicesConfig config = microcksBuildTimeConfig.defaultDevService().devservices();
-
-            Supplier<? extends Startable> microcksSupplier = () -> new GenericContainerStartable(postmanContainer);
-            return DevServicesResultBuildItem.owned()
+            Supplier<? extends Startable> microcksSupplier;
+            OnDemandContainerProxy postmanProxy = ensembleHosts.getPostmanProxy();
+            if (postmanProxy != null) {
+               // Only start Postman runtime when Microcks first calls it through the proxy.
+               postmanContainer.withExposedPorts(POSTMAN_RUNTIME_PORT);
+               ensembleHosts.getStartup().register("postman", postmanContainer, false);
+               postmanProxy.target(() -> {
+                  ensembleHosts.getStartup().start("postman");
+                  return HTTP_SCHEME + postmanContainer.getHost() + ":" + postmanContainer.getMappedPort(POSTMAN_RUNTIME_PORT);
+               });
+               microcksSupplier = () -> new OnDemandContainerStartable(postmanContainer, postmanProxy);
+            } else {
+               // Postman runtime does not depend on anything: start it together with the Microcks container.
+               ensembleHosts.getStartup().register("postman", postmanContainer, true);
+               microcksSupplier = () -> new GenericContainerStartable(postmanContainer, -1, ensembleHosts.getStartup(), "postman");
+            }
+            producer.produce(DevServicesResultBuildItem.owned()
                   .name(MicrocksQuarkusProcessor.FEATURE)
-                  .serviceName(MicrocksQuarkusProcessor.FEATURE + "-" + config.serviceName() + "-postman")
+                  .serviceName(MicrocksQuarkusProcessor.FEATURE + "-" + ensembleHosts.getServiceName() + "-postman")
                   .serviceConfig(config) // the lifecycle of the postman container should be the same as of the microcks container
                   .startable(microcksSupplier)
-                  .build();
+                  .build());
          }
 
       }
       log.info("================================");
-      return null;
    }
 
 
@@ -371,14 +632,23 @@ public class DevServicesMicrocksProcessor {
    public CardPageBuildItem pages(List<MicrocksContainerBuildItem> containers, MicrocksBuildTimeConfig config) {
       CardPageBuildItem cardPageBuildItem = new CardPageBuildItem();
 
-      for (MicrocksContainerBuildItem container : containers) {
+      if (!containers.isEmpty()) {
+         // Default link goes to the first service, that is the default one if it's enabled.
          cardPageBuildItem.addPage(Page.externalPageBuilder("Microcks UI")
                .dynamicUrlJsonRPCMethodName("getConsoleDefaultLink")
                .doNotEmbed()
                .isHtmlContent()
-               .staticLabel(container.label())
+               .staticLabel(containers.get(0).label())
                .icon("font-awesome-solid:plug-circle-bolt"));
       }
+      if (containers.size() > 1) {
+         // Links to every service are only known once containers are started.
+         cardPageBuildItem.addPage(Page.webComponentPageBuilder()
+               .title("Microcks services")
+               .componentLink("qwc-microcks-services.js")
+               .staticLabel(String.valueOf(containers.size()))
+               .icon("font-awesome-solid:layer-group"));
+      }
 
       return cardPageBuildItem;
    }
@@ -389,11 +659,24 @@ public class DevServicesMicrocksProcessor {
       return new JsonRPCProvidersBuildItem(MicrocksJsonRPCService.class, BuiltinScope.SINGLETON.getName());
    }
 
-   private MicrocksContainerStartable createMicrocksContainer(MicrocksDevServicesConfig config, LaunchMode launchMode, BuildProducer<MicrocksContainersEnsembleHostsBuildItem> ensembleConfigBuildItemProducer) {
-      DockerImageName dockerImageName = DockerImageName.parse(config.imageName())
+   private MicrocksContainerStartable createMicrocksContainer(String serviceName, MicrocksDevServicesConfig config, ScanResultsBuildItem scanResults,
+                                                             StartupStages stages, LaunchMode launchMode, BuildProducer<MicrocksContainersEnsembleHostsBuildItem> ensembleConfigBuildItemProducer) {
+      // The key of local artifacts is computed once, for both the import snapshot and the seeded image.
+      String snapshotKey = config.importSnapshots() || config.seededImages().enabled() ? snapshotKeyOf(config, scanResults) : null;
+      // Start from an image pre-seeded with the same artifacts if there's one, otherwise seed it once imports are done.
+      SeededImage seededImage = config.seededImages().enabled() && snapshotKey != null
+            ? new SeededImage(config.imageName(), snapshotKey, config.seededImages().maxImages()) : null;
+      boolean fromSeededImage = seededImage != null && seededImage.exists();
+      if (fromSeededImage) {
+         log.infof("Starting Microcks from seeded image '%s'", seededImage.name());
+      }
+      DockerImageName dockerImageName = DockerImageName.parse(fromSeededImage ? seededImage.name() : config.imageName())
             .asCompatibleSubstituteFor(MicrocksDevServicesConfig.MICROCKS_UBER_LATEST);
 
       MicrocksContainer microcksContainer = new MicrocksContainer(dockerImageName);
+      if (seededImage != null) {
+         seededImage.container(microcksContainer, fromSeededImage);
+      }
       microcksContainer.withAccessToHost(config.hostAccess());
       //microcksContainer.withDebugLogLevel();
 
@@ -409,26 +692,51 @@ public class DevServicesMicrocksProcessor {
 
       // Finalize label and shared network.
       if (launchMode == DEVELOPMENT) {
-         microcksContainer.withLabel(DEV_SERVICE_LABEL, config.serviceName());
+         microcksContainer.withLabel(DEV_SERVICE_LABEL, serviceName);
+      }
+      boolean keptRunning = reusedInTests(serviceName, config, scanResults, launchMode);
+      if (keptRunning) {
+         ReusedTestContainer.keepRunning(microcksContainer, ReusedTestContainer.labelValue(serviceName, config));
       }
 
       // Always launch microcks in a shared network to be able to access possible ensemble containers.
-      String microcksHost = ConfigureUtil.configureSharedNetwork(microcksContainer, config.serviceName());
+      String microcksHost = ConfigureUtil.configureSharedNetwork(microcksContainer, serviceName);
 
       // Build and store configuration for possible other hosts of the ensemble.
       String postmanHost = String.format("%s-%s-%s-%s", MICROCKS,
-            config.serviceName(), "postman", Base58.randomString(5));
+            serviceName, "postman", Base58.randomString(5));
       String asyncMinionHost = String.format("%s-%s-%s-%s", MICROCKS,
-            config.serviceName(), "async-minion", Base58.randomString(5));
-      MicrocksContainersEnsembleHostsBuildItem ensembleHosts = new MicrocksContainersEnsembleHostsBuildItem(microcksHost, postmanHost, asyncMinionHost);
+            serviceName, "async-minion", Base58.randomString(5));
+      // When started on demand, Postman runtime is reached through a proxy on the host that starts it on first test.
+      OnDemandContainerProxy postmanProxy = null;
+      if (config.ensemble().onDemand() && postmanIsNeeded(config, scanResults)) {
+         if (config.hostAccess()) {
+            try {
+               postmanProxy = new OnDemandContainerProxy(postmanHost);
+               Testcontainers.exposeHostPorts(postmanProxy.port());
+            } catch (IOException ioe) {
+               log.warnf("Failed to create on-demand proxy for Postman runtime, it will be started with Microcks: %s", ioe.getMessage());
+            }
+         } else {
+            log.warn("Postman runtime can only be started on demand with host access, it will be started with Microcks");
+         }
+      }
+      String postmanRunnerUrl = postmanProxy != null ? HTTP_SCHEME + GenericContainer.INTERNAL_HOST_HOSTNAME + ":" + postmanProxy.port()
+            : HTTP_SCHEME + postmanHost + ":" + POSTMAN_RUNTIME_PORT;
+
+      ContainersEnsembleStartup startup = new ContainersEnsembleStartup(serviceName, stages);
+      MicrocksContainersEnsembleHostsBuildItem ensembleHosts = new MicrocksContainersEnsembleHostsBuildItem(serviceName, microcksHost,
+            postmanHost, asyncMinionHost, startup, postmanProxy);
 
       // Set the required environment variables for running as an Ensemble.
-      microcksContainer.withEnv("POSTMAN_RUNNER_URL", HTTP_SCHEME + postmanHost + ":3000")
+      microcksContainer.withEnv("POSTMAN_RUNNER_URL", postmanRunnerUrl)
             .withEnv("TEST_CALLBACK_URL", HTTP_SCHEME + microcksHost + ":" + MicrocksContainer.MICROCKS_HTTP_PORT)
             .withEnv("ASYNC_MINION_URL", HTTP_SCHEME + asyncMinionHost + ":" + MicrocksAsyncMinionContainer.MICROCKS_ASYNC_MINION_HTTP_PORT);
 
+      // Pull the image while other build steps are running and start with other independent members of the ensemble.
+      startup.register(MICROCKS, microcksContainer, true);
       ensembleConfigBuildItemProducer.produce(ensembleHosts);
-      return new MicrocksContainerStartable(microcksContainer);
+      return new MicrocksContainerStartable(serviceName, microcksContainer, startup, snapshotKey, seededImage, keptRunning);
    }
 
    /** Simple wrapper around MicrocksContainer. */
@@ -436,9 +744,28 @@ public class DevServicesMicrocksProcessor {
 
       private String loadedPrimaryArtifacts = "";
       private String loadedSecondaryArtifacts = "";
+      private String artifactDependencies = "";
+      private String artifactServices = "";
+      private final String serviceName;
+      private final String snapshotKey;
+      private final SeededImage seededImage;
+      private final boolean keptRunning;
+
+      MicrocksContainerStartable(String serviceName, MicrocksContainer container, ContainersEnsembleStartup startup,
+                                 String snapshotKey, SeededImage seededImage, boolean keptRunning) {
+         super(container, MicrocksContainer.MICROCKS_HTTP_PORT, startup, MICROCKS);
+         this.serviceName = serviceName;
+         this.snapshotKey = snapshotKey;
+         this.seededImage = seededImage;
+         this.keptRunning = keptRunning;
+      }
+
+      public String getSnapshotKey() {
+         return snapshotKey;
+      }
 
-      MicrocksContainerStartable(MicrocksContainer container) {
-         super(container, MicrocksContainer.MICROCKS_HTTP_PORT);
+      public SeededImage getSeededImage() {
+         return seededImage;
       }
 
       public void setLoadedPrimaryArtifacts(String loadedPrimaryArtifacts) {
@@ -455,9 +782,36 @@ public class DevServicesMicrocksProcessor {
          return loadedSecondaryArtifacts;
       }
 
+      public void setArtifactDependencies(String artifactDependencies) {
+         this.artifactDependencies = artifactDependencies;
+      }
+      public String getArtifactDependencies() {
+         return artifactDependencies;
+      }
+
+      public void setArtifactServices(String artifactServices) {
+         this.artifactServices = artifactServices;
+      }
+      public String getArtifactServices() {
+         return artifactServices;
+      }
+
       public Integer getGrpcPort() {
          return container.getMappedPort(MicrocksContainer.MICROCKS_GRPC_PORT);
       }
+
+      @Override
+      public void close() throws IOException {
+         stopWatchingArtifacts(serviceName);
+         // The seeded image is committed from this container.
+         if (seededImage != null) {
+            seededImage.awaitCommit();
+         }
+         // Next test runs reuse this container.
+         if (!keptRunning) {
+            super.close();
+         }
+      }
    }
 
    /** Simple wrapper around MicrocksAsyncMinionContainer. */
@@ -465,8 +819,8 @@ public class DevServicesMicrocksProcessor {
 
       private String kafkaBootstrapServersFromDevService = null;
 
-      MinionContainerStartable(MicrocksAsyncMinionContainer container, int portNumber) {
-         super(container, portNumber);
+      MinionContainerStartable(MicrocksAsyncMinionContainer container, int portNumber, ContainersEnsembleStartup startup) {
+         super(container, portNumber, startup, "async-minion");
       }
 
       public void setKafkaBootstrapServersFromDevService(String c) {
@@ -501,19 +855,31 @@ public class DevServicesMicrocksProcessor {
    static class GenericContainerStartable<T extends GenericContainer<T>> implements Startable {
       protected final GenericContainer<T> container;
       private final int portNumber;
+      private final ContainersEnsembleStartup startup;
+      private final String member;
 
       GenericContainerStartable(GenericContainer container) {
          this(container, -1);
       }
 
       GenericContainerStartable(GenericContainer container, int portNumber) {
+         this(container, portNumber, null, null);
+      }
+
+      GenericContainerStartable(GenericContainer container, int portNumber, ContainersEnsembleStartup startup, String member) {
          this.container = container;
          this.portNumber = portNumber;
+         this.startup = startup;
+         this.member = member;
       }
 
       @Override
       public void start() {
-         container.start();
+         if (startup != null) {
+            startup.start(member);
+         } else {
+            container.start();
+         }
       }
 
       @Override
@@ -536,7 +902,66 @@ public class DevServicesMicrocksProcessor {
       }
    }
 
-   private Map<String, Function<MicrocksContainerStartable, String>> getDevServiceExposedConfig(String serviceName) {
+   /** A startable for a container that is only started on first request to its proxy. */
+   static class OnDemandContainerStartable implements Startable {
+      private final GenericContainer<?> container;
+      private final OnDemandContainerProxy proxy;
+
+      OnDemandContainerStartable(GenericContainer<?> container, OnDemandContainerProxy proxy) {
+         this.container = container;
+         this.proxy = proxy;
+      }
+
+      @Override
+      public void start() {
+         // Nothing to do here: proxy is already listening and starts the container when needed.
+      }
+
+      @Override
+      public String getConnectionInfo() {
+         return HTTP_SCHEME + "localhost:" + proxy.port();
+      }
+
+      @Override
+      public String getContainerId() {
+         return container.getContainerId();
+      }
+
+      @Override
+      public void close() throws IOException {
+         proxy.close();
+         container.close();
+      }
+   }
+
+   /**
+    * Run the imports into a Microcks service, keeping its status file up to date so that application knows when they're done.
+    */
+   private static LoadedArtifacts importWithStatus(String serviceName, Path statusFile, StartupStages stages,
+                                                   Supplier<LoadedArtifacts> imports) {
+      try {
+         LoadedArtifacts loadedArtifacts = imports.get();
+         MicrocksImportStatus.write(statusFile, MicrocksImportStatus.READY, getLoadedArtifactsConfig(serviceName, loadedArtifacts));
+         return loadedArtifacts;
+      } catch (RuntimeException re) {
+         MicrocksImportStatus.write(statusFile, MicrocksImportStatus.FAILED, Map.of());
+         throw re;
+      } finally {
+         stages.completed(serviceName);
+      }
+   }
+
+   private static Map<String, String> getLoadedArtifactsConfig(String serviceName, LoadedArtifacts loadedArtifacts) {
+      String configPrefix = MicrocksProperties.getConfigPrefix(serviceName);
+      return Map.of(
+            configPrefix + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS, String.join(",", loadedArtifacts.primaryArtifacts),
+            configPrefix + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS, String.join(",", loadedArtifacts.secondaryArtifacts),
+            configPrefix + MicrocksProperties.ARTIFACT_DEPENDENCIES, ArtifactDependencies.encode(loadedArtifacts.artifactDependencies),
+            configPrefix + MicrocksProperties.ARTIFACT_SERVICES, loadedArtifacts.artifactServices.encode());
+   }
+
+   private Map<String, Function<MicrocksContainerStartable, String>> getDevServiceExposedConfig(String serviceName, String serviceNames,
+                                                                                               Path statusFile) {
       String configPrefix = MicrocksProperties.getConfigPrefix(serviceName);
 
       Map<String, Function<MicrocksContainerStartable, String>> configFunctions = new HashMap<>();
@@ -547,6 +972,10 @@ public class DevServicesMicrocksProcessor {
       configFunctions.put(configPrefix + MicrocksProperties.GRPC_PORT_SUFFIX, s -> s.getGrpcPort().toString());
       configFunctions.put(configPrefix + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS, MicrocksContainerStartable::getLoadedPrimaryArtifacts);
       configFunctions.put(configPrefix + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS, MicrocksContainerStartable::getLoadedSecondaryArtifacts);
+      configFunctions.put(configPrefix + MicrocksProperties.ARTIFACT_DEPENDENCIES, MicrocksContainerStartable::getArtifactDependencies);
+      configFunctions.put(configPrefix + MicrocksProperties.ARTIFACT_SERVICES, MicrocksContainerStartable::getArtifactServices);
+      configFunctions.put(configPrefix + MicrocksProperties.IMPORT_STATUS_FILE, s -> statusFile.toString());
+      configFunctions.put(MicrocksProperties.SERVICE_NAMES, s -> serviceNames);
 
       return configFunctions;
    }
@@ -580,51 +1009,105 @@ public class DevServicesMicrocksProcessor {
             configPrefix + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS, String.join(",", loadedArtifacts.secondaryArtifacts));
    }
 
+   /**
+    * Scan artifacts of every Dev Service, timing each scan as a startup stage completed at build time.
+    */
    @BuildStep
-   public ScanResultsBuildItem scanForArtifacts(MicrocksBuildTimeConfig microcksBuildTimeConfig, CurateOutcomeBuildItem outcomeBuildItem) {
-      MicrocksDevServicesConfig devServicesConfig = microcksBuildTimeConfig.defaultDevService().devservices();
-
+   public StartupStagesBuildItem scanForArtifacts(MicrocksBuildTimeConfig microcksBuildTimeConfig, CurateOutcomeBuildItem outcomeBuildItem,
+                                                  BuildProducer<ScanResultsBuildItem> producer) {
+      List<StartupStage> scanStages = new ArrayList<>();
+      for (Map.Entry<String, MicrocksDevServicesConfig> devService : devServicesConfigs(microcksBuildTimeConfig).entrySet()) {
+         long startEpochMillis = System.currentTimeMillis();
+         long start = System.nanoTime();
+         producer.produce(scanForArtifacts(devService.getKey(), devService.getValue(), outcomeBuildItem));
+         scanStages.add(new StartupStage(devService.getKey(), StartupStage.Stage.SCAN, null, startEpochMillis,
+               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+      }
+      return new StartupStagesBuildItem(scanStages);
+   }
 
+   private ScanResultsBuildItem scanForArtifacts(String serviceName, MicrocksDevServicesConfig devServicesConfig,
+                                                 CurateOutcomeBuildItem outcomeBuildItem) {
       // Then, load or scan the local artifacts if any.
-      if (devServicesConfig.artifacts().isPresent()) {
+      if (!devServicesConfig.enabled() || devServicesConfig.artifacts().isPresent()) {
          // No scan results, because config is present
          // Just return an empty one so that consuming build steps still run
-         return new ScanResultsBuildItem();
+         return new ScanResultsBuildItem(serviceName);
       } else {
          try {
-            ArtifactScanner scanner = new ArtifactScanner(outcomeBuildItem);
+            ArtifactScanner scanner = new ArtifactScanner(outcomeBuildItem, devServicesConfig.scan(), serviceName);
             return scanner.toBuildItem();
          } catch (Exception e) {
             log.error("Failed to load Artifacts in microcks", e);
-            return new ScanResultsBuildItem();
+            return ScanResultsBuildItem.failed(serviceName);
+         }
+      }
+   }
+
+   /**
+    * Get the configuration of every Dev Service by service name, the default one coming first. A named Dev Service
+    * uses its name as service name unless another one has been configured.
+    */
+   static Map<String, MicrocksDevServicesConfig> devServicesConfigs(MicrocksBuildTimeConfig microcksBuildTimeConfig) {
+      Map<String, MicrocksDevServicesConfig> devServicesConfigs = new LinkedHashMap<>();
+      MicrocksDevServicesConfig defaultConfig = microcksBuildTimeConfig.defaultDevService().devservices();
+      devServicesConfigs.put(defaultConfig.serviceName(), defaultConfig);
+
+      for (Map.Entry<String, MicrocksBuildTimeConfig.DevServiceConfiguration> namedDevService
+            : new TreeMap<>(microcksBuildTimeConfig.namedDevServices()).entrySet()) {
+         MicrocksDevServicesConfig config = namedDevService.getValue().devservices();
+         String serviceName = MicrocksProperties.DEFAULT_SERVICE_NAME.equals(config.serviceName()) ? namedDevService.getKey()
+               : config.serviceName();
+         if (devServicesConfigs.putIfAbsent(serviceName, config) != null) {
+            log.warnf("Ignoring Dev Service '%s' as another one already uses the '%s' service name", namedDevService.getKey(), serviceName);
          }
       }
+      return devServicesConfigs;
    }
 
-   private List<String> importSecrets(MicrocksDevServicesConfig devServicesConfig, String connectionInfo) {
-      List<String> loadedSecrets = new ArrayList<>();
+   /**
+    * Create the configured secrets concurrently within pipeline.
+    * @return The creation of each secret, by secret name. Remote artifacts using a secret are chained to its creation.
+    */
+   private Map<String, CompletableFuture<Void>> importSecrets(MicrocksDevServicesConfig devServicesConfig, String connectionInfo,
+                                                            ArtifactImportManifest manifest, ArtifactImportPipeline pipeline,
+                                                            Set<String> loadedSecrets) {
+      Map<String, CompletableFuture<Void>> secretCreations = new HashMap<>();
       log.infof("Importing secrets into Microcks running at '%s'", connectionInfo);
       if (devServicesConfig.secrets() != null && !devServicesConfig.secrets().isEmpty()) {
          Map<String, MicrocksDevServicesConfig.SecretConfiguration> secretConfigurations = devServicesConfig.secrets();
          for (Map.Entry<String, MicrocksDevServicesConfig.SecretConfiguration> secretConfiguration : secretConfigurations.entrySet()) {
-            MicrocksDevServicesConfig.SecretConfiguration secretValue = secretConfiguration.getValue();
-            Secret secret = new Secret.Builder().name(secretConfiguration.getKey())
-                  .description(secretValue.description().orElse(null))
-                  .username(secretValue.username().orElse(null))
-                  .password(getConfidentialValue(secretValue.password().orElse(null)))
-                  .token(getConfidentialValue(secretValue.token().orElse(null)))
-                  .tokenHeader(secretValue.tokenHeader().orElse(null))
-                  .build();
-
-            try {
-               MicrocksContainer.createSecret(connectionInfo, secret);
-               loadedSecrets.add(secretConfiguration.getKey());
-            } catch (Exception e) {
-               log.error("Failed to load Remote Artifacts in microcks", e);
-            }
+            Secret secret = toSecret(secretConfiguration.getKey(), secretConfiguration.getValue());
+            // Nothing derived from secret values is persisted, so secrets are always sent. An already created
+            // secret is updated in place, as Microcks rejects a duplicate name.
+            boolean update = manifest.isSecretCreated(secretConfiguration.getKey());
+
+            secretCreations.put(secretConfiguration.getKey(), pipeline.submit(() -> {
+               long start = System.nanoTime();
+               try {
+                  UploadResult result = update ? pipeline.uploader().updateSecret(connectionInfo, secret)
+                        : pipeline.uploader().createSecret(connectionInfo, secret);
+                  pipeline.metrics().recordImported(secretConfiguration.getKey(), ArtifactImportMetric.Kind.SECRET, start, result);
+                  loadedSecrets.add(secretConfiguration.getKey());
+                  manifest.recordSecretCreated(secretConfiguration.getKey());
+               } catch (Exception e) {
+                  pipeline.metrics().recordFailed(secretConfiguration.getKey(), ArtifactImportMetric.Kind.SECRET, start, e);
+                  log.errorf(e, "Failed to %s secret '%s' in Microcks", update ? "update" : "create", secretConfiguration.getKey());
+               }
+            }));
          }
       }
-      return loadedSecrets;
+      return secretCreations;
+   }
+
+   private Secret toSecret(String name, MicrocksDevServicesConfig.SecretConfiguration secretValue) {
+      return new Secret.Builder().name(name)
+            .description(secretValue.description().orElse(null))
+            .username(secretValue.username().orElse(null))
+            .password(getConfidentialValue(secretValue.password().orElse(null)))
+            .token(getConfidentialValue(secretValue.token().orElse(null)))
+            .tokenHeader(secretValue.tokenHeader().orElse(null))
+            .build();
    }
 
    private String getConfidentialValue(String value) {
@@ -637,128 +1120,386 @@ public class DevServicesMicrocksProcessor {
       return value;
    }
 
-   private void importArtifacts(ScanResultsBuildItem scanResults, List<String> availableSecrets, MicrocksDevServicesConfig devServicesConfig, MicrocksContainerStartable s) {
-      String connectionInfo = s.getConnectionInfo();
-
+   private LoadedArtifacts importArtifacts(ScanResultsBuildItem scanResults, MicrocksDevServicesConfig devServicesConfig,
+                                           String connectionInfo, ArtifactImportManifest manifest, ArtifactImportSnapshot snapshot,
+                                           String snapshotKey, SeededImage seededImage, StartupStages stages) {
+      long start = System.nanoTime();
       LoadedArtifacts loadedArtifacts = new LoadedArtifacts();
-      log.infof("Importing artifacts into Microcks running at '%s'", connectionInfo);
-
-      // First, load the remote artifacts if any.
-      if (devServicesConfig.remoteArtifacts().isPresent()) {
-         ArtifactsConfiguration remoteArtifactsConfig = devServicesConfig.remoteArtifacts().get();
-         loadRemoteArtifacts(remoteArtifactsConfig.primaries(), availableSecrets, true, connectionInfo);
-         if (remoteArtifactsConfig.secondaries().isPresent()) {
-            loadRemoteArtifacts(remoteArtifactsConfig.secondaries().get(), availableSecrets, false, connectionInfo);
+      ArtifactImportMetrics metrics = new ArtifactImportMetrics();
+      MicrocksArtifactUploader uploader = MicrocksArtifactUploader.getInstance(devServicesConfig.http2());
+
+      // A container started from a seeded image gets the services it has been seeded with restored at once.
+      if (seededImage != null && seededImage.isStartedFrom() && manifest.isEmpty()) {
+         long restoreStart = System.nanoTime();
+         if (seededImage.restore(uploader, connectionInfo, manifest)) {
+            stages.record(scanResults.serviceName(), StartupStage.Stage.RESTORE_SNAPSHOT, null, restoreStart);
          }
       }
-      // Then, load or scan the local artifacts if any.
-      if (devServicesConfig.artifacts().isPresent()) {
-         ArtifactsConfiguration artifactsConfig = devServicesConfig.artifacts().get();
-         try {
-            for (String primaryArtifact : artifactsConfig.primaries()) {
-               loadArtifact(connectionInfo, new File(primaryArtifact), true);
-               addToLoadedArtifacts(primaryArtifact, loadedArtifacts, true);
+
+      // A new container gets the snapshot of unchanged local artifacts restored at once. Restored artifacts
+      // are then recorded in manifest, so that the pipeline only imports what the snapshot lacks.
+      if (snapshot != null && snapshotKey != null && manifest.isEmpty()) {
+         long restoreStart = System.nanoTime();
+         if (snapshot.restore(uploader, connectionInfo, snapshotKey, manifest)) {
+            stages.record(scanResults.serviceName(), StartupStage.Stage.RESTORE_SNAPSHOT, null, restoreStart);
+         }
+      }
+
+      // Secrets, remote and local artifacts are imported concurrently but every primary
+      // artifact has to be in Microcks before secondary artifacts are imported.
+      boolean importsComplete = !scanResults.isFailed();
+      try (ArtifactImportPipeline pipeline = new ArtifactImportPipeline(devServicesConfig.importParallelism(), uploader, metrics)) {
+         Set<String> availableSecrets = ConcurrentHashMap.newKeySet();
+         Map<String, CompletableFuture<Void>> secretCreations = importSecrets(devServicesConfig, connectionInfo, manifest, pipeline, availableSecrets);
+         if (!secretCreations.isEmpty()) {
+            CompletableFuture.allOf(secretCreations.values().toArray(new CompletableFuture<?>[0])).whenComplete((result, failure) ->
+                  stages.record(scanResults.serviceName(), StartupStage.Stage.IMPORT_SECRETS, null, start));
+         }
+
+         log.infof("Importing artifacts into Microcks running at '%s'", connectionInfo);
+         // First, load the remote artifacts if any.
+         Optional<ArtifactsConfiguration> remoteArtifactsConfig = devServicesConfig.remoteArtifacts();
+         remoteArtifactsConfig.ifPresent(remoteArtifacts -> loadRemoteArtifacts(remoteArtifacts.primaries(), secretCreations,
+               availableSecrets, true, connectionInfo, manifest, pipeline));
+
+         // Then, load or scan the local artifacts if any.
+         if (devServicesConfig.artifacts().isPresent()) {
+            ArtifactsConfiguration artifactsConfig = devServicesConfig.artifacts().get();
+            try {
+               for (String primaryArtifact : artifactsConfig.primaries()) {
+                  Path artifactPath = Path.of(primaryArtifact).toAbsolutePath().normalize();
+                  manifest.markSeen(artifactPath.toString());
+                  pipeline.submit(() -> loadArtifact(pipeline, connectionInfo, artifactPath.toFile(), artifactPath.toString(), true,
+                        false, manifest, loadedArtifacts.artifactServices));
+                  loadedArtifacts.configuredPrimaryArtifacts.add(Path.of(primaryArtifact));
+               }
+               pipeline.awaitStage();
+               loadRemoteSecondaryArtifacts(remoteArtifactsConfig, secretCreations, availableSecrets, connectionInfo, manifest, pipeline);
+               if (artifactsConfig.secondaries().isPresent()) {
+                  // The primary artifacts configured secondaries apply to are unknown: any imported primary imports them again.
+                  boolean primaryImported = manifest.hasImportedPrimaries();
+                  for (String secondaryArtifact : artifactsConfig.secondaries().get()) {
+                     Path artifactPath = Path.of(secondaryArtifact).toAbsolutePath().normalize();
+                     manifest.markSeen(artifactPath.toString());
+                     pipeline.submit(() -> loadArtifact(pipeline, connectionInfo, artifactPath.toFile(), artifactPath.toString(), false,
+                           primaryImported, manifest, loadedArtifacts.artifactServices));
+                     loadedArtifacts.configuredSecondaryArtifacts.add(Path.of(secondaryArtifact));
+                  }
+               }
+            } catch (Exception e) {
+               log.error("Failed to load Artifacts in microcks", e);
+               importsComplete = false;
             }
-            if (artifactsConfig.secondaries().isPresent()) {
-               for (String secondaryArtifact : artifactsConfig.secondaries().get()) {
-                  loadArtifact(connectionInfo, new File(secondaryArtifact), false);
-                  addToLoadedArtifacts(secondaryArtifact, loadedArtifacts, false);
+         } else {
+            try {
+               loadedArtifacts.primaryArtifacts = loadPrimaryArtifacts(connectionInfo, scanResults, manifest, pipeline,
+                     loadedArtifacts.artifactServices);
+               loadPackagedArtifacts(scanResults.packagedPrimary(), connectionInfo, true, false, manifest, pipeline);
+               pipeline.awaitStage();
+               loadRemoteSecondaryArtifacts(remoteArtifactsConfig, secretCreations, availableSecrets, connectionInfo, manifest, pipeline);
+               // Continue with secondary artifacts only if we found something.
+               if (!loadedArtifacts.primaryArtifacts.isEmpty() || !scanResults.packagedPrimary().isEmpty()) {
+                  loadedArtifacts.secondaryArtifacts = loadSecondaryArtifacts(connectionInfo, scanResults, manifest, pipeline,
+                        loadedArtifacts.artifactServices);
+                  loadedArtifacts.artifactDependencies = scanResults.secondariesByPrimary();
+                  loadPackagedArtifacts(scanResults.packagedSecondary(), connectionInfo, false, manifest.hasImportedPrimaries(),
+                        manifest, pipeline);
                }
+            } catch (Exception e) {
+               log.error("Failed to load Artifacts in microcks", e);
+               importsComplete = false;
             }
-         } catch (Exception e) {
-            log.error("Failed to load Artifacts in microcks", e);
          }
+      }
+
+      // Artifacts that could not be scanned, read or imported may look gone: never delete services on an incomplete import.
+      if (importsComplete && !metrics.hasFailures()) {
+         deleteStaleServices(devServicesConfig, connectionInfo, manifest);
       } else {
+         log.debugf("Not deleting stale services from Microcks running at '%s' as imports are incomplete", connectionInfo);
+      }
+      // Only a complete import is worth a snapshot.
+      if (snapshot != null && snapshotKey != null && !metrics.hasFailures()) {
+         snapshot.save(uploader, connectionInfo, snapshotKey, manifest);
+      }
+      if (seededImage != null && !seededImage.isStartedFrom() && !metrics.hasFailures()) {
+         seededImage.commitAsync(uploader, connectionInfo, manifest);
+      }
+      long importEnd = System.nanoTime();
+      if (devServicesConfig.warmUp().enabled()) {
+         // Reuse the connections that have been kept alive by imports.
+         new MockWarmUp(uploader.client(), devServicesConfig.warmUp().iterations(), devServicesConfig.importParallelism())
+               .warmUp(connectionInfo, manifest.services(), metrics);
+         stages.record(scanResults.serviceName(), StartupStage.Stage.WARM_UP, null, importEnd);
+      }
+      if (!metrics.isEmpty()) {
+         log.infof("Imports into Microcks running at '%s', slowest first:%n%s", connectionInfo, metrics.summary());
+      }
+      stages.record(scanResults.serviceName(), StartupStage.Stage.IMPORT_ARTIFACTS, null, start, importEnd);
+      return loadedArtifacts;
+   }
+
+   /**
+    * Compute the key of local artifacts, shared by import snapshots and seeded images.
+    * @return The key, or null if some artifact cannot be read.
+    */
+   private String snapshotKeyOf(MicrocksDevServicesConfig devServicesConfig, ScanResultsBuildItem scanResults) {
+      try {
+         return ArtifactImportSnapshot.keyOf(devServicesConfig.imageName(), scanResults, devServicesConfig.artifacts());
+      } catch (IOException ioe) {
+         log.warnf("Failed to compute snapshot key, importing artifacts one by one: %s", ioe.getMessage());
+         return null;
+      }
+   }
+
+   /**
+    * A reused container may still hold the services of artifacts that have been deleted since the previous import:
+    * remove them so that they do not keep matching requests.
+    */
+   private void deleteStaleServices(MicrocksDevServicesConfig devServicesConfig, String connectionInfo, ArtifactImportManifest manifest) {
+      MicrocksArtifactUploader uploader = MicrocksArtifactUploader.getInstance(devServicesConfig.http2());
+      for (String serviceId : manifest.removeUnseenArtifacts()) {
          try {
-            loadedArtifacts.primaryArtifacts = loadPrimaryArtifacts(connectionInfo, scanResults);
-            // Continue with secondary artifacts only if we found something.
-            if (!loadedArtifacts.primaryArtifacts.isEmpty()) {
-               loadedArtifacts.secondaryArtifacts = loadSecondaryArtifacts(connectionInfo, scanResults);
+            if (uploader.deleteService(connectionInfo, serviceId)) {
+               log.infof("Deleted service '%s' as its artifact is gone", serviceId);
             }
-         } catch (Exception e) {
-            log.error("Failed to load Artifacts in microcks", e);
+         } catch (IOException ioe) {
+            log.errorf(ioe, "Failed to delete service '%s' from microcks", serviceId);
          }
       }
-
-      // Publish the loaded artifacts list so that Hot reload will be able to use it.
-      s.setLoadedPrimaryArtifacts(String.join(",", loadedArtifacts.primaryArtifacts));
-      s.setLoadedSecondaryArtifacts(String.join(",", loadedArtifacts.secondaryArtifacts));
    }
 
-   private void loadRemoteArtifacts(List<String> remoteArtifactsUrls, List<String> availableSecrets,
-                                    boolean primary, String connectionInfo) {
-      for (String remoteArtifactUrl : remoteArtifactsUrls) {
-         log.infof("Load '%s' as %s remote artifact", remoteArtifactUrl, primary ? "primary" : "secondary");
+   private void loadRemoteSecondaryArtifacts(Optional<ArtifactsConfiguration> remoteArtifactsConfig,
+                                             Map<String, CompletableFuture<Void>> secretCreations, Set<String> availableSecrets,
+                                             String connectionInfo, ArtifactImportManifest manifest, ArtifactImportPipeline pipeline) {
+      if (remoteArtifactsConfig.isPresent() && remoteArtifactsConfig.get().secondaries().isPresent()) {
+         loadRemoteArtifacts(remoteArtifactsConfig.get().secondaries().get(), secretCreations, availableSecrets, false,
+               connectionInfo, manifest, pipeline);
+      }
+   }
 
+   private void loadRemoteArtifacts(List<String> remoteArtifactsUrls, Map<String, CompletableFuture<Void>> secretCreations,
+                                    Set<String> availableSecrets, boolean primary, String connectionInfo,
+                                    ArtifactImportManifest manifest, ArtifactImportPipeline pipeline) {
+      // Nothing tells whether a remote artifact changed since the previous import: always have Microcks download it again.
+      for (String remoteArtifactEntry : remoteArtifactsUrls) {
+         String remoteArtifactUrl = remoteArtifactEntry;
          String secretName = null;
-         if (remoteArtifactUrl.contains("|")) {
-            String[] parts = remoteArtifactUrl.split("\\|", 2);
+         if (remoteArtifactEntry.contains("|")) {
+            String[] parts = remoteArtifactEntry.split("\\|", 2);
             remoteArtifactUrl = parts[0];
             secretName = parts[1];
-            if (!availableSecrets.contains(secretName)) {
-               log.warnf("Skipping remote artifact '%s' as its associated secret '%s' is not available", remoteArtifactUrl, secretName);
-               continue;
-            }
-            log.infof("Using secret '%s' for remote artifact '%s'", secretName, remoteArtifactUrl);
          }
 
-         try {
-            MicrocksContainer.downloadArtifact(connectionInfo, new RemoteArtifact(remoteArtifactUrl, secretName), primary);
-         } catch (Exception e) {
-            log.error("Failed to load Remote Artifacts in microcks", e);
+         String url = remoteArtifactUrl;
+         String secret = secretName;
+         Runnable download = () -> loadRemoteArtifact(pipeline, connectionInfo, remoteArtifactEntry, url, secret, availableSecrets, primary, manifest);
+         // Start downloading as soon as the secret it's using exists, without waiting for other secrets.
+         CompletableFuture<Void> secretCreation = secretName != null ? secretCreations.get(secretName) : null;
+         if (secretCreation != null) {
+            pipeline.submitAfter(secretCreation, download);
+         } else {
+            pipeline.submit(download);
          }
       }
    }
 
-   private void loadArtifact(String connectionInfo, File artifactFile, boolean primary) {
+   private void loadRemoteArtifact(ArtifactImportPipeline pipeline, String connectionInfo, String remoteArtifactEntry, String remoteArtifactUrl, String secretName,
+                                   Set<String> availableSecrets, boolean primary, ArtifactImportManifest manifest) {
+      long start = System.nanoTime();
+      ArtifactImportMetric.Kind kind = ArtifactImportMetric.Kind.of(primary, true);
+      log.infof("Load '%s' as %s remote artifact", remoteArtifactUrl, primary ? "primary" : "secondary");
+      if (secretName != null) {
+         if (!availableSecrets.contains(secretName)) {
+            log.warnf("Skipping remote artifact '%s' as its associated secret '%s' is not available", remoteArtifactUrl, secretName);
+            pipeline.metrics().recordSkipped(remoteArtifactUrl, kind, start);
+            return;
+         }
+         log.infof("Using secret '%s' for remote artifact '%s'", secretName, remoteArtifactUrl);
+      }
+
       try {
+         UploadResult result = pipeline.uploader().downloadArtifact(connectionInfo, remoteArtifactUrl, secretName, primary);
+         pipeline.metrics().recordImported(remoteArtifactUrl, kind, start, result);
+         manifest.recordRemoteArtifactImported(remoteArtifactEntry, primary);
+      } catch (Exception e) {
+         pipeline.metrics().recordFailed(remoteArtifactUrl, kind, start, e);
+         log.error("Failed to load Remote Artifacts in microcks", e);
+      }
+   }
+
+   private void loadArtifact(ArtifactImportPipeline pipeline, String connectionInfo, File artifactFile, String artifactPath, boolean primary,
+                             boolean primaryImported, ArtifactImportManifest manifest, ArtifactServices services) {
+      long start = System.nanoTime();
+      ArtifactImportMetric.Kind kind = ArtifactImportMetric.Kind.of(primary, false);
+      try {
+         String contentHash = ArtifactImportManifest.contentHashOf(artifactFile.toPath());
+         // An unchanged secondary is imported again if the service of its primary has been rebuilt.
+         if (manifest.isImported(artifactFile.getAbsolutePath(), contentHash, primary) && !primaryImported) {
+            log.infof("Skip '%s' as %s artifact is unchanged", artifactFile.getName(), primary ? "primary" : "secondary");
+            pipeline.metrics().recordSkipped(artifactFile.getName(), kind, start);
+            if (primary) {
+               services.put(artifactPath, manifest.serviceOf(artifactFile.getAbsolutePath()));
+            }
+            return;
+         }
          log.infof("Load '%s' as %s artifact", artifactFile.getName(), primary ? "primary" : "secondary");
-         MicrocksContainer.importArtifact(connectionInfo, artifactFile, primary);
+         UploadResult result = pipeline.uploader().importArtifact(connectionInfo, artifactFile.toPath(), primary);
+         pipeline.metrics().recordImported(artifactFile.getName(), kind, start, result);
+         manifest.recordImported(artifactFile.getAbsolutePath(), contentHash, primary);
+         if (primary) {
+            // Keep track of the imported service so that it can be deleted with its artifact.
+            services.put(artifactPath, ArtifactServices.serviceOf(result));
+            manifest.recordService(artifactFile.getAbsolutePath(), ArtifactServices.serviceOf(result));
+         }
       } catch (Exception e) {
-         log.errorf("Failed to import %s artifact '%s' in microcks", primary ? "primary" : "secondary", artifactFile.getName(), e);
+         pipeline.metrics().recordFailed(artifactFile.getName(), kind, start, e);
+         log.errorf(e, "Failed to import %s artifact '%s' in microcks", primary ? "primary" : "secondary", artifactFile.getName());
       }
    }
 
-   private void addToLoadedArtifacts(String artifact, LoadedArtifacts loadedArtifacts, boolean primary) {
-      String targetName = artifact;
-      if (artifact.contains("target/classes/")) {
-         targetName = artifact.substring(artifact.indexOf("target/classes/") + "target/classes/".length() + 1);
-      } else if (artifact.contains("target/test-classes")) {
-         targetName = artifact.substring(artifact.indexOf("target/test-classes/") + "target/test-classes/".length() + 1);
+   /**
+    * Remote artifacts are only downloaded at startup. Poll them in dev mode if enabled, so that Microcks downloads
+    * them again when they changed upstream.
+    */
+   private void pollRemoteArtifacts(String serviceName, MicrocksDevServicesConfig devServicesConfig, String connectionInfo,
+                                    LaunchModeBuildItem launchMode) {
+      MicrocksDevServicesConfig.RemotePollingConfiguration pollingConfig = devServicesConfig.remotePolling();
+      if (launchMode.getLaunchMode() != LaunchMode.DEVELOPMENT || !pollingConfig.enabled()
+            || devServicesConfig.remoteArtifacts().isEmpty()) {
+         return;
+      }
+      ArtifactsConfiguration remoteArtifacts = devServicesConfig.remoteArtifacts().get();
+      Map<String, Secret> secrets = new HashMap<>();
+      if (devServicesConfig.secrets() != null) {
+         devServicesConfig.secrets().forEach((name, secretValue) -> secrets.put(name, toSecret(name, secretValue)));
       }
+      RemoteArtifactsPoller.start(serviceName, connectionInfo,
+            MicrocksArtifactUploader.getInstance(devServicesConfig.http2()),
+            remoteArtifacts.primaries(), remoteArtifacts.secondaries().orElse(List.of()), secrets,
+            pollingConfig.interval(), pollingConfig.jitter());
+   }
 
-      if (primary) {
-         loadedArtifacts.primaryArtifacts.add(targetName);
-      } else {
-         loadedArtifacts.secondaryArtifacts.add(targetName);
+   /**
+    * Stop watching the local and remote artifacts of a Dev Service that is closed, as its Microcks container may be gone.
+    */
+   private static void stopWatchingArtifacts(String serviceName) {
+      ConfiguredArtifactsWatcher.stop(serviceName);
+      RemoteArtifactsPoller.stop(serviceName);
+   }
+
+   /**
+    * Explicitly configured artifacts may not be application resources, so Quarkus does not report their changes.
+    * Watch them directly in dev mode so that they're hot reloaded too.
+    */
+   private void watchConfiguredArtifacts(String serviceName, MicrocksDevServicesConfig devServicesConfig, String connectionInfo,
+                                         LoadedArtifacts loadedArtifacts, LaunchModeBuildItem launchMode) {
+      if (launchMode.getLaunchMode() != LaunchMode.DEVELOPMENT || devServicesConfig.artifacts().isEmpty()) {
+         return;
       }
+      ConfiguredArtifactsWatcher.start(serviceName, connectionInfo,
+            MicrocksArtifactUploader.getInstance(devServicesConfig.http2()),
+            loadedArtifacts.configuredPrimaryArtifacts, loadedArtifacts.configuredSecondaryArtifacts,
+            loadedArtifacts.artifactServices, devServicesConfig.hotReloadDebounce());
    }
 
-   private List<String> loadPrimaryArtifacts(String connectionInfo, ScanResultsBuildItem scanResultsBuildItem) throws IOException {
-      return loadArtifacts(scanResultsBuildItem.primary(), connectionInfo, true);
+   private List<String> loadPrimaryArtifacts(String connectionInfo, ScanResultsBuildItem scanResultsBuildItem, ArtifactImportManifest manifest,
+                                             ArtifactImportPipeline pipeline, ArtifactServices services) throws IOException {
+      return loadArtifacts(scanResultsBuildItem.primary(), connectionInfo, true, artifactPath -> false, manifest, pipeline, services);
    }
 
-   private List<String> loadSecondaryArtifacts(String connectionInfo, ScanResultsBuildItem scanResultsBuildItem) throws IOException {
-      return loadArtifacts(scanResultsBuildItem.secondary(), connectionInfo, false);
+   private List<String> loadSecondaryArtifacts(String connectionInfo, ScanResultsBuildItem scanResultsBuildItem, ArtifactImportManifest manifest,
+                                               ArtifactImportPipeline pipeline, ArtifactServices services) throws IOException {
+      // Scanned secondaries only apply to the primary artifacts with the same base name, if any.
+      Map<String, File> primaryFiles = new HashMap<>();
+      scanResultsBuildItem.primary().forEach((file, relativePath) -> primaryFiles.put(relativePath, file));
+      Map<String, List<String>> primariesBySecondary = new HashMap<>();
+      scanResultsBuildItem.secondariesByPrimary().forEach((primary, secondaries) -> secondaries.forEach(secondary ->
+            primariesBySecondary.computeIfAbsent(secondary, key -> new ArrayList<>()).add(primary)));
+      return loadArtifacts(scanResultsBuildItem.secondary(), connectionInfo, false, artifactPath -> {
+         List<String> primaries = primariesBySecondary.get(artifactPath);
+         if (primaries == null) {
+            return manifest.hasImportedPrimaries();
+         }
+         return primaries.stream().map(primaryFiles::get)
+               .anyMatch(primaryFile -> primaryFile != null && manifest.isPrimaryImported(primaryFile.getAbsolutePath()));
+      }, manifest, pipeline, services);
    }
 
-   private List<String> loadArtifacts(Map<File, String> filesAndRelativePath, String connectionInfo, boolean primary) throws IOException {
+   private List<String> loadArtifacts(Map<File, String> filesAndRelativePath, String connectionInfo, boolean primary,
+                                      Predicate<String> primaryImported, ArtifactImportManifest manifest, ArtifactImportPipeline pipeline,
+                                      ArtifactServices services) throws IOException {
       List<String> loadedArtifacts = new ArrayList<>();
 
       for (Map.Entry<File, String> entry : filesAndRelativePath.entrySet()) {
          // Record loaded even if import will fail. That way, it will be
          // reloaded by the Hot replacement when fixed.
          loadedArtifacts.add(entry.getValue());
-         loadArtifact(connectionInfo, entry.getKey(), primary);
+         manifest.markSeen(entry.getKey().getAbsolutePath());
+         boolean reimport = primaryImported.test(entry.getValue());
+         pipeline.submit(() -> loadArtifact(pipeline, connectionInfo, entry.getKey(), entry.getValue(), primary, reimport, manifest, services));
       }
       return loadedArtifacts;
    }
 
+   private void loadPackagedArtifacts(List<PackagedArtifact> packagedArtifacts, String connectionInfo, boolean primary,
+                                      boolean primaryImported, ArtifactImportManifest manifest, ArtifactImportPipeline pipeline) {
+      // Group artifacts by archive so that each archive is opened only once.
+      Map<Path, List<PackagedArtifact>> artifactsByArchive = packagedArtifacts.stream()
+            .collect(Collectors.groupingBy(PackagedArtifact::archive));
+
+      for (Map.Entry<Path, List<PackagedArtifact>> archiveArtifacts : artifactsByArchive.entrySet()) {
+         archiveArtifacts.getValue().forEach(artifact -> manifest.markSeen(artifact.key()));
+         pipeline.submit(() -> {
+            try (FileSystem archiveFs = FileSystems.newFileSystem(archiveArtifacts.getKey(), (ClassLoader) null)) {
+               for (PackagedArtifact artifact : archiveArtifacts.getValue()) {
+                  loadPackagedArtifact(pipeline, connectionInfo, archiveFs, artifact, primary, primaryImported, manifest);
+               }
+            } catch (IOException ioe) {
+               log.errorf(ioe, "Failed to open archive '%s' for importing artifacts in microcks", archiveArtifacts.getKey());
+            }
+         });
+      }
+   }
+
+   private void loadPackagedArtifact(ArtifactImportPipeline pipeline, String connectionInfo, FileSystem archiveFs, PackagedArtifact artifact, boolean primary,
+                                     boolean primaryImported, ArtifactImportManifest manifest) {
+      long start = System.nanoTime();
+      ArtifactImportMetric.Kind kind = ArtifactImportMetric.Kind.of(primary, false);
+      try {
+         Path entry = archiveFs.getPath(artifact.entryName());
+         String contentHash = ArtifactImportManifest.sha256(entry);
+         if (manifest.isImported(artifact.key(), contentHash, primary) && !primaryImported) {
+            log.infof("Skip '%s' from '%s' as %s artifact is unchanged", artifact.fileName(), artifact.dependency(), primary ? "primary" : "secondary");
+            pipeline.metrics().recordSkipped(artifact.fileName(), kind, start);
+            return;
+         }
+         log.infof("Load '%s' from '%s' as %s artifact", artifact.fileName(), artifact.dependency(), primary ? "primary" : "secondary");
+         // Stream the entry straight from the archive into the upload.
+         try (InputStream content = Files.newInputStream(entry)) {
+            UploadResult result = pipeline.uploader().importArtifact(connectionInfo, artifact.fileName(), content, primary);
+            pipeline.metrics().recordImported(artifact.fileName(), kind, start, result);
+            if (primary) {
+               manifest.recordService(artifact.key(), ArtifactServices.serviceOf(result));
+            }
+         }
+         manifest.recordImported(artifact.key(), contentHash, primary);
+      } catch (Exception e) {
+         pipeline.metrics().recordFailed(artifact.fileName(), kind, start, e);
+         log.errorf(e, "Failed to import %s artifact '%s' from '%s' in microcks", primary ? "primary" : "secondary",
+               artifact.entryName(), artifact.dependency());
+      }
+   }
+
    /**
     * A simple class to keep track of loaded artifacts.
     */
    static class LoadedArtifacts {
       List<String> primaryArtifacts = new ArrayList<>();
       List<String> secondaryArtifacts = new ArrayList<>();
+      Map<String, List<String>> artifactDependencies = new HashMap<>();
+      ArtifactServices artifactServices = new ArtifactServices();
+      List<Path> configuredPrimaryArtifacts = new ArrayList<>();
+      List<Path> configuredSecondaryArtifacts = new ArrayList<>();
    }
 }
@@ -15,12 +15,17 @@
  */
 package io.github.microcks.quarkus.deployment;
 
+import io.quarkus.runtime.annotations.ConfigDocMapKey;
+import io.quarkus.runtime.annotations.ConfigDocSection;
 import io.quarkus.runtime.annotations.ConfigGroup;
 import io.quarkus.runtime.annotations.ConfigPhase;
 import io.quarkus.runtime.annotations.ConfigRoot;
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithName;
 import io.smallrye.config.WithParentName;
 
+import java.util.Map;
+
 /**
  * Configuration description for the Microcks Quarkus extension.
  * @author laurent
@@ -35,6 +40,18 @@ public interface MicrocksBuildTimeConfig {
    @WithParentName
    DevServiceConfiguration defaultDevService();
 
+   /**
+    * Additional named Dev services configuration. Each one starts its own Microcks container with its own
+    * artifacts, image and ensemble. The name of the Dev service is also its service name.
+    * <p>
+    * They live under their own {@code services} segment, as {@code quarkus.microcks.<service-name>.*} holds the
+    * runtime properties published for each Microcks container.
+    */
+   @ConfigDocSection
+   @ConfigDocMapKey("dev-service-name")
+   @WithName("services")
+   Map<String, DevServiceConfiguration> namedDevServices();
+
    @ConfigGroup
    public interface DevServiceConfiguration {
       /**
@@ -18,25 +18,41 @@ package io.github.microcks.quarkus.deployment;
 import io.quarkus.builder.item.MultiBuildItem;
 
 /**
- * A simple bean for holding immutable configuration of Microcks ensemble components hosts.
+ * A bean holding the host names of Microcks ensemble components, along with the runtime objects the containers of an
+ * ensemble share: the coordinator of their startup and the on-demand proxy of the Postman runtime. Those are stateful,
+ * so this item only hands them over from the step creating the Microcks container to the steps creating the others.
  * @author laurent
  */
 public final class MicrocksContainersEnsembleHostsBuildItem extends MultiBuildItem {
 
+   private final String serviceName;
    private final String microcksHost;
    private final String postmanHost;
    private final String asyncMinionHost;
+   private final ContainersEnsembleStartup startup;
+   private final OnDemandContainerProxy postmanProxy;
 
    /**
     * Store the host names of the Ensemble components.
+    * @param serviceName The name of the Microcks service this ensemble is for.
     * @param microcksHost The hostname of the microcks container.
     * @param postmanHost The hostname of the postman-runtime container.
     * @param asyncMinionHost The hostname of the async-minion container.
+    * @param startup The startup coordinator of the ensemble containers.
+    * @param postmanProxy The proxy Microcks calls the postman-runtime through when it's started on demand, or null.
     */
-   public MicrocksContainersEnsembleHostsBuildItem(String microcksHost, String postmanHost, String asyncMinionHost) {
+   MicrocksContainersEnsembleHostsBuildItem(String serviceName, String microcksHost, String postmanHost, String asyncMinionHost,
+                                            ContainersEnsembleStartup startup, OnDemandContainerProxy postmanProxy) {
+       this.serviceName = serviceName;
        this.microcksHost = microcksHost;
        this.postmanHost = postmanHost;
        this.asyncMinionHost = asyncMinionHost;
+       this.startup = startup;
+       this.postmanProxy = postmanProxy;
+   }
+
+   public String getServiceName() {
+      return serviceName;
    }
 
    public String getMicrocksHost() {
@@ -50,4 +66,12 @@ public final class MicrocksContainersEnsembleHostsBuildItem extends MultiBuildIt
    public String getAsyncMinionHost() {
       return asyncMinionHost;
    }
+
+   ContainersEnsembleStartup getStartup() {
+      return startup;
+   }
+
+   OnDemandContainerProxy getPostmanProxy() {
+      return postmanProxy;
+   }
 }
@@ -15,9 +15,12 @@
  */
 package io.github.microcks.quarkus.deployment;
 
+import io.github.microcks.quarkus.runtime.MicrocksProperties;
+
 import io.quarkus.runtime.annotations.ConfigGroup;
 import io.smallrye.config.WithDefault;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -74,6 +77,19 @@ public interface MicrocksDevServicesConfig {
    @WithDefault("true")
    boolean shared();
 
+   /**
+    * Whether the Microcks container started in test mode should be kept running and reused by the next test runs,
+    * like the ones of other modules using the same configuration. A reused container is restarted to reset its
+    * invocation counters, test results and mocks state, and only the artifacts whose content changed are imported again.
+    * <p>
+    * The discovery uses the {@code quarkus-dev-service-microcks-test} label. Containers are only kept running if
+    * {@code testcontainers.reuse.enable=true} is set in {@code ~/.testcontainers.properties}, and never when Postman
+    * or Async minion containers are part of the ensemble or with host access, as the port forwarding container it relies
+    * on is stopped with the test JVM. Test runs should not use the same container concurrently.
+    */
+   @WithDefault("false")
+   boolean reuseInTests();
+
    /**
     * The value of the {@code quarkus-dev-service-microcks} label attached to the started container.
     * This property is used when {@code shared} is set to {@code true}.
@@ -82,9 +98,10 @@ public interface MicrocksDevServicesConfig {
     * set to the configured value. If found, it will use this container instead of starting a new one. Otherwise, it
     * starts a new container with the {@code quarkus-dev-service-microcks} label set to the specified value.
     * <p>
-    * This property is used when you need multiple shared Microcks servers.
+    * This property is used when you need multiple shared Microcks servers. For named Dev services, it defaults
+    * to the name of the Dev service.
     */
-   @WithDefault("default")
+   @WithDefault(MicrocksProperties.DEFAULT_SERVICE_NAME)
    String serviceName();
 
    /**
@@ -97,11 +114,70 @@ public interface MicrocksDevServicesConfig {
     */
    Optional<ArtifactsConfiguration> artifacts();
 
+   /**
+    * The configuration of artifacts discovery in resources directories, when no artifacts are explicitly configured.
+    */
+   ScanConfiguration scan();
+
+   /**
+    * The maximum number of artifacts imported, remote artifacts downloaded or secrets created concurrently
+    * into Microcks container. Primary artifacts are always all imported before secondary ones.
+    */
+   @WithDefault("4")
+   int importParallelism();
+
+   /**
+    * Whether HTTP/2 should be negotiated with Microcks container when importing artifacts and secrets.
+    * Connections are kept alive and reused anyway; HTTP/2 also multiplexes concurrent imports on a single one.
+    * Falls back to HTTP/1.1 if the container does not support it.
+    */
+   @WithDefault("false")
+   boolean http2();
+
+   /**
+    * Whether a snapshot of Microcks repository should be exported after local artifacts have been imported, and
+    * restored in a single call into the next new containers. Snapshots are stored in the build output directory and
+    * are only restored if the image and the content of every local artifact are still the same.
+    */
+   @WithDefault("false")
+   boolean importSnapshots();
+
+   /**
+    * The configuration of the warm-up of mocks once artifacts have been imported.
+    */
+   WarmUpConfiguration warmUp();
+
+   /**
+    * Whether artifacts and secrets should be imported in the background. Container address is then published right
+    * away so that the application starts while imports are running. Inject the {@code MicrocksImports} bean or observe
+    * {@code MicrocksImportsReadyEvent} to know when they are done; a readiness health check is also registered when
+    * SmallRye Health is present.
+    */
+   @WithDefault("false")
+   boolean asyncImports();
+
+   /**
+    * The configuration of Microcks images pre-seeded with local artifacts.
+    */
+   SeededImagesConfiguration seededImages();
+
+   /**
+    * The delay without further changes to wait for before reloading changed artifacts in dev mode.
+    * Files saved together are reloaded in a single batch, in the background.
+    */
+   @WithDefault("300ms")
+   Duration hotReloadDebounce();
+
    /**
     * The remote Artifacts to load within Microcks container.
     */
    Optional<ArtifactsConfiguration> remoteArtifacts();
 
+   /**
+    * The configuration of remote artifacts polling in dev mode.
+    */
+   RemotePollingConfiguration remotePolling();
+
    /**
     * The secrets to load within Microcks container.
     */
@@ -128,6 +204,104 @@ public interface MicrocksDevServicesConfig {
       Optional<List<String>> secondaries();
    }
 
+   /**
+    * Configuration for the discovery of artifacts in resources directories.
+    */
+   @ConfigGroup
+   public interface ScanConfiguration {
+      /**
+       * Glob patterns of the files to consider as artifacts, relative to a resources directory
+       * (eg. {@code contracts/**}). When not set, every file with a known artifact suffix is considered.
+       */
+      Optional<List<String>> includes();
+
+      /**
+       * Glob patterns of the files or directories to ignore, relative to a resources directory
+       * (eg. {@code generated}). Excluded directories are not walked at all.
+       */
+      Optional<List<String>> excludes();
+
+      /**
+       * The maximum depth of directories to walk within a resources directory. Artifacts directly
+       * in a resources directory are at depth 1.
+       */
+      @WithDefault("2")
+      int maxDepth();
+
+      /**
+       * Dependencies to scan for packaged artifacts, as {@code groupId:artifactId} coordinates. Their archives
+       * are read in place and matching entries are streamed to Microcks without being extracted.
+       */
+      Optional<List<String>> dependencies();
+   }
+
+   /**
+    * Configuration for Microcks images pre-seeded with local artifacts.
+    */
+   @ConfigGroup
+   public interface SeededImagesConfiguration {
+      /**
+       * Whether a Microcks image should be committed into the local Docker daemon once local artifacts have been
+       * imported, so that next containers start from it when the image and the content of every local artifact are
+       * still the same. No registry is involved.
+       */
+      @WithDefault("false")
+      boolean enabled();
+
+      /**
+       * The maximum number of seeded images kept in the local Docker daemon. The least recently used ones are removed
+       * first.
+       */
+      @WithDefault("5")
+      int maxImages();
+   }
+
+   /**
+    * Configuration for the warm-up of mocks.
+    */
+   @ConfigGroup
+   public interface WarmUpConfiguration {
+      /**
+       * Whether the REST mocks of the services imported from local artifacts should be called once imports are done, so
+       * that the first calls made by tests do not pay for the warm-up of Microcks. The request of every example of each
+       * {@code GET} or {@code HEAD} operation is replayed, operations being warmed up concurrently. Warmed-up services
+       * start with non-zero invocation counts.
+       */
+      @WithDefault("false")
+      boolean enabled();
+
+      /**
+       * The number of times the request of each example is replayed.
+       */
+      @WithDefault("3")
+      int iterations();
+   }
+
+   /**
+    * Configuration for polling remote Artifacts.
+    */
+   @ConfigGroup
+   public interface RemotePollingConfiguration {
+      /**
+       * Whether remote artifacts should be polled in dev mode, so that Microcks downloads them again when their
+       * content changed. Conditional requests are used so that unchanged artifacts are not transferred.
+       */
+      @WithDefault("false")
+      boolean enabled();
+
+      /**
+       * The interval between two polls of remote artifacts.
+       */
+      @WithDefault("30s")
+      Duration interval();
+
+      /**
+       * The maximum random delay added to each interval, so that polls of several sessions are spread out.
+       */
+      @WithDefault("5s")
+      Duration jitter();
+   }
+
    /**
     * Configuration for Secrets to load within Microcks container.
     */
@@ -190,6 +364,14 @@ public interface MicrocksDevServicesConfig {
       @WithDefault(MICROCKS_POSTMAN_LATEST)
       String postmanImageName();
 
+      /**
+       * Whether ensemble containers should only be started when actually needed. The Async Minion is then started only
+       * if AsyncAPI artifacts are found, whether Kafka is present or not, and the Postman runtime is started on the first
+       * Postman contract test Microcks runs.
+       */
+      @WithDefault("false")
+      boolean onDemand();
+
       /**
        * Is Ensemble has been forced/explicitly enabled?
        * @return Whether one of the feature of the ensemable has been enabled.
@@ -15,11 +15,19 @@
  */
 package io.github.microcks.quarkus.deployment;
 
+import io.github.microcks.quarkus.runtime.MicrocksImports;
+import io.github.microcks.quarkus.runtime.MicrocksImportsHealthCheck;
+
+import io.quarkus.arc.deployment.AdditionalBeanBuildItem;
+import io.quarkus.deployment.Capabilities;
+import io.quarkus.deployment.Capability;
+import io.quarkus.deployment.IsProduction;
+import io.quarkus.deployment.annotations.BuildProducer;
 import io.quarkus.deployment.annotations.BuildStep;
 import io.quarkus.deployment.builditem.FeatureBuildItem;
 
 /**
- * BuildStep processor to register the extension as a started feature.
+ * BuildStep processor to register the extension as a started feature, along with the readiness gate of imports.
  * @author laurent
  */
 class MicrocksQuarkusProcessor {
@@ -30,4 +38,13 @@ class MicrocksQuarkusProcessor {
     FeatureBuildItem feature() {
         return new FeatureBuildItem(FEATURE);
     }
+
+    @BuildStep(onlyIfNot = IsProduction.class)
+    void registerImportsReadiness(Capabilities capabilities, BuildProducer<AdditionalBeanBuildItem> additionalBeans) {
+        additionalBeans.produce(AdditionalBeanBuildItem.unremovableOf(MicrocksImports.class));
+        // Health check is only possible if SmallRye Health is there.
+        if (capabilities.isPresent(Capability.SMALLRYE_HEALTH)) {
+            additionalBeans.produce(new AdditionalBeanBuildItem(MicrocksImportsHealthCheck.class));
+        }
+    }
 }
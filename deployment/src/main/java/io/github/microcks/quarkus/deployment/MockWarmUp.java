@@ -0,0 +1,306 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A warm-up pass calling the mocks of freshly imported services, so that the first calls made by tests do not pay
+ * for the JIT compilation and lazy initializations within Microcks. The request of every example of a safe REST
+ * operation ({@code GET} or {@code HEAD}) is replayed a few times with its method, path, query parameters, headers and
+ * body, operations being warmed up concurrently. Other operations are never called, as they may change the state of
+ * stateful mocks. Every replayed call is counted by Microcks as an invocation of its service.
+ * @author laurent
+ */
+final class MockWarmUp {
+
+   private static final Logger log = Logger.getLogger(MockWarmUp.class);
+
+   private static final Duration TIMEOUT = Duration.ofSeconds(10);
+   private static final String REST_TYPE = "REST";
+   /** Methods that can be replayed without changing the state of mocks. */
+   private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD");
+   /** Headers the Http client sets by itself and refuses to be given. */
+   private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "date", "expect", "from",
+         "host", "upgrade", "via", "warning");
+
+   private final ObjectMapper mapper = new ObjectMapper();
+   private final HttpClient client;
+   private final int iterations;
+   private final int parallelism;
+
+   /**
+    * Create a new warm-up pass.
+    * @param client The client to call Microcks with, typically the pooled one of the uploader that imported the services
+    * @param iterations The number of calls to each example
+    * @param parallelism The number of operations warmed up concurrently
+    */
+   MockWarmUp(HttpClient client, int iterations, int parallelism) {
+      this.client = client;
+      this.iterations = iterations;
+      this.parallelism = parallelism;
+   }
+
+   /**
+    * Warm up the mocks of services. Failures are only recorded.
+    * @param connectionInfo The Http endpoint of the Microcks container
+    * @param services The services to warm up, as {@code name:version}
+    * @param metrics The recorder of warm-up durations
+    */
+   void warmUp(String connectionInfo, Collection<String> services, ArtifactImportMetrics metrics) {
+      long start = System.nanoTime();
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+         Thread thread = new Thread(runnable, "microcks-warm-up");
+         thread.setDaemon(true);
+         return thread;
+      });
+      try {
+         List<CompletableFuture<Void>> warmUps = new ArrayList<>();
+         for (String service : services) {
+            for (MockCall call : mockCalls(connectionInfo, service)) {
+               warmUps.add(CompletableFuture.runAsync(() -> warmUp(call, metrics), executor));
+            }
+         }
+         CompletableFuture.allOf(warmUps.toArray(new CompletableFuture<?>[0])).join();
+         log.infof("Warmed up %d mocks of Microcks running at '%s' in %dms", warmUps.size(), connectionInfo,
+               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private void warmUp(MockCall call, ArtifactImportMetrics metrics) {
+      long start = System.nanoTime();
+      int statusCode = ArtifactImportMetric.NO_STATUS;
+      try {
+         for (int i = 0; i < iterations; i++) {
+            statusCode = client.send(call.toRequest(), HttpResponse.BodyHandlers.discarding()).statusCode();
+         }
+         metrics.recordWarmedUp(call.toString(), start, statusCode);
+      } catch (IOException ioe) {
+         log.debugf("Failed to warm up '%s': %s", call, ioe.getMessage());
+         metrics.recordFailed(call.toString(), ArtifactImportMetric.Kind.WARM_UP, start, ioe);
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private List<MockCall> mockCalls(String connectionInfo, String service) {
+      List<MockCall> calls = new ArrayList<>();
+      JsonNode serviceView;
+      try {
+         HttpRequest request = HttpRequest.newBuilder()
+               .uri(URI.create(connectionInfo + "/api/services/" + encode(service)))
+               .timeout(TIMEOUT)
+               .GET()
+               .build();
+         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+         if (response.statusCode() != 200) {
+            log.debugf("Service '%s' cannot be found for warm-up: %d", service, response.statusCode());
+            return calls;
+         }
+         serviceView = mapper.readTree(response.body());
+      } catch (IOException ioe) {
+         log.debugf("Service '%s' cannot be described for warm-up: %s", service, ioe.getMessage());
+         return calls;
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         return calls;
+      }
+
+      // Only safe operations of REST mocks are replayed; others are left cold.
+      JsonNode description = serviceView.path("service");
+      if (!REST_TYPE.equals(description.path("type").asText())) {
+         return calls;
+      }
+      int separator = service.lastIndexOf(':');
+      String mockBase = connectionInfo + "/rest/" + encode(service.substring(0, separator))
+            + "/" + encode(service.substring(separator + 1));
+      for (JsonNode operation : description.path("operations")) {
+         String method = operation.path("method").asText();
+         if (!SAFE_METHODS.contains(method.toUpperCase(Locale.ROOT))) {
+            continue;
+         }
+         List<String> resourcePaths = new ArrayList<>();
+         for (JsonNode resourcePath : operation.path("resourcePaths")) {
+            resourcePaths.add(resourcePath.asText().replace(" ", "%20"));
+         }
+         JsonNode exchanges = serviceView.path("messagesMap").path(operation.path("name").asText());
+         if (exchanges.size() == 0) {
+            // No example to replay: just call what Microcks derived from the operation.
+            for (String resourcePath : resourcePaths) {
+               addCall(calls, service, method, mockBase + resourcePath, null, List.of());
+            }
+            continue;
+         }
+         for (JsonNode exchange : exchanges) {
+            JsonNode request = exchange.path("request");
+            String path = resourcePath(operation.path("name").asText(), exchange.path("response").path("dispatchCriteria").asText(""));
+            if (path == null) {
+               if (resourcePaths.isEmpty()) {
+                  continue;
+               }
+               path = resourcePaths.get(0);
+            }
+            String query = query(request.path("queryParameters"));
+            if (query.isEmpty() && path.contains("?")) {
+               query = path.substring(path.indexOf('?') + 1);
+            }
+            if (path.contains("?")) {
+               path = path.substring(0, path.indexOf('?'));
+            }
+            List<String[]> headers = new ArrayList<>();
+            for (JsonNode header : request.path("headers")) {
+               String name = header.path("name").asText();
+               if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                  for (JsonNode value : header.path("values")) {
+                     headers.add(new String[] { name, value.asText() });
+                  }
+               }
+            }
+            String content = request.path("content").asText("");
+            addCall(calls, service, method, mockBase + path + (query.isEmpty() ? "" : "?" + query),
+                  content.isEmpty() ? null : content, headers);
+         }
+      }
+      return calls;
+   }
+
+   /**
+    * Compute the resource path of an example, replacing the path parameters of the operation with the values of its
+    * dispatch criteria, such as {@code /id=1?status=available}.
+    * @param operationName The name of the operation, such as {@code GET /pets/{id}}
+    * @param dispatchCriteria The dispatch criteria of the example response
+    * @return The resource path, with the query parameters of the criteria, or null if some parameters are not known.
+    */
+   static String resourcePath(String operationName, String dispatchCriteria) {
+      int space = operationName.indexOf(' ');
+      if (space < 0) {
+         return null;
+      }
+      String path = operationName.substring(space + 1);
+      int queryStart = dispatchCriteria.indexOf('?');
+      String parts = queryStart < 0 ? dispatchCriteria : dispatchCriteria.substring(0, queryStart);
+      for (String part : parts.split("/")) {
+         int equals = part.indexOf('=');
+         if (equals > 0) {
+            String name = part.substring(0, equals);
+            String value = encode(part.substring(equals + 1));
+            path = path.replace("{" + name + "}", value)
+                  .replaceAll(":" + Pattern.quote(name) + "(?=/|$)", Matcher.quoteReplacement(value));
+         }
+      }
+      if (path.contains("{") || path.matches(".*/:[^/]+.*")) {
+         return null;
+      }
+      if (queryStart >= 0) {
+         StringBuilder query = new StringBuilder();
+         for (String param : dispatchCriteria.substring(queryStart + 1).split("[?&]")) {
+            int equals = param.indexOf('=');
+            if (equals > 0) {
+               query.append(query.length() == 0 ? "?" : "&").append(encode(param.substring(0, equals)))
+                     .append('=').append(encode(param.substring(equals + 1)));
+            }
+         }
+         path += query;
+      }
+      return path;
+   }
+
+   private static String query(JsonNode queryParameters) {
+      StringBuilder query = new StringBuilder();
+      for (JsonNode parameter : queryParameters) {
+         if (query.length() > 0) {
+            query.append('&');
+         }
+         query.append(encode(parameter.path("name").asText())).append('=').append(encode(parameter.path("value").asText()));
+      }
+      return query.toString();
+   }
+
+   private static void addCall(List<MockCall> calls, String service, String method, String target, String body,
+                               List<String[]> headers) {
+      try {
+         MockCall call = new MockCall(method, URI.create(target), body, headers);
+         // Fail now on invalid headers, rather than on every iteration.
+         call.toRequest();
+         calls.add(call);
+      } catch (IllegalArgumentException iae) {
+         log.debugf("Ignoring example '%s' of '%s' for warm-up: %s", target, service, iae.getMessage());
+      }
+   }
+
+   private static String encode(String value) {
+      return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+   }
+
+   /** A call to a mock, replaying an example request. */
+   private static final class MockCall {
+      private final String method;
+      private final URI uri;
+      private final String body;
+      private final List<String[]> headers;
+
+      private MockCall(String method, URI uri, String body, List<String[]> headers) {
+         this.method = method;
+         this.uri = uri;
+         this.body = body;
+         this.headers = headers;
+      }
+
+      private HttpRequest toRequest() {
+         HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+               .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody())
+               .timeout(TIMEOUT);
+         boolean accept = false;
+         for (String[] header : headers) {
+            builder.header(header[0], header[1]);
+            accept |= "accept".equalsIgnoreCase(header[0]);
+         }
+         if (!accept) {
+            builder.header("Accept", "*/*");
+         }
+         return builder.build();
+      }
+
+      @Override
+      public String toString() {
+         return method + " " + uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+      }
+   }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * A minimal Http proxy standing on the host for an ensemble container that is only started when first needed. Other
+ * containers of the ensemble are given the URL of this proxy: the first request it receives starts the target
+ * container, then every request is forwarded to it. If the container fails to start, every request is answered with
+ * a 503 status without trying to start it again.
+ * @author laurent
+ */
+final class OnDemandContainerProxy implements AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(OnDemandContainerProxy.class);
+
+   /** Headers that are not forwarded: hop-by-hop ones, and the ones managed by the Http client and server. */
+   private static final Set<String> UNFORWARDED_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+         "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade", "content-length",
+         "host", "expect", "date", "from", "via", "warning");
+
+   private final String name;
+   private final HttpServer server;
+   private final ExecutorService executor;
+   private final HttpClient client = HttpClient.newHttpClient();
+   private volatile Supplier<String> targetStarter;
+   private String targetUrl;
+   private boolean targetFailed;
+
+   /**
+    * Create a new proxy, listening on an ephemeral port of loopback interface.
+    * @param name The name of proxied container, for logging purpose
+    * @throws IOException if proxy cannot listen
+    */
+   OnDemandContainerProxy(String name) throws IOException {
+      this.name = name;
+      this.executor = Executors.newCachedThreadPool(runnable -> {
+         Thread thread = new Thread(runnable, "microcks-on-demand-" + name);
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+      this.server.createContext("/", this::forward);
+      this.server.setExecutor(executor);
+      this.server.start();
+   }
+
+   /**
+    * @return The port this proxy is listening on.
+    */
+   int port() {
+      return server.getAddress().getPort();
+   }
+
+   /**
+    * Set how to start the proxied container.
+    * @param targetStarter A supplier starting the container and returning its base Http URL
+    */
+   void target(Supplier<String> targetStarter) {
+      this.targetStarter = targetStarter;
+   }
+
+   /**
+    * @return The base Http URL of the proxied container, started on first call, or null if it failed to start.
+    */
+   private synchronized String targetUrl() {
+      if (targetUrl == null && !targetFailed) {
+         log.infof("Starting '%s' container on its first request", name);
+         try {
+            targetUrl = targetStarter.get();
+         } catch (RuntimeException re) {
+            log.errorf(re, "Failed to start '%s' container, requests will not be forwarded", name);
+            targetFailed = true;
+         }
+      }
+      return targetUrl;
+   }
+
+   private void forward(HttpExchange exchange) throws IOException {
+      try {
+         String target = targetStarter != null ? targetUrl() : null;
+         if (target == null) {
+            exchange.sendResponseHeaders(503, -1);
+            return;
+         }
+         boolean responseStarted = false;
+         try {
+            // Bodies are streamed both ways rather than being held in memory.
+            HttpRequest.BodyPublisher requestBody = hasRequestBody(exchange)
+                  ? HttpRequest.BodyPublishers.ofInputStream(exchange::getRequestBody) : HttpRequest.BodyPublishers.noBody();
+            HttpRequest.Builder request = HttpRequest.newBuilder()
+                  .uri(URI.create(target + exchange.getRequestURI()))
+                  .method(exchange.getRequestMethod(), requestBody);
+            Set<String> requestUnforwarded = unforwardedHeaders(exchange.getRequestHeaders().get("Connection"));
+            for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+               if (!requestUnforwarded.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                  for (String value : header.getValue()) {
+                     request.header(header.getKey(), value);
+                  }
+               }
+            }
+
+            HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+               Set<String> responseUnforwarded = unforwardedHeaders(response.headers().allValues("Connection"));
+               for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                  if (!header.getKey().startsWith(":") && !responseUnforwarded.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                     exchange.getResponseHeaders().put(header.getKey(), header.getValue());
+                  }
+               }
+               responseStarted = true;
+               if (!hasResponseBody(exchange.getRequestMethod(), response.statusCode())) {
+                  exchange.sendResponseHeaders(response.statusCode(), -1);
+                  return;
+               }
+               // Length 0 sends a chunked response.
+               exchange.sendResponseHeaders(response.statusCode(), 0);
+               try (OutputStream responseBody = exchange.getResponseBody()) {
+                  body.transferTo(responseBody);
+               }
+            }
+         } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            if (!responseStarted) {
+               exchange.sendResponseHeaders(503, -1);
+            }
+         } catch (RuntimeException | IOException e) {
+            log.errorf(e, "Failed to forward request to '%s' container", name);
+            // Once the response has started, closing the exchange is all that can be done.
+            if (responseStarted) {
+               return;
+            }
+            byte[] body = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(502, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+               responseBody.write(body);
+            }
+         }
+      } finally {
+         exchange.close();
+      }
+   }
+
+   /**
+    * @return Whether the request has a body to forward, as told by its framing headers.
+    */
+   private static boolean hasRequestBody(HttpExchange exchange) {
+      String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+      return exchange.getRequestHeaders().containsKey("Transfer-Encoding")
+            || (contentLength != null && !"0".equals(contentLength.trim()));
+   }
+
+   /**
+    * @return Whether a response with this status to a request with this method may have a body.
+    */
+   private static boolean hasResponseBody(String method, int status) {
+      return !"HEAD".equalsIgnoreCase(method) && status != 204 && status != 304 && status >= 200;
+   }
+
+   /**
+    * @param connectionValues The values of a Connection header, that may name other hop-by-hop headers
+    * @return The lower-cased names of headers that must not be forwarded.
+    */
+   private static Set<String> unforwardedHeaders(List<String> connectionValues) {
+      if (connectionValues == null || connectionValues.isEmpty()) {
+         return UNFORWARDED_HEADERS;
+      }
+      Set<String> headers = new HashSet<>(UNFORWARDED_HEADERS);
+      for (String value : connectionValues) {
+         for (String token : value.split(",")) {
+            headers.add(token.trim().toLowerCase(Locale.ROOT));
+         }
+      }
+      return headers;
+   }
+
+   @Override
+   public void close() {
+      server.stop(0);
+      executor.shutdownNow();
+   }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import java.nio.file.Path;
+
+/**
+ * An artifact found as an entry of a dependency archive.
+ * @author laurent
+ */
+public final class PackagedArtifact {
+
+   private final Path archive;
+   private final String entryName;
+   private final String dependency;
+
+   /**
+    * Build a new packaged artifact.
+    * @param archive The path of the dependency archive
+    * @param entryName The name of the artifact entry within archive
+    * @param dependency The coordinates of dependency providing the archive
+    */
+   public PackagedArtifact(Path archive, String entryName, String dependency) {
+      this.archive = archive;
+      this.entryName = entryName;
+      this.dependency = dependency;
+   }
+
+   public Path archive() {
+      return archive;
+   }
+
+   public String entryName() {
+      return entryName;
+   }
+
+   public String dependency() {
+      return dependency;
+   }
+
+   /**
+    * @return The simple file name of the artifact entry.
+    */
+   public String fileName() {
+      return entryName.substring(entryName.lastIndexOf('/') + 1);
+   }
+
+   /**
+    * @return A unique key for this artifact, made of archive path and entry name.
+    */
+   public String key() {
+      return archive + "!/" + entryName;
+   }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+
+import org.jboss.logging.Logger;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.TestcontainersConfiguration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Microcks container kept running after tests, so that the next test runs reuse it instead of starting a new one.
+ * Containers are discovered through a label whose value is bound to the configuration they have been created with.
+ * <p>
+ * A reused container is reset by restarting it: Microcks uber image holds everything in memory, so invocation
+ * counters, test results and the state of stateful mocks are all gone afterward. The services imported from local
+ * artifacts are exported before the restart and restored in a single call after, along with their import manifest
+ * entries, so that only the artifacts whose content changed are imported again. This is only done if the last run that
+ * imported into the container used the same manifest, as manifests are bound to the start time of the container they
+ * have been recorded for; otherwise, everything is imported again.
+ * <p>
+ * A test JVM only reuses a container while holding its lease, an exclusive lock on a file of the temporary directory
+ * kept until the JVM exits, so that the container is never restarted while the tests of another JVM, such as another
+ * module built in parallel, are running against it.
+ * @author laurent
+ */
+final class ReusedTestContainer {
+
+   private static final Logger log = Logger.getLogger(ReusedTestContainer.class);
+
+   /** Label to add to Microcks containers kept running after tests. */
+   static final String LABEL = "quarkus-dev-service-microcks-test";
+
+   private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(60);
+   private static final long HEALTH_POLL_INTERVAL_MILLIS = 250;
+
+   /** Leases held or refused by this JVM, by label value. Held locks are released when the JVM exits. */
+   private static final Map<String, Optional<FileLock>> leases = new ConcurrentHashMap<>();
+
+   private final HttpClient client = HttpClient.newBuilder()
+         .version(HttpClient.Version.HTTP_1_1)
+         .connectTimeout(Duration.ofSeconds(5))
+         .build();
+   private final MicrocksArtifactUploader uploader;
+   private final Path manifestFile;
+   private Path exportFile;
+   private Properties exportedEntries;
+
+   /**
+    * Create a reset of a reused container.
+    * @param uploader The uploader to use for calling Microcks
+    * @param manifestFile The import manifest file of the Dev Service
+    */
+   ReusedTestContainer(MicrocksArtifactUploader uploader, Path manifestFile) {
+      this.uploader = uploader;
+      this.manifestFile = manifestFile;
+   }
+
+   /**
+    * Compute the label value of a Microcks container, so that a container is only reused with the same configuration.
+    * @param serviceName The name of the Microcks service
+    * @param config The configuration the container is created with
+    * @return The label value.
+    */
+   static String labelValue(String serviceName, MicrocksDevServicesConfig config) {
+      MessageDigest digest = ArtifactImportManifest.newDigest();
+      digest.update(config.imageName().getBytes(StandardCharsets.UTF_8));
+      for (Map.Entry<String, String> env : new TreeMap<>(config.containerEnv()).entrySet()) {
+         digest.update((env.getKey() + "=" + env.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+      }
+      return serviceName + "-" + ArtifactImportManifest.toHex(digest.digest()).substring(0, 12);
+   }
+
+   /**
+    * Acquire the lease of the reused container of a label value, for the lifetime of this JVM. The outcome of the first
+    * attempt is kept, so that a JVM consistently reuses a container or not.
+    * @param labelValue The label value, as computed by {@link #labelValue(String, MicrocksDevServicesConfig)}
+    * @return True if this JVM holds the lease, false if another JVM does and a fresh container should be started.
+    */
+   static boolean acquireLease(String labelValue) {
+      return leases.computeIfAbsent(labelValue, ReusedTestContainer::tryLock).isPresent();
+   }
+
+   private static Optional<FileLock> tryLock(String labelValue) {
+      Path lockFile = Path.of(System.getProperty("java.io.tmpdir"), LABEL + "-" + labelValue + ".lock");
+      FileChannel channel = null;
+      try {
+         channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         FileLock lock = channel.tryLock();
+         if (lock != null) {
+            return Optional.of(lock);
+         }
+      } catch (IOException | OverlappingFileLockException e) {
+         log.debugf("Failed to lock '%s': %s", lockFile, e.getMessage());
+      }
+      closeQuietly(channel);
+      log.infof("Reused Microcks container '%s' is in use by another test run, starting a new one", labelValue);
+      return Optional.empty();
+   }
+
+   /**
+    * Label a container so that it's discovered by the next test runs, and keep it out of the Testcontainers cleanup.
+    * @param container The Microcks container to keep running
+    * @param labelValue The label value, as computed by {@link #labelValue(String, MicrocksDevServicesConfig)}
+    */
+   static void keepRunning(GenericContainer<?> container, String labelValue) {
+      container.withLabel(LABEL, labelValue).withReuse(true);
+      if (!TestcontainersConfiguration.getInstance().environmentSupportsReuse()) {
+         log.warnf("Microcks container '%s' will be removed after tests: set 'testcontainers.reuse.enable=true' in "
+               + "~/.testcontainers.properties to keep it running", labelValue);
+      }
+   }
+
+   /**
+    * Export the services imported from local artifacts if this manifest is bound to the current run of this container,
+    * meaning that no other manifest has been used for importing into it since, then restart it. Export failures are only logged, everything being imported again afterward.
+    * @param connectionInfo The Http endpoint of the Microcks container
+    * @param containerId The identifier of the reused container
+    */
+   void restart(String connectionInfo, String containerId) {
+      long start = System.nanoTime();
+      ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, ArtifactImportManifest.containerRunOf(containerId));
+      Set<String> services = manifest.services();
+      if (!services.isEmpty()) {
+         try {
+            exportFile = Files.createTempFile("microcks-reuse-", ".json");
+            if (uploader.exportSnapshot(connectionInfo, services, exportFile) > 0) {
+               exportedEntries = manifest.artifactEntries();
+            }
+         } catch (IOException ioe) {
+            log.warnf("Failed to export services of reused Microcks container, importing artifacts again: %s", ioe.getMessage());
+         }
+      }
+      DockerClientFactory.instance().client().restartContainerCmd(containerId).exec();
+      log.infof("Restarted reused Microcks container '%s' in %dms", containerId,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+   }
+
+   /**
+    * Wait for the restarted container to be healthy, then restore the exported services and start a new manifest
+    * recording them as being imported. Failures are only logged.
+    * @param connectionInfo The Http endpoint of the restarted Microcks container
+    * @param containerId The identifier of the reused container
+    */
+   void restore(String connectionInfo, String containerId) {
+      long start = System.nanoTime();
+      try {
+         awaitHealthy(connectionInfo);
+         // Restarted container holds nothing anymore: neither secrets nor remote artifacts are left.
+         Files.deleteIfExists(manifestFile);
+         ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, ArtifactImportManifest.containerRunOf(containerId));
+         if (exportedEntries != null) {
+            uploader.importSnapshot(connectionInfo, exportFile);
+            manifest.recordRestored(exportedEntries);
+            log.infof("Restored %d services into reused Microcks container in %dms", manifest.services().size(),
+                  TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+         }
+         manifest.save();
+      } catch (IOException ioe) {
+         log.warnf("Failed to restore services into reused Microcks container, importing artifacts again: %s", ioe.getMessage());
+      } finally {
+         deleteQuietly(exportFile);
+      }
+   }
+
+   private void awaitHealthy(String connectionInfo) throws IOException {
+      HttpRequest request = HttpRequest.newBuilder(URI.create(connectionInfo + "/api/health"))
+            .timeout(Duration.ofSeconds(5))
+            .GET()
+            .build();
+      long deadline = System.nanoTime() + HEALTH_TIMEOUT.toNanos();
+      try {
+         while (System.nanoTime() < deadline) {
+            try {
+               if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                  return;
+               }
+            } catch (IOException ioe) {
+               // Not listening yet.
+            }
+            Thread.sleep(HEALTH_POLL_INTERVAL_MILLIS);
+         }
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while waiting for Microcks to restart", ie);
+      }
+      throw new IOException("Microcks is not healthy " + HEALTH_TIMEOUT.toSeconds() + "s after restart");
+   }
+
+   private static void closeQuietly(FileChannel channel) {
+      if (channel != null) {
+         try {
+            channel.close();
+         } catch (IOException ioe) {
+            log.debugf("Failed to close lock file: %s", ioe.getMessage());
+         }
+      }
+   }
+
+   private static void deleteQuietly(Path file) {
+      if (file != null) {
+         try {
+            Files.deleteIfExists(file);
+         } catch (IOException ioe) {
+            log.debugf("Failed to delete '%s': %s", file, ioe.getMessage());
+         }
+      }
+   }
+}
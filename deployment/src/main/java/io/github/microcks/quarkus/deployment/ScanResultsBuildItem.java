@@ -1,33 +1,77 @@
 package io.github.microcks.quarkus.deployment;
 
-import io.quarkus.builder.item.SimpleBuildItem;
+import io.quarkus.builder.item.MultiBuildItem;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-public final class ScanResultsBuildItem extends SimpleBuildItem {
+public final class ScanResultsBuildItem extends MultiBuildItem {
 
+    private final String serviceName;
     private final Map<File, String> primaryArtifacts;
     private final Map<File, String> secondaryArtifacts;
+    private final List<PackagedArtifact> packagedPrimaryArtifacts;
+    private final List<PackagedArtifact> packagedSecondaryArtifacts;
+    private final Map<String, List<String>> secondariesByPrimary;
     private final boolean aPostmanCollectionIsPresent;
+    private final boolean anAsyncAPISpecIsPresent;
+    private final boolean failed;
 
-    public ScanResultsBuildItem(Map<File, String> primaryArtifacts, Map<File, String> secondaryArtifacts, boolean aPostmanCollectionIsPresent) {
+    public ScanResultsBuildItem(String serviceName, Map<File, String> primaryArtifacts, Map<File, String> secondaryArtifacts,
+                                List<PackagedArtifact> packagedPrimaryArtifacts, List<PackagedArtifact> packagedSecondaryArtifacts,
+                                Map<String, List<String>> secondariesByPrimary, boolean aPostmanCollectionIsPresent,
+                                boolean anAsyncAPISpecIsPresent, boolean failed) {
+        this.serviceName = serviceName;
         this.primaryArtifacts = primaryArtifacts != null ? primaryArtifacts : new HashMap<>();
         this.secondaryArtifacts = secondaryArtifacts != null ? secondaryArtifacts : new HashMap<>();
+        this.packagedPrimaryArtifacts = packagedPrimaryArtifacts != null ? packagedPrimaryArtifacts : new ArrayList<>();
+        this.packagedSecondaryArtifacts = packagedSecondaryArtifacts != null ? packagedSecondaryArtifacts : new ArrayList<>();
+        this.secondariesByPrimary = secondariesByPrimary != null ? secondariesByPrimary : new HashMap<>();
         this.aPostmanCollectionIsPresent = aPostmanCollectionIsPresent;
+        this.anAsyncAPISpecIsPresent = anAsyncAPISpecIsPresent;
+        this.failed = failed;
     }
 
-    public ScanResultsBuildItem() {
-        primaryArtifacts = new HashMap<>();
-        secondaryArtifacts = new HashMap<>();
-        aPostmanCollectionIsPresent = false;
+    public ScanResultsBuildItem(String serviceName) {
+        this(serviceName, null, null, null, null, null, false, false, false);
+    }
+
+    /**
+     * @param serviceName The name of the Microcks service whose artifacts scan failed
+     * @return Empty results of a failed scan.
+     */
+    public static ScanResultsBuildItem failed(String serviceName) {
+        return new ScanResultsBuildItem(serviceName, null, null, null, null, null, false, false, true);
+    }
+
+    /**
+     * @return The name of the Microcks service these artifacts are for.
+     */
+    public String serviceName() {
+        return serviceName;
     }
 
     public boolean aPostmanCollectionIsPresent() {
         return aPostmanCollectionIsPresent;
     }
 
+    /**
+     * @return Whether an AsyncAPI specification is among primary artifacts, so that an Async Minion is needed.
+     */
+    public boolean anAsyncAPISpecIsPresent() {
+        return anAsyncAPISpecIsPresent;
+    }
+
+    /**
+     * @return Whether the scan failed, so that these results may lack artifacts that are still there.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
     public Map<File, String> primary() {
         return primaryArtifacts;
     }
@@ -35,4 +79,19 @@ public final class ScanResultsBuildItem extends SimpleBuildItem {
     public Map<File, String> secondary() {
         return secondaryArtifacts;
     }
+
+    public List<PackagedArtifact> packagedPrimary() {
+        return packagedPrimaryArtifacts;
+    }
+
+    public List<PackagedArtifact> packagedSecondary() {
+        return packagedSecondaryArtifacts;
+    }
+
+    /**
+     * @return The relative paths of secondary artifacts to re-import when a primary artifact is, by primary relative path.
+     */
+    public Map<String, List<String>> secondariesByPrimary() {
+        return secondariesByPrimary;
+    }
 }
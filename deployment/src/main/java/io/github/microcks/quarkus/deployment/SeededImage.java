@@ -0,0 +1,320 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Image;
+import org.jboss.logging.Logger;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.utility.MountableFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A Microcks image pre-seeded with the local artifacts of a Dev Service, committed into the local Docker daemon once
+ * they have all been imported into a container started from the base image. It is tagged with the key of its
+ * artifacts so that later runs with the same base image and the same artifacts start from it instead.
+ * <p>
+ * Microcks uber image holds its repository in memory, so committing a container does not capture it: the exported
+ * repository and the import manifest entries are copied into the container before it's committed, and restored in a
+ * single call when a container is started from the seeded image. The number of seeded images is capped, the least
+ * recently used ones being removed first. As the Docker daemon does not tell when an image has been used last, each
+ * start from a seeded image tags it again with the time of this use, such as {@code <key>-used-<epoch millis>}.
+ * @author laurent
+ */
+final class SeededImage {
+
+   private static final Logger log = Logger.getLogger(SeededImage.class);
+
+   /** Commits images one at a time, off the common pool, so that pruning never races with another commit. */
+   private static final ExecutorService committer = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "microcks-seeded-image-commit");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /** The local repository of seeded images. */
+   static final String REPOSITORY = "microcks-devservices-seeded";
+   /** The label set on seeded images, holding the name of their base image. */
+   static final String SEEDED_LABEL = "io.github.microcks.quarkus.seeded.base";
+
+   private static final String SEED_SNAPSHOT = "/microcks-seed/snapshot.json";
+   private static final String SEED_ENTRIES = "/microcks-seed/entries.properties";
+   /** Separates the key of a seeded image from the time of its last use in its usage tag. */
+   private static final String USAGE_TAG_SEPARATOR = "-used-";
+   /** How long an in-flight commit is waited for on shutdown. */
+   private static final long COMMIT_TIMEOUT_SECONDS = 60;
+
+   private final String baseImageName;
+   private final String key;
+   private final int maxImages;
+   private boolean startedFrom;
+   private GenericContainer<?> container;
+   private volatile boolean closed;
+   private volatile CompletableFuture<Void> commit = CompletableFuture.completedFuture(null);
+
+   /**
+    * Create the seeded image of a Dev Service.
+    * @param baseImageName The Microcks image the seeded one derives from
+    * @param key The key of local artifacts, as computed by {@link ArtifactImportSnapshot#keyOf}
+    * @param maxImages The maximum number of seeded images to keep
+    */
+   SeededImage(String baseImageName, String key, int maxImages) {
+      this.baseImageName = baseImageName;
+      this.key = key;
+      this.maxImages = maxImages;
+   }
+
+   /**
+    * @return The name of this image in local Docker daemon.
+    */
+   String name() {
+      return REPOSITORY + ":" + key;
+   }
+
+   /**
+    * @return Whether this image has already been committed into local Docker daemon. Failures are only logged.
+    */
+   boolean exists() {
+      try {
+         DockerClientFactory.instance().client().inspectImageCmd(name()).exec();
+         return true;
+      } catch (NotFoundException nfe) {
+         return false;
+      } catch (RuntimeException re) {
+         log.warnf("Failed to look for seeded image '%s': %s", name(), re.getMessage());
+         return false;
+      }
+   }
+
+   /**
+    * Set the container this image is seeded from, or that has been started from it.
+    * @param container The Microcks container
+    * @param startedFrom Whether container has been started from this image
+    */
+   void container(GenericContainer<?> container, boolean startedFrom) {
+      this.container = container;
+      this.startedFrom = startedFrom;
+      if (startedFrom) {
+         touch();
+      }
+   }
+
+   /**
+    * @return Whether container has been started from this image.
+    */
+   boolean isStartedFrom() {
+      return startedFrom;
+   }
+
+   /**
+    * Restore the repository this image has been seeded with into its container, then record its artifacts as being
+    * imported. Failures are only logged.
+    * @param uploader The uploader to use for calling Microcks
+    * @param connectionInfo The Http endpoint of the Microcks container
+    * @param manifest The import manifest of container
+    * @return True if repository has been restored.
+    */
+   boolean restore(MicrocksArtifactUploader uploader, String connectionInfo, ArtifactImportManifest manifest) {
+      long start = System.nanoTime();
+      Path snapshotFile = null;
+      try {
+         snapshotFile = Files.createTempFile("microcks-seed-", ".json");
+         Path target = snapshotFile;
+         container.copyFileFromContainer(SEED_SNAPSHOT, is -> Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING));
+         Properties entries = container.copyFileFromContainer(SEED_ENTRIES, is -> {
+            Properties properties = new Properties();
+            properties.load(is);
+            return properties;
+         });
+         uploader.importSnapshot(connectionInfo, snapshotFile);
+         manifest.recordRestored(entries);
+         log.infof("Restored %d services seeded into image '%s' in %dms", manifest.services().size(), name(),
+               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+         return true;
+      } catch (IOException | RuntimeException e) {
+         log.warnf("Failed to restore services seeded into image '%s', importing artifacts one by one: %s", name(), e.getMessage());
+         return false;
+      } finally {
+         deleteQuietly(snapshotFile);
+      }
+   }
+
+   /**
+    * Commit this image from its container in the background, then remove the least recently used seeded images
+    * beyond the cap. Failures are only logged.
+    * @param uploader The uploader to use for calling Microcks
+    * @param connectionInfo The Http endpoint of the Microcks container
+    * @param manifest The import manifest of container, once every artifact has been imported
+    */
+   void commitAsync(MicrocksArtifactUploader uploader, String connectionInfo, ArtifactImportManifest manifest) {
+      // Manifest may change during hot reloads, so what's seeded is taken now.
+      Set<String> services = manifest.services();
+      Properties entries = manifest.artifactEntries();
+      if (services.isEmpty()) {
+         return;
+      }
+      commit = CompletableFuture.runAsync(() -> {
+         // A commit still queued on shutdown is abandoned, its container being stopped.
+         if (closed) {
+            log.debugf("Abandoned commit of seeded image '%s' on shutdown", name());
+            return;
+         }
+         try {
+            commit(uploader, connectionInfo, services, entries);
+            prune();
+         } catch (IOException | RuntimeException e) {
+            log.warnf("Failed to commit seeded image '%s': %s", name(), e.getMessage());
+         }
+      }, committer);
+   }
+
+   /**
+    * Wait for the commit of this image to complete before its container is stopped, a queued commit being abandoned.
+    * An image is only tagged once committed, so giving up after a timeout does not leave a partial seeded image.
+    */
+   void awaitCommit() {
+      closed = true;
+      try {
+         commit.get(COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+      } catch (ExecutionException | TimeoutException e) {
+         log.warnf("Gave up waiting for commit of seeded image '%s': %s", name(), e.getMessage());
+      }
+   }
+
+   private void commit(MicrocksArtifactUploader uploader, String connectionInfo, Set<String> services, Properties entries) throws IOException {
+      long start = System.nanoTime();
+      Path snapshotFile = Files.createTempFile("microcks-seed-", ".json");
+      try {
+         if (uploader.exportSnapshot(connectionInfo, services, snapshotFile) == 0) {
+            return;
+         }
+         ByteArrayOutputStream entriesBytes = new ByteArrayOutputStream();
+         entries.store(entriesBytes, "Microcks seeded image entries");
+         // Entries are copied last, so that a seeded image holding them is complete.
+         container.copyFileToContainer(MountableFile.forHostPath(snapshotFile), SEED_SNAPSHOT);
+         container.copyFileToContainer(Transferable.of(entriesBytes.toByteArray()), SEED_ENTRIES);
+
+         DockerClientFactory.instance().client().commitCmd(container.getContainerId())
+               .withRepository(REPOSITORY)
+               .withTag(key)
+               .withLabels(Map.of(SEEDED_LABEL, baseImageName))
+               .exec();
+         log.infof("Committed seeded image '%s' in %dms", name(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      } finally {
+         deleteQuietly(snapshotFile);
+      }
+   }
+
+   private void prune() {
+      DockerClient client = DockerClientFactory.instance().client();
+      List<Image> images = new ArrayList<>(client.listImagesCmd().withLabelFilter(SEEDED_LABEL).exec());
+      if (images.size() <= maxImages) {
+         return;
+      }
+      images.sort(Comparator.comparingLong(SeededImage::lastUsed));
+      for (Image image : images.subList(0, images.size() - maxImages)) {
+         // Usage tags are removed first, the image itself being removed with its last tag.
+         List<String> tags = new ArrayList<>(tagsOf(image));
+         tags.sort(Comparator.comparing(tag -> !tag.contains(USAGE_TAG_SEPARATOR)));
+         if (tags.isEmpty()) {
+            tags.add(image.getId());
+         }
+         try {
+            for (String tag : tags) {
+               // Not forced, so that an image used by a running container is kept.
+               client.removeImageCmd(tag).exec();
+            }
+            log.infof("Removed least recently used seeded image '%s'", tags.get(tags.size() - 1));
+         } catch (RuntimeException re) {
+            log.debugf("Failed to remove seeded image '%s': %s", image.getId(), re.getMessage());
+         }
+      }
+   }
+
+   /**
+    * Tag this image with the time it's used now, and remove its previous usage tags. Failures are only logged.
+    */
+   private void touch() {
+      String usageTag = key + USAGE_TAG_SEPARATOR + System.currentTimeMillis();
+      try {
+         DockerClient client = DockerClientFactory.instance().client();
+         client.tagImageCmd(name(), REPOSITORY, usageTag).exec();
+         for (String tag : client.inspectImageCmd(name()).exec().getRepoTags()) {
+            if (tag.startsWith(name() + USAGE_TAG_SEPARATOR) && !tag.endsWith(":" + usageTag)) {
+               client.removeImageCmd(tag).exec();
+            }
+         }
+      } catch (RuntimeException re) {
+         log.debugf("Failed to record use of seeded image '%s': %s", name(), re.getMessage());
+      }
+   }
+
+   /**
+    * @return The time a seeded image has been used last, as told by its usage tags, or its creation time if unused.
+    */
+   static long lastUsed(Image image) {
+      long lastUsed = image.getCreated() != null ? TimeUnit.SECONDS.toMillis(image.getCreated()) : 0;
+      for (String tag : tagsOf(image)) {
+         int separator = tag.lastIndexOf(USAGE_TAG_SEPARATOR);
+         if (separator > 0) {
+            try {
+               lastUsed = Math.max(lastUsed, Long.parseLong(tag.substring(separator + USAGE_TAG_SEPARATOR.length())));
+            } catch (NumberFormatException nfe) {
+               // Not a usage tag.
+            }
+         }
+      }
+      return lastUsed;
+   }
+
+   private static List<String> tagsOf(Image image) {
+      return image.getRepoTags() != null ? List.of(image.getRepoTags()) : List.of();
+   }
+
+   private static void deleteQuietly(Path file) {
+      if (file != null) {
+         try {
+            Files.deleteIfExists(file);
+         } catch (IOException ioe) {
+            log.debugf("Failed to delete '%s': %s", file, ioe.getMessage());
+         }
+      }
+   }
+}
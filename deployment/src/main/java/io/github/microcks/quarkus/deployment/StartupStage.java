@@ -0,0 +1,89 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+/**
+ * Timing of a single stage of Microcks Dev Service startup.
+ * @author laurent
+ */
+public final class StartupStage {
+
+   /** What has been timed. */
+   public enum Stage {
+      SCAN("scan"),
+      IMAGE_PULL("image pull"),
+      CONTAINER_CREATE("container create"),
+      CONTAINER_START("container start"),
+      WAIT_STRATEGY("wait strategy"),
+      ENSEMBLE("ensemble"),
+      IMPORT_SECRETS("import secrets"),
+      RESTORE_SNAPSHOT("restore snapshot"),
+      IMPORT_ARTIFACTS("import artifacts"),
+      WARM_UP("warm up mocks");
+
+      private final String label;
+
+      Stage(String label) {
+         this.label = label;
+      }
+
+      public String label() {
+         return label;
+      }
+   }
+
+   private final String serviceName;
+   private final Stage stage;
+   private final String subject;
+   private final long startEpochMillis;
+   private final long durationMillis;
+
+   /**
+    * Build a new stage timing.
+    * @param serviceName The name of Microcks service this stage is for
+    * @param stage What has been timed
+    * @param subject The ensemble member this stage is for, or null if it's for the whole service
+    * @param startEpochMillis The wall clock time at stage start
+    * @param durationMillis The duration of stage
+    */
+   public StartupStage(String serviceName, Stage stage, String subject, long startEpochMillis, long durationMillis) {
+      this.serviceName = serviceName;
+      this.stage = stage;
+      this.subject = subject;
+      this.startEpochMillis = startEpochMillis;
+      this.durationMillis = durationMillis;
+   }
+
+   public String serviceName() {
+      return serviceName;
+   }
+
+   public Stage stage() {
+      return stage;
+   }
+
+   public String subject() {
+      return subject;
+   }
+
+   public long startEpochMillis() {
+      return startEpochMillis;
+   }
+
+   public long durationMillis() {
+      return durationMillis;
+   }
+}
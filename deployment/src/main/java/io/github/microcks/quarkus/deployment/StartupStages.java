@@ -0,0 +1,237 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe recorder of Dev Services startup stages. Once every Dev Service is done with its startup, imports
+ * included, recorded stages are saved into a JSON file of the build output directory so that CI can track startup
+ * regressions. Stages recorded later, like the ones of ensemble members started on demand, are only saved when the
+ * recorder is closed with the application, along with the stages of a startup that failed. When tracing is on, stages are
+ * also saved as spans of a single trace, using the OTLP JSON encoding that OpenTelemetry collectors can ingest.
+ * @author laurent
+ */
+final class StartupStages {
+
+   private static final Logger log = Logger.getLogger(StartupStages.class);
+
+   /** The file stages are saved into, relative to build output directory. */
+   static final String STAGES_FILE = "microcks/startup-stages.json";
+   /** The file spans are saved into when tracing is on, relative to build output directory. */
+   static final String SPANS_FILE = "microcks/startup-spans.json";
+
+   private static final SecureRandom random = new SecureRandom();
+   private static final ObjectMapper mapper = new ObjectMapper();
+
+   private final ConcurrentLinkedQueue<StartupStage> stages = new ConcurrentLinkedQueue<>();
+   private final Set<String> startingServices = new HashSet<>();
+   /** Whether stages have been recorded since they have been saved. */
+   private boolean unsaved;
+   private final Path outputDirectory;
+   private final boolean tracing;
+   private final long anchorEpochMillis = System.currentTimeMillis();
+   private final long anchorNanos = System.nanoTime();
+   private final String traceId = randomHex(16);
+   private final String rootSpanId = randomHex(8);
+
+   /**
+    * Create a new recorder.
+    * @param outputDirectory The build output directory to save stages into, or null for not saving them
+    * @param tracing Whether stages should also be saved as spans
+    */
+   StartupStages(Path outputDirectory, boolean tracing) {
+      this.outputDirectory = outputDirectory;
+      this.tracing = tracing;
+   }
+
+   /**
+    * Record a stage ending now.
+    * @param serviceName The name of Microcks service this stage is for
+    * @param stage What has been timed
+    * @param subject The ensemble member this stage is for, or null
+    * @param startNanos The {@code System.nanoTime()} at stage start
+    */
+   void record(String serviceName, StartupStage.Stage stage, String subject, long startNanos) {
+      record(serviceName, stage, subject, startNanos, System.nanoTime());
+   }
+
+   /**
+    * Record a stage.
+    * @param serviceName The name of Microcks service this stage is for
+    * @param stage What has been timed
+    * @param subject The ensemble member this stage is for, or null
+    * @param startNanos The {@code System.nanoTime()} at stage start
+    * @param endNanos The {@code System.nanoTime()} at stage end
+    */
+   void record(String serviceName, StartupStage.Stage stage, String subject, long startNanos, long endNanos) {
+      record(new StartupStage(serviceName, stage, subject,
+            anchorEpochMillis + TimeUnit.NANOSECONDS.toMillis(startNanos - anchorNanos),
+            TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos)));
+   }
+
+   /**
+    * Record a stage timed elsewhere, like the ones completed at build time.
+    * @param stage The stage timing
+    */
+   synchronized void record(StartupStage stage) {
+      stages.add(stage);
+      unsaved = true;
+   }
+
+   /**
+    * Declare the Dev Services whose startup is to be waited for before saving stages.
+    * @param serviceNames The names of Microcks services being started
+    */
+   synchronized void starting(Collection<String> serviceNames) {
+      startingServices.addAll(serviceNames);
+   }
+
+   /**
+    * Mark the startup of a Dev Service as completed, whether its imports succeeded or not. Stages are saved once the
+    * last one completes.
+    * @param serviceName The name of Microcks service
+    */
+   synchronized void completed(String serviceName) {
+      if (startingServices.remove(serviceName) && startingServices.isEmpty()) {
+         save();
+      }
+   }
+
+   /**
+    * Save the stages that have not been saved yet, like the ones of members started after startup or of a startup that
+    * failed before every Dev Service completed. To be called when the application is closed or restarted.
+    */
+   synchronized void close() {
+      if (unsaved) {
+         save();
+      }
+   }
+
+   /**
+    * @return The recorded stages, in start order.
+    */
+   List<StartupStage> inStartOrder() {
+      List<StartupStage> sorted = new ArrayList<>(stages);
+      sorted.sort(Comparator.comparingLong(StartupStage::startEpochMillis));
+      return sorted;
+   }
+
+   private void save() {
+      unsaved = false;
+      if (outputDirectory == null) {
+         return;
+      }
+      List<StartupStage> sorted = inStartOrder();
+      try {
+         write(outputDirectory.resolve(STAGES_FILE), toJson(sorted));
+         if (tracing) {
+            write(outputDirectory.resolve(SPANS_FILE), toSpans(sorted));
+         }
+      } catch (IOException ioe) {
+         log.debugf("Failed to save Dev Services startup stages: %s", ioe.getMessage());
+      }
+   }
+
+   private static void write(Path file, ObjectNode content) throws IOException {
+      Files.createDirectories(file.getParent());
+      try (OutputStream os = Files.newOutputStream(file)) {
+         mapper.writerWithDefaultPrettyPrinter().writeValue(os, content);
+      }
+   }
+
+   private static ObjectNode toJson(List<StartupStage> stages) {
+      ObjectNode json = mapper.createObjectNode();
+      ArrayNode stagesArray = json.putArray("stages");
+      for (StartupStage stage : stages) {
+         stagesArray.addObject()
+               .put("service", stage.serviceName())
+               .put("stage", stage.stage().label())
+               .put("subject", stage.subject())
+               .put("startEpochMillis", stage.startEpochMillis())
+               .put("durationMillis", stage.durationMillis());
+      }
+      return json;
+   }
+
+   private ObjectNode toSpans(List<StartupStage> stages) {
+      long start = stages.stream().mapToLong(StartupStage::startEpochMillis).min().orElse(anchorEpochMillis);
+      long end = stages.stream().mapToLong(stage -> stage.startEpochMillis() + stage.durationMillis()).max().orElse(start);
+
+      ObjectNode json = mapper.createObjectNode();
+      ObjectNode resourceSpans = json.putArray("resourceSpans").addObject();
+      addAttribute(resourceSpans.putObject("resource").putArray("attributes"), "service.name", "microcks-devservices");
+      ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+      scopeSpans.putObject("scope").put("name", "io.github.microcks.quarkus");
+      ArrayNode spans = scopeSpans.putArray("spans");
+      addSpan(spans, rootSpanId, null, "microcks-devservices startup", start, end, null, null);
+      for (StartupStage stage : stages) {
+         addSpan(spans, randomHex(8), rootSpanId, stage.stage().label(), stage.startEpochMillis(),
+               stage.startEpochMillis() + stage.durationMillis(), stage.serviceName(), stage.subject());
+      }
+      return json;
+   }
+
+   private void addSpan(ArrayNode spans, String spanId, String parentSpanId, String name, long startMillis,
+                        long endMillis, String serviceName, String subject) {
+      ObjectNode span = spans.addObject().put("traceId", traceId).put("spanId", spanId);
+      if (parentSpanId != null) {
+         span.put("parentSpanId", parentSpanId);
+      }
+      // Span kind 1 is INTERNAL. Unix nanos are encoded as strings, like OTLP JSON encoding does for 64 bits integers.
+      span.put("name", name).put("kind", 1)
+            .put("startTimeUnixNano", String.valueOf(TimeUnit.MILLISECONDS.toNanos(startMillis)))
+            .put("endTimeUnixNano", String.valueOf(TimeUnit.MILLISECONDS.toNanos(endMillis)));
+      ArrayNode attributes = span.putArray("attributes");
+      if (serviceName != null) {
+         addAttribute(attributes, "microcks.service", serviceName);
+         if (subject != null) {
+            addAttribute(attributes, "microcks.member", subject);
+         }
+      }
+   }
+
+   private static void addAttribute(ArrayNode attributes, String key, String value) {
+      attributes.addObject().put("key", key).putObject("value").put("stringValue", value);
+   }
+
+   private static String randomHex(int bytes) {
+      byte[] value = new byte[bytes];
+      random.nextBytes(value);
+      StringBuilder hex = new StringBuilder();
+      for (byte b : value) {
+         hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+   }
+}
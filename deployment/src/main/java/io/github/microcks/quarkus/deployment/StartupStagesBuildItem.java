@@ -0,0 +1,42 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.quarkus.builder.item.SimpleBuildItem;
+
+import java.util.List;
+
+/**
+ * The timing of the stages of Microcks Dev Services startup completed at build time, that is the artifacts scans.
+ * Stages of container starts and imports happen once the build is done: they're only saved into the startup stages
+ * file of the build output directory.
+ * @author laurent
+ */
+public final class StartupStagesBuildItem extends SimpleBuildItem {
+
+   private final List<StartupStage> stages;
+
+   StartupStagesBuildItem(List<StartupStage> stages) {
+      this.stages = List.copyOf(stages);
+   }
+
+   /**
+    * @return The stages completed at build time, in start order.
+    */
+   public List<StartupStage> getStages() {
+      return stages;
+   }
+}
@@ -0,0 +1,44 @@
+import { LitElement, html, css } from 'lit';
+import { JsonRpc } from 'jsonrpc';
+
+/**
+ * Lists the Microcks services started by Dev Services, with a link to the UI of each of them.
+ */
+export class QwcMicrocksServices extends LitElement {
+
+    jsonRpc = new JsonRpc(this);
+
+    static styles = css`
+        .services {
+            display: flex;
+            flex-direction: column;
+            gap: 10px;
+            padding: 10px;
+        }
+    `;
+
+    static properties = {
+        _consoleLinks: { state: true }
+    };
+
+    connectedCallback() {
+        super.connectedCallback();
+        this.jsonRpc.getConsoleLinks().then(jsonRpcResponse => {
+            this._consoleLinks = jsonRpcResponse.result;
+        });
+    }
+
+    render() {
+        if (!this._consoleLinks) {
+            return html`<span>Loading Microcks services...</span>`;
+        }
+        return html`<div class="services">
+            ${Object.entries(this._consoleLinks).map(([serviceName, consoleLink]) => html`
+                <div>
+                    <strong>${serviceName}</strong>:
+                    <a href="${consoleLink}" target="_blank">${consoleLink}</a>
+                </div>`)}
+        </div>`;
+    }
+}
+customElements.define('qwc-microcks-services', QwcMicrocksServices);
@@ -0,0 +1,218 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+import java.util.Set;
+
+public class ArtifactImportManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLoadSameContainerRun() {
+        Path manifestFile = tempDir.resolve("microcks/import-manifest-default.properties");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        Assertions.assertTrue(manifest.isEmpty());
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.recordService("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        manifest.save();
+
+        ArtifactImportManifest loaded = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        Assertions.assertFalse(loaded.isEmpty());
+        Assertions.assertTrue(loaded.isImported("/app/pastry-openapi.yaml", "hash1", true));
+        Assertions.assertEquals("Pastry API:1.0.0", loaded.serviceOf("/app/pastry-openapi.yaml"));
+    }
+
+    @Test
+    public void testLoadOtherContainerRun() {
+        Path manifestFile = tempDir.resolve("import-manifest.properties");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.recordSecretCreated("github");
+        manifest.save();
+
+        // A restarted container does not hold anything anymore.
+        ArtifactImportManifest restarted = ArtifactImportManifest.load(manifestFile, "c1@t2");
+        Assertions.assertTrue(restarted.isEmpty());
+        Assertions.assertFalse(restarted.isImported("/app/pastry-openapi.yaml", "hash1", true));
+        Assertions.assertFalse(restarted.isSecretCreated("github"));
+
+        Assertions.assertTrue(ArtifactImportManifest.load(manifestFile, "c2@t1").isEmpty());
+    }
+
+    @Test
+    public void testLoadMissingManifest() {
+        Assertions.assertTrue(ArtifactImportManifest.load(tempDir.resolve("missing.properties"), "c1@t1").isEmpty());
+        Assertions.assertTrue(ArtifactImportManifest.load(null, "c1@t1").isEmpty());
+    }
+
+    @Test
+    public void testIsImportedChecksHashAndKind() {
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(null, "c1@t1");
+        manifest.recordImported("/app/pastry-examples.yaml", "hash1", false);
+
+        Assertions.assertTrue(manifest.isImported("/app/pastry-examples.yaml", "hash1", false));
+        Assertions.assertFalse(manifest.isImported("/app/pastry-examples.yaml", "hash2", false));
+        Assertions.assertFalse(manifest.isImported("/app/pastry-examples.yaml", "hash1", true));
+        Assertions.assertFalse(manifest.isImported("/app/other-examples.yaml", "hash1", false));
+    }
+
+    @Test
+    public void testImportedPrimaries() {
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(null, "c1@t1");
+        Assertions.assertFalse(manifest.hasImportedPrimaries());
+
+        manifest.recordImported("/app/pastry-examples.yaml", "hash1", false);
+        Assertions.assertFalse(manifest.hasImportedPrimaries());
+
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash2", true);
+        Assertions.assertTrue(manifest.hasImportedPrimaries());
+        Assertions.assertTrue(manifest.isPrimaryImported("/app/pastry-openapi.yaml"));
+        Assertions.assertFalse(manifest.isPrimaryImported("/app/pastry-examples.yaml"));
+    }
+
+    @Test
+    public void testImportedPrimariesNotKeptAcrossLoads() {
+        Path manifestFile = tempDir.resolve("import-manifest.properties");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.save();
+
+        ArtifactImportManifest loaded = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        Assertions.assertFalse(loaded.hasImportedPrimaries());
+        Assertions.assertFalse(loaded.isPrimaryImported("/app/pastry-openapi.yaml"));
+    }
+
+    @Test
+    public void testRemoveUnseenArtifacts() {
+        Path manifestFile = tempDir.resolve("import-manifest.properties");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.recordService("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        manifest.recordImported("/app/beer-openapi.yaml", "hash2", true);
+        manifest.recordService("/app/beer-openapi.yaml", "Beer API:1.0.0");
+        manifest.recordImported("/app/broken-openapi.yaml", "hash3", true);
+        manifest.recordService("/app/broken-openapi.yaml", "Broken API:1.0.0");
+        manifest.recordImported("/app/pastry-examples.yaml", "hash4", false);
+        manifest.save();
+
+        ArtifactImportManifest next = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        Assertions.assertTrue(next.isImported("/app/pastry-openapi.yaml", "hash1", true));
+        // Service of an artifact that cannot be read anymore is not stale.
+        next.markSeen("/app/broken-openapi.yaml");
+        Set<String> staleServices = next.removeUnseenArtifacts();
+
+        Assertions.assertEquals(Set.of("Beer API:1.0.0"), staleServices);
+        Assertions.assertNull(next.serviceOf("/app/beer-openapi.yaml"));
+        Assertions.assertFalse(next.isImported("/app/beer-openapi.yaml", "hash2", true));
+        Assertions.assertFalse(next.isImported("/app/pastry-examples.yaml", "hash4", false));
+        Assertions.assertEquals("Pastry API:1.0.0", next.serviceOf("/app/pastry-openapi.yaml"));
+        Assertions.assertEquals("Broken API:1.0.0", next.serviceOf("/app/broken-openapi.yaml"));
+    }
+
+    @Test
+    public void testRemoveUnseenArtifactsOfMovedService() {
+        Path manifestFile = tempDir.resolve("import-manifest.properties");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.recordService("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        manifest.save();
+
+        // Artifact has been renamed, still defining the same service.
+        ArtifactImportManifest next = ArtifactImportManifest.load(manifestFile, "c1@t1");
+        next.recordImported("/app/pastries-openapi.yaml", "hash1", true);
+        next.recordService("/app/pastries-openapi.yaml", "Pastry API:1.0.0");
+
+        Assertions.assertTrue(next.removeUnseenArtifacts().isEmpty());
+        Assertions.assertNull(next.serviceOf("/app/pastry-openapi.yaml"));
+        Assertions.assertEquals(Set.of("Pastry API:1.0.0"), next.services());
+    }
+
+    @Test
+    public void testRecordRestored() {
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(null, "c1@t1");
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.recordService("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        manifest.recordImported("/app/pastry-examples.yaml", "hash2", false);
+        manifest.recordRemoteArtifactImported("https://example.com/beer-openapi.yaml", true);
+        manifest.recordSecretCreated("github");
+
+        Properties artifactEntries = manifest.artifactEntries();
+        Assertions.assertEquals(3, artifactEntries.size());
+
+        // Entries of a snapshot, seeded image or reused container are restored into a new container.
+        artifactEntries.setProperty("snapshot.key", "key");
+        ArtifactImportManifest restored = ArtifactImportManifest.load(null, "c2@t1");
+        restored.recordRestored(artifactEntries);
+
+        Assertions.assertTrue(restored.isImported("/app/pastry-openapi.yaml", "hash1", true));
+        Assertions.assertTrue(restored.isImported("/app/pastry-examples.yaml", "hash2", false));
+        Assertions.assertEquals("Pastry API:1.0.0", restored.serviceOf("/app/pastry-openapi.yaml"));
+        Assertions.assertEquals(Set.of("Pastry API:1.0.0"), restored.services());
+        Assertions.assertFalse(restored.isSecretCreated("github"));
+        Assertions.assertFalse(restored.hasImportedPrimaries());
+        Assertions.assertEquals(artifactEntries.size() - 1, restored.artifactEntries().size());
+    }
+
+    @Test
+    public void testRemoteArtifactsAndSecrets() {
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(null, "c1@t1");
+        Assertions.assertFalse(manifest.hasImportedPrimaries());
+        Assertions.assertFalse(manifest.isSecretCreated("github"));
+
+        manifest.recordRemoteArtifactImported("https://example.com/beer-openapi.yaml", true);
+        manifest.recordSecretCreated("github");
+
+        Assertions.assertTrue(manifest.hasImportedPrimaries());
+        Assertions.assertTrue(manifest.isSecretCreated("github"));
+        Assertions.assertFalse(manifest.isEmpty());
+        // Remote artifacts are not part of snapshots.
+        Assertions.assertTrue(manifest.artifactEntries().isEmpty());
+        // Nor are they unseen artifacts.
+        Assertions.assertTrue(manifest.removeUnseenArtifacts().isEmpty());
+    }
+
+    @Test
+    public void testSha256() throws Exception {
+        Path file = tempDir.resolve("pastry-openapi.yaml");
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                ArtifactImportManifest.sha256(file));
+    }
+
+    @Test
+    public void testContentHashOf() throws Exception {
+        Path file = tempDir.resolve("pastry-openapi.yaml");
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L));
+        Assertions.assertEquals(ArtifactImportManifest.sha256(file), ArtifactImportManifest.contentHashOf(file));
+
+        // A changed file is hashed again, even with the same size.
+        Files.write(file, "abd".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000L));
+        Assertions.assertEquals(ArtifactImportManifest.sha256(file), ArtifactImportManifest.contentHashOf(file));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ArtifactImportMetricsTest {
+
+    @Test
+    public void testSlowestFirst() {
+        ArtifactImportMetrics metrics = new ArtifactImportMetrics();
+        Assertions.assertTrue(metrics.isEmpty());
+
+        metrics.recordSkipped("pastry-examples.yaml", ArtifactImportMetric.Kind.SECONDARY_ARTIFACT, startedAgo(10));
+        metrics.recordWarmedUp("GET /rest/Pastry%20API/1.0.0/pastries", startedAgo(500), 200);
+        metrics.recordSkipped("pastry-openapi.yaml", ArtifactImportMetric.Kind.PRIMARY_ARTIFACT, startedAgo(200));
+
+        List<ArtifactImportMetric> slowestFirst = metrics.slowestFirst();
+        Assertions.assertEquals(3, slowestFirst.size());
+        Assertions.assertEquals("GET /rest/Pastry%20API/1.0.0/pastries", slowestFirst.get(0).name());
+        Assertions.assertEquals(ArtifactImportMetric.Outcome.WARMED_UP, slowestFirst.get(0).outcome());
+        Assertions.assertEquals(200, slowestFirst.get(0).statusCode());
+        Assertions.assertEquals("pastry-openapi.yaml", slowestFirst.get(1).name());
+        Assertions.assertEquals(ArtifactImportMetric.Outcome.SKIPPED, slowestFirst.get(1).outcome());
+        Assertions.assertTrue(slowestFirst.get(1).durationMillis() >= 200);
+        Assertions.assertEquals("pastry-examples.yaml", slowestFirst.get(2).name());
+        Assertions.assertFalse(metrics.isEmpty());
+        Assertions.assertFalse(metrics.hasFailures());
+    }
+
+    @Test
+    public void testRecordFailed() {
+        ArtifactImportMetrics metrics = new ArtifactImportMetrics();
+        metrics.recordFailed("github", ArtifactImportMetric.Kind.SECRET, startedAgo(0), new IOException("Connection refused"));
+
+        ArtifactImportMetric metric = metrics.slowestFirst().get(0);
+        Assertions.assertEquals(ArtifactImportMetric.Outcome.FAILED, metric.outcome());
+        Assertions.assertEquals(ArtifactImportMetric.NO_STATUS, metric.statusCode());
+        Assertions.assertEquals(0, metric.bytes());
+        Assertions.assertTrue(metrics.hasFailures());
+    }
+
+    @Test
+    public void testSummary() {
+        ArtifactImportMetrics metrics = new ArtifactImportMetrics();
+        metrics.recordSkipped("pastry-openapi.yaml", ArtifactImportMetric.Kind.PRIMARY_ARTIFACT, startedAgo(100));
+        metrics.recordFailed("https://example.com/beer-openapi.yaml", ArtifactImportMetric.Kind.REMOTE_PRIMARY_ARTIFACT,
+                startedAgo(300), new IOException("Connection refused"));
+        metrics.recordWarmedUp("GET /rest/Pastry%20API/1.0.0/pastries", startedAgo(0), 200);
+
+        String[] lines = metrics.summary().split(System.lineSeparator());
+        Assertions.assertEquals(5, lines.length);
+        Assertions.assertTrue(lines[0].contains("Time (ms)"));
+        Assertions.assertTrue(lines[1].contains("failed"));
+        Assertions.assertTrue(lines[1].contains("remote primary"));
+        Assertions.assertTrue(lines[1].endsWith("https://example.com/beer-openapi.yaml"));
+        Assertions.assertTrue(lines[2].contains("skipped"));
+        Assertions.assertTrue(lines[2].endsWith("pastry-openapi.yaml"));
+        Assertions.assertTrue(lines[3].contains("warm-up"));
+        Assertions.assertEquals("2 artifacts or secrets, 0.0 KB sent, 1 mocks warmed up", lines[4]);
+    }
+
+    @Test
+    public void testKindOf() {
+        Assertions.assertEquals(ArtifactImportMetric.Kind.PRIMARY_ARTIFACT, ArtifactImportMetric.Kind.of(true, false));
+        Assertions.assertEquals(ArtifactImportMetric.Kind.SECONDARY_ARTIFACT, ArtifactImportMetric.Kind.of(false, false));
+        Assertions.assertEquals(ArtifactImportMetric.Kind.REMOTE_PRIMARY_ARTIFACT, ArtifactImportMetric.Kind.of(true, true));
+        Assertions.assertEquals(ArtifactImportMetric.Kind.REMOTE_SECONDARY_ARTIFACT, ArtifactImportMetric.Kind.of(false, true));
+    }
+
+    private static long startedAgo(long millis) {
+        return System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
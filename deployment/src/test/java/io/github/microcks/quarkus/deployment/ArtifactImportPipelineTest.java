@@ -0,0 +1,119 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ArtifactImportPipelineTest {
+
+    @Test
+    public void testAwaitStage() {
+        AtomicInteger completed = new AtomicInteger();
+        try (ArtifactImportPipeline pipeline = new ArtifactImportPipeline(2, null, new ArtifactImportMetrics())) {
+            for (int i = 0; i < 10; i++) {
+                pipeline.submit(() -> {
+                    sleep(20);
+                    completed.incrementAndGet();
+                });
+            }
+            pipeline.awaitStage();
+            Assertions.assertEquals(10, completed.get());
+
+            // Next stage only waits for its own tasks.
+            pipeline.submit(completed::incrementAndGet);
+            pipeline.awaitStage();
+            Assertions.assertEquals(11, completed.get());
+        }
+    }
+
+    @Test
+    public void testParallelismIsBounded() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try (ArtifactImportPipeline pipeline = new ArtifactImportPipeline(2, null, new ArtifactImportMetrics())) {
+            for (int i = 0; i < 12; i++) {
+                pipeline.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(30);
+                    running.decrementAndGet();
+                });
+            }
+            pipeline.awaitStage();
+        }
+        Assertions.assertTrue(maxRunning.get() <= 2, "At most 2 tasks should run at once, got " + maxRunning.get());
+        Assertions.assertTrue(maxRunning.get() >= 1);
+    }
+
+    @Test
+    public void testSubmitAfter() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        try (ArtifactImportPipeline pipeline = new ArtifactImportPipeline(4, null, new ArtifactImportMetrics())) {
+            CompletableFuture<Void> primary = pipeline.submit(() -> {
+                sleep(100);
+                events.add("primary");
+            });
+            pipeline.submitAfter(primary, () -> events.add("secondary"));
+            pipeline.awaitStage();
+        }
+        Assertions.assertEquals(List.of("primary", "secondary"), events);
+    }
+
+    @Test
+    public void testFailureDoesNotBreakStage() {
+        AtomicInteger completed = new AtomicInteger();
+        try (ArtifactImportPipeline pipeline = new ArtifactImportPipeline(2, null, new ArtifactImportMetrics())) {
+            CompletableFuture<Void> failing = pipeline.submit(() -> {
+                throw new IllegalStateException("Import failure");
+            });
+            pipeline.submitAfter(failing, completed::incrementAndGet);
+            pipeline.submit(completed::incrementAndGet);
+            Assertions.assertDoesNotThrow(pipeline::awaitStage);
+            Assertions.assertFalse(failing.isCompletedExceptionally());
+        }
+        Assertions.assertEquals(2, completed.get());
+    }
+
+    @Test
+    public void testCloseAwaitsTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        ArtifactImportPipeline pipeline = new ArtifactImportPipeline(1, null, new ArtifactImportMetrics());
+        pipeline.submit(() -> {
+            started.countDown();
+            sleep(50);
+            completed.incrementAndGet();
+        });
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        pipeline.close();
+        Assertions.assertEquals(1, completed.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ArtifactImportSnapshotTest {
+
+    private static final String EXPORT = "{\"services\":[{\"name\":\"Pastry API\",\"version\":\"1.0.0\"}]}";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer microcks;
+    private String microcksUrl;
+    private final List<String> exports = new CopyOnWriteArrayList<>();
+    private final List<String> imports = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startMicrocks() throws IOException {
+        // A fake Microcks, only knowing about the Pastry API service.
+        microcks = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        microcks.createContext("/api/services/", exchange -> {
+            if ("/api/services/Pastry API:1.0.0".equals(exchange.getRequestURI().getPath())) {
+                respond(exchange, 200, "{\"id\":\"pastry-id\",\"name\":\"Pastry API\",\"version\":\"1.0.0\"}");
+            } else {
+                respond(exchange, 404, "");
+            }
+        });
+        microcks.createContext("/api/export", exchange -> {
+            exports.add(exchange.getRequestURI().getQuery());
+            respond(exchange, 200, EXPORT);
+        });
+        microcks.createContext("/api/import", exchange -> {
+            try (InputStream is = exchange.getRequestBody()) {
+                imports.add(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            respond(exchange, 201, "");
+        });
+        microcks.start();
+        microcksUrl = "http://localhost:" + microcks.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopMicrocks() {
+        microcks.stop(0);
+    }
+
+    @Test
+    public void testKeyOf() throws Exception {
+        File primary = writeFile("pastry-openapi.yaml", "openapi: 3.0.0");
+        File secondary = writeFile("pastry-examples.yaml", "kind: APIExamples");
+
+        String key = ArtifactImportSnapshot.keyOf("microcks-uber:1.13.0", scanResults(primary, secondary), Optional.empty());
+        Assertions.assertEquals(64, key.length());
+        Assertions.assertEquals(key, ArtifactImportSnapshot.keyOf("microcks-uber:1.13.0", scanResults(primary, secondary),
+                Optional.empty()));
+
+        Assertions.assertNotEquals(key, ArtifactImportSnapshot.keyOf("microcks-uber:1.14.0", scanResults(primary, secondary),
+                Optional.empty()));
+
+        Files.write(secondary.toPath(), "kind: APIExamples\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertNotEquals(key, ArtifactImportSnapshot.keyOf("microcks-uber:1.13.0", scanResults(primary, secondary),
+                Optional.empty()));
+    }
+
+    @Test
+    public void testSaveAndRestore() throws Exception {
+        MicrocksArtifactUploader uploader = MicrocksArtifactUploader.getInstance(false);
+        Path outputDirectory = tempDir.resolve("target");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(null, "c1@t1");
+        manifest.recordImported("/app/pastry-openapi.yaml", "hash1", true);
+        manifest.recordService("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        manifest.recordImported("/app/pastry-examples.yaml", "hash2", false);
+
+        ArtifactImportSnapshot snapshot = new ArtifactImportSnapshot(outputDirectory, "default");
+        snapshot.save(uploader, microcksUrl, "key1", manifest);
+        Assertions.assertEquals(List.of("serviceIds=pastry-id"), exports);
+        Path snapshotFile = outputDirectory.resolve(String.format(ArtifactImportSnapshot.SNAPSHOT_FILE, "default"));
+        Assertions.assertEquals(EXPORT, Files.readString(snapshotFile));
+        Assertions.assertTrue(Files.isRegularFile(outputDirectory.resolve(
+                String.format(ArtifactImportSnapshot.SNAPSHOT_ENTRIES_FILE, "default"))));
+
+        // Snapshot of same artifacts is not exported again.
+        snapshot.save(uploader, microcksUrl, "key1", manifest);
+        Assertions.assertEquals(1, exports.size());
+
+        ArtifactImportManifest newManifest = ArtifactImportManifest.load(null, "c2@t1");
+        Assertions.assertFalse(snapshot.restore(uploader, microcksUrl, "key2", newManifest));
+        Assertions.assertTrue(imports.isEmpty());
+        Assertions.assertTrue(newManifest.isEmpty());
+
+        Assertions.assertTrue(snapshot.restore(uploader, microcksUrl, "key1", newManifest));
+        Assertions.assertEquals(1, imports.size());
+        Assertions.assertTrue(imports.get(0).contains(EXPORT));
+        Assertions.assertTrue(newManifest.isImported("/app/pastry-openapi.yaml", "hash1", true));
+        Assertions.assertTrue(newManifest.isImported("/app/pastry-examples.yaml", "hash2", false));
+        Assertions.assertEquals("Pastry API:1.0.0", newManifest.serviceOf("/app/pastry-openapi.yaml"));
+    }
+
+    @Test
+    public void testSaveUnknownServices() throws Exception {
+        MicrocksArtifactUploader uploader = MicrocksArtifactUploader.getInstance(false);
+        Path outputDirectory = tempDir.resolve("target");
+        ArtifactImportManifest manifest = ArtifactImportManifest.load(null, "c1@t1");
+        manifest.recordImported("/app/beer-openapi.yaml", "hash1", true);
+        manifest.recordService("/app/beer-openapi.yaml", "Beer API:1.0.0");
+
+        ArtifactImportSnapshot snapshot = new ArtifactImportSnapshot(outputDirectory, "default");
+        snapshot.save(uploader, microcksUrl, "key1", manifest);
+        Assertions.assertTrue(exports.isEmpty());
+        Assertions.assertFalse(snapshot.restore(uploader, microcksUrl, "key1", ArtifactImportManifest.load(null, "c2@t1")));
+        Assertions.assertTrue(imports.isEmpty());
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private static ScanResultsBuildItem scanResults(File primary, File secondary) {
+        return new ScanResultsBuildItem("default", Map.of(primary, primary.getName()), Map.of(secondary, secondary.getName()),
+                null, null, null, false, false, false);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+public class ArtifactScanIndexTest {
+
+    private static final Path DIRECTORY = Paths.get("/app/src/main/resources");
+    private static final Path SUBDIRECTORY = Paths.get("/app/src/main/resources/apis");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Path indexFile = tempDir.resolve("microcks/scan-index-default.txt");
+        long lastModified = System.currentTimeMillis() - 60_000;
+        ArtifactScanIndex index = new ArtifactScanIndex("settings");
+        index.put(DIRECTORY, directoryEntry(lastModified));
+        index.save(indexFile);
+
+        ArtifactScanIndex loaded = ArtifactScanIndex.load(indexFile, "settings");
+        ArtifactScanIndex.DirectoryEntry entry = loaded.get(DIRECTORY);
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(lastModified, entry.lastModified);
+        Assertions.assertEquals(1, entry.subdirectories.size());
+        Assertions.assertEquals(SUBDIRECTORY, entry.subdirectories.get(0));
+        Assertions.assertEquals(2, entry.files.size());
+        Assertions.assertEquals("pastry-openapi.yaml", entry.files.get(0).name);
+        Assertions.assertEquals(1234, entry.files.get(0).size);
+        Assertions.assertEquals(lastModified, entry.files.get(0).lastModified);
+        Assertions.assertEquals(ArtifactKind.PRIMARY, entry.files.get(0).kind);
+        Assertions.assertEquals("pastry-examples.yaml", entry.files.get(1).name);
+        Assertions.assertEquals(ArtifactKind.SECONDARY, entry.files.get(1).kind);
+        Assertions.assertFalse(Files.exists(indexFile.resolveSibling(indexFile.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void testLoadWithOtherFingerprint() throws Exception {
+        Path indexFile = tempDir.resolve("scan-index.txt");
+        ArtifactScanIndex index = new ArtifactScanIndex("settings");
+        index.put(DIRECTORY, directoryEntry(System.currentTimeMillis() - 60_000));
+        index.save(indexFile);
+
+        Assertions.assertNull(ArtifactScanIndex.load(indexFile, "other-settings").get(DIRECTORY));
+    }
+
+    @Test
+    public void testLoadUnreadableIndex() throws Exception {
+        Path indexFile = tempDir.resolve("scan-index.txt");
+        Files.write(indexFile, "D\t/app/src/main/resources\t0\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertNull(ArtifactScanIndex.load(indexFile, "settings").get(DIRECTORY));
+
+        Files.write(indexFile, "# Microcks artifacts scan index\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertNull(ArtifactScanIndex.load(indexFile, "settings").get(DIRECTORY));
+
+        Assertions.assertNull(ArtifactScanIndex.load(tempDir.resolve("missing.txt"), "settings").get(DIRECTORY));
+        Assertions.assertNull(ArtifactScanIndex.load(null, "settings").get(DIRECTORY));
+    }
+
+    @Test
+    public void testGetUpToDate() {
+        long lastModified = System.currentTimeMillis() - 60_000;
+        ArtifactScanIndex index = new ArtifactScanIndex("settings");
+        ArtifactScanIndex.DirectoryEntry entry = directoryEntry(lastModified);
+        index.put(DIRECTORY, entry);
+
+        Assertions.assertSame(entry, index.getUpToDate(DIRECTORY, FileTime.fromMillis(lastModified)));
+        Assertions.assertNull(index.getUpToDate(DIRECTORY, FileTime.fromMillis(lastModified + 1)));
+        Assertions.assertNull(index.getUpToDate(SUBDIRECTORY, FileTime.fromMillis(lastModified)));
+    }
+
+    @Test
+    public void testGetUpToDateWhenModifiedWithIndex() {
+        // Directory may have changed in the same instant the index has been produced.
+        long lastModified = System.currentTimeMillis();
+        ArtifactScanIndex index = new ArtifactScanIndex("settings");
+        index.put(DIRECTORY, directoryEntry(lastModified));
+
+        Assertions.assertNull(index.getUpToDate(DIRECTORY, FileTime.fromMillis(lastModified)));
+    }
+
+    private static ArtifactScanIndex.DirectoryEntry directoryEntry(long lastModified) {
+        ArtifactScanIndex.DirectoryEntry entry = new ArtifactScanIndex.DirectoryEntry(lastModified);
+        entry.subdirectories.add(SUBDIRECTORY);
+        entry.files.add(new ArtifactScanIndex.FileEntry("pastry-openapi.yaml", 1234, lastModified, ArtifactKind.PRIMARY));
+        entry.files.add(new ArtifactScanIndex.FileEntry("pastry-examples.yaml", 567, lastModified, ArtifactKind.SECONDARY));
+        return entry;
+    }
+}
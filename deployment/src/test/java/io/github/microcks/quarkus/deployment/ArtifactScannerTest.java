@@ -0,0 +1,217 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.bootstrap.workspace.ArtifactSources;
+import io.quarkus.bootstrap.workspace.SourceDir;
+import io.quarkus.bootstrap.workspace.WorkspaceModule;
+import io.quarkus.deployment.pkg.builditem.CurateOutcomeBuildItem;
+import io.quarkus.maven.dependency.ResolvedDependency;
+import io.quarkus.paths.PathCollection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ArtifactScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testScanResourceDirs() throws Exception {
+        Path mainResources = Files.createDirectories(tempDir.resolve("src/main/resources"));
+        Path testResources = Files.createDirectories(tempDir.resolve("src/test/resources"));
+        Path primary = write(mainResources.resolve("pastry-openapi.yaml"));
+        Path secondary = write(mainResources.resolve("apis/pastry-examples.yaml"));
+        Path collection = write(testResources.resolve("order-postman_collection.json"));
+        write(mainResources.resolve("application.properties"));
+        write(testResources.resolve("apis/v1/too-deep-openapi.yaml"));
+
+        ScanResultsBuildItem results = scan(scanConfig(null, null, 2), List.of(), mainResources, testResources);
+
+        Assertions.assertEquals(Map.of(primary.toFile(), "pastry-openapi.yaml"), results.primary());
+        Assertions.assertEquals(Map.of(secondary.toFile(), "apis/pastry-examples.yaml",
+                collection.toFile(), "order-postman_collection.json"), results.secondary());
+        Assertions.assertTrue(results.aPostmanCollectionIsPresent());
+        Assertions.assertFalse(results.anAsyncAPISpecIsPresent());
+    }
+
+    @Test
+    public void testScanWithoutPrimaryArtifacts() throws Exception {
+        Path mainResources = Files.createDirectories(tempDir.resolve("src/main/resources"));
+        write(mainResources.resolve("order-postman_collection.json"));
+
+        ScanResultsBuildItem results = scan(scanConfig(null, null, 2), List.of(), mainResources, tempDir.resolve("missing"));
+
+        Assertions.assertTrue(results.primary().isEmpty());
+        Assertions.assertTrue(results.secondary().isEmpty());
+        Assertions.assertFalse(results.aPostmanCollectionIsPresent());
+    }
+
+    @Test
+    public void testScanWithGlobsAndDepth() throws Exception {
+        Path mainResources = Files.createDirectories(tempDir.resolve("src/main/resources"));
+        Path included = write(mainResources.resolve("contracts/pastry-openapi.yaml"));
+        Path deep = write(mainResources.resolve("contracts/v1/beer-openapi.yaml"));
+        write(mainResources.resolve("contracts/generated/order-openapi.yaml"));
+        write(mainResources.resolve("other/user-openapi.yaml"));
+        write(mainResources.resolve("contracts/v1/too/deep-openapi.yaml"));
+
+        ScanResultsBuildItem results = scan(scanConfig(List.of("contracts/**"), List.of("contracts/generated"), 3),
+                List.of(), mainResources);
+
+        Assertions.assertEquals(Map.of(included.toFile(), "contracts/pastry-openapi.yaml",
+                deep.toFile(), "contracts/v1/beer-openapi.yaml"), results.primary());
+    }
+
+    @Test
+    public void testScanSymbolicLinks() throws Exception {
+        Path mainResources = Files.createDirectories(tempDir.resolve("src/main/resources"));
+        Path target = write(tempDir.resolve("shared/pastry-openapi.yaml"));
+        Path link = Files.createSymbolicLink(mainResources.resolve("pastry-openapi.yaml"), target);
+        Files.createSymbolicLink(mainResources.resolve("broken-openapi.yaml"), tempDir.resolve("missing-openapi.yaml"));
+
+        ScanResultsBuildItem results = scan(scanConfig(null, null, 2), List.of(), mainResources);
+
+        Assertions.assertEquals(Map.of(link.toFile(), "pastry-openapi.yaml"), results.primary());
+
+        // Index records the size and modification time of the target, not of the link.
+        BasicFileAttributes attrs = ArtifactScanner.regularFileAttributes(link,
+                Files.readAttributes(link, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        Assertions.assertNotNull(attrs);
+        Assertions.assertEquals(Files.size(target), attrs.size());
+        Assertions.assertEquals(Files.getLastModifiedTime(target), attrs.lastModifiedTime());
+    }
+
+    @Test
+    public void testScanDependencyArchives() throws Exception {
+        Path archive = tempDir.resolve("contracts.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            putEntry(zip, "apis/pastry-openapi.yaml");
+            putEntry(zip, "apis/pastry-examples.yaml");
+            putEntry(zip, "META-INF/MANIFEST.MF");
+        }
+        Path moduleOutput = Files.createDirectories(tempDir.resolve("contracts-module/target/classes"));
+        Path moduleArtifact = write(moduleOutput.resolve("beer-asyncapi.yaml"));
+        Path ignoredArchive = tempDir.resolve("ignored.jar");
+        Files.copy(archive, ignoredArchive);
+
+        List<ResolvedDependency> dependencies = List.of(
+                dependency("org.acme", "contracts", archive),
+                dependency("org.acme", "contracts-module", moduleOutput),
+                dependency("org.acme", "ignored", ignoredArchive));
+        ScanResultsBuildItem results = scan(scanConfig(null, null, 2, "org.acme:contracts", "org.acme:contracts-module"),
+                dependencies);
+
+        Assertions.assertEquals(Map.of(moduleArtifact.toFile(), "beer-asyncapi.yaml"), results.primary());
+        Assertions.assertEquals(1, results.packagedPrimary().size());
+        PackagedArtifact primary = results.packagedPrimary().get(0);
+        Assertions.assertEquals(archive, primary.archive());
+        Assertions.assertEquals("apis/pastry-openapi.yaml", primary.entryName());
+        Assertions.assertEquals("org.acme:contracts:1.0.0", primary.dependency());
+        Assertions.assertEquals(1, results.packagedSecondary().size());
+        Assertions.assertEquals("apis/pastry-examples.yaml", results.packagedSecondary().get(0).entryName());
+        Assertions.assertTrue(results.anAsyncAPISpecIsPresent());
+    }
+
+    private static ScanResultsBuildItem scan(MicrocksDevServicesConfig.ScanConfiguration scanConfig,
+                                             List<ResolvedDependency> dependencies, Path... resourceDirs) throws IOException {
+        List<SourceDir> sourceDirs = new ArrayList<>();
+        for (Path resourceDir : resourceDirs) {
+            sourceDirs.add(proxy(SourceDir.class, Map.of("getDir", resourceDir)));
+        }
+        ArtifactSources mainSources = proxy(ArtifactSources.class, Map.of("getResourceDirs", sourceDirs));
+        ArtifactSources testSources = proxy(ArtifactSources.class, Map.of("getResourceDirs", List.of()));
+        WorkspaceModule module = proxy(WorkspaceModule.class, Map.of("getMainSources", mainSources, "getTestSources", testSources));
+        ApplicationModel model = proxy(ApplicationModel.class, Map.of("getApplicationModule", module,
+                "getDependencies", dependencies));
+        return new ArtifactScanner(new CurateOutcomeBuildItem(model), scanConfig, "default").toBuildItem();
+    }
+
+    private static ResolvedDependency dependency(String groupId, String artifactId, Path path) {
+        PathCollection paths = proxy(PathCollection.class, Map.of("iterator", List.of(path).iterator()));
+        return proxy(ResolvedDependency.class, Map.of("getGroupId", groupId, "getArtifactId", artifactId,
+                "getVersion", "1.0.0", "getResolvedPaths", paths));
+    }
+
+    private static MicrocksDevServicesConfig.ScanConfiguration scanConfig(List<String> includes, List<String> excludes,
+                                                                          int maxDepth, String... dependencies) {
+        return new MicrocksDevServicesConfig.ScanConfiguration() {
+            @Override
+            public Optional<List<String>> includes() {
+                return Optional.ofNullable(includes);
+            }
+
+            @Override
+            public Optional<List<String>> excludes() {
+                return Optional.ofNullable(excludes);
+            }
+
+            @Override
+            public int maxDepth() {
+                return maxDepth;
+            }
+
+            @Override
+            public Optional<List<String>> dependencies() {
+                return dependencies.length > 0 ? Optional.of(List.of(dependencies)) : Optional.empty();
+            }
+        };
+    }
+
+    /** Build a stand-in of a bootstrap model interface whose methods return the given values. */
+    private static <T> T proxy(Class<T> type, Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName();
+                }
+            }
+            return values.get(method.getName());
+        }));
+    }
+
+    private static Path write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void putEntry(ZipOutputStream zip, String name) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(name.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ArtifactSuffixMatcherTest {
+
+    private final ArtifactSuffixMatcher matcher = new ArtifactSuffixMatcher(List.of("-openapi.yaml", ".proto", "-soapui-project.xml"),
+            List.of("postman_collection.json", "-examples.yaml", ".har"));
+
+    @Test
+    public void testMatch() {
+        Assertions.assertEquals(ArtifactKind.PRIMARY, matcher.match("pastry-openapi.yaml"));
+        Assertions.assertEquals(ArtifactKind.PRIMARY, matcher.match("pastry.proto"));
+        Assertions.assertEquals(ArtifactKind.PRIMARY, matcher.match("pastry-soapui-project.xml"));
+        Assertions.assertEquals(ArtifactKind.SECONDARY, matcher.match("pastry-examples.yaml"));
+        Assertions.assertEquals(ArtifactKind.SECONDARY, matcher.match("pastry.postman_collection.json"));
+        Assertions.assertEquals(ArtifactKind.SECONDARY, matcher.match("pastry.har"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        Assertions.assertEquals(ArtifactKind.NONE, matcher.match("application.yaml"));
+        Assertions.assertEquals(ArtifactKind.NONE, matcher.match("pastry-openapi.yml"));
+        Assertions.assertEquals(ArtifactKind.NONE, matcher.match("pom.xml"));
+        Assertions.assertEquals(ArtifactKind.NONE, matcher.match("README"));
+        Assertions.assertEquals(ArtifactKind.NONE, matcher.match(""));
+    }
+
+    @Test
+    public void testPrimarySuffixWins() {
+        ArtifactSuffixMatcher overlapping = new ArtifactSuffixMatcher(List.of("-openapi.yaml"), List.of(".yaml"));
+        Assertions.assertEquals(ArtifactKind.PRIMARY, overlapping.match("pastry-openapi.yaml"));
+        Assertions.assertEquals(ArtifactKind.SECONDARY, overlapping.match("pastry-examples.yaml"));
+    }
+
+    @Test
+    public void testBaseName() {
+        Assertions.assertEquals("apis/pastry", matcher.baseName("apis/pastry-openapi.yaml"));
+        Assertions.assertEquals("apis/pastry", matcher.baseName("apis/pastry-examples.yaml"));
+        Assertions.assertEquals("pastry", matcher.baseName("pastry.postman_collection.json"));
+        Assertions.assertEquals("pastry", matcher.baseName("pastry.proto"));
+        Assertions.assertNull(matcher.baseName("application.yaml"));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ContainersEnsembleStartupTest {
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testIndependentMembersStartConcurrently() {
+        StartupStages stages = new StartupStages(null, false);
+        ContainersEnsembleStartup ensemble = new ContainersEnsembleStartup("default", stages);
+        // Independent members only start once both of them are starting.
+        CountDownLatch starting = new CountDownLatch(2);
+        ensemble.register("microcks", new FakeContainer("microcks", starting), true);
+        ensemble.register("postman", new FakeContainer("postman", starting), true);
+        ensemble.register("async-minion", new FakeContainer("async-minion", new CountDownLatch(1)), false);
+
+        ensemble.start("microcks");
+
+        Assertions.assertTrue(started.containsAll(List.of("microcks", "postman")));
+        Assertions.assertFalse(started.contains("async-minion"));
+
+        // Starting an already started member does not start it again.
+        ensemble.start("postman");
+        Assertions.assertEquals(2, started.size());
+
+        ensemble.start("async-minion");
+        Assertions.assertEquals(3, started.size());
+        Assertions.assertTrue(stages.inStartOrder().stream().anyMatch(stage -> stage.stage() == StartupStage.Stage.ENSEMBLE));
+        Assertions.assertTrue(stages.inStartOrder().stream()
+                .anyMatch(stage -> stage.stage() == StartupStage.Stage.IMAGE_PULL && "postman".equals(stage.subject())));
+    }
+
+    @Test
+    public void testStartFailure() {
+        ContainersEnsembleStartup ensemble = new ContainersEnsembleStartup("default", new StartupStages(null, false));
+        ensemble.register("microcks", new FakeContainer("microcks", new CountDownLatch(1)), true);
+        ensemble.register("postman", new FakeContainer("postman", null), true);
+
+        IllegalStateException failure = Assertions.assertThrows(IllegalStateException.class, () -> ensemble.start("postman"));
+        Assertions.assertEquals("postman cannot start", failure.getMessage());
+        ensemble.start("microcks");
+        Assertions.assertTrue(started.contains("microcks"));
+    }
+
+    /** A container whose start waits for other containers to be starting, or fails if there's nothing to wait for. */
+    private final class FakeContainer extends GenericContainer<FakeContainer> {
+        private final String name;
+        private final CountDownLatch starting;
+
+        private FakeContainer(String name, CountDownLatch starting) {
+            super(DockerImageName.parse("quay.io/microcks/" + name));
+            this.name = name;
+            this.starting = starting;
+        }
+
+        @Override
+        public String getDockerImageName() {
+            return "quay.io/microcks/" + name;
+        }
+
+        @Override
+        public void start() {
+            if (starting == null) {
+                throw new IllegalStateException(name + " cannot start");
+            }
+            starting.countDown();
+            try {
+                if (!starting.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException(name + " has been started alone");
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            started.add(name);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import io.quarkus.runtime.LaunchMode;
+import io.quarkus.runtime.configuration.DurationConverter;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class DevServicesMicrocksProcessorTest {
+
+    @Test
+    public void testDevServicesConfigs() {
+        MicrocksDevServicesConfig defaultConfig = devServicesConfig("default");
+        MicrocksDevServicesConfig payments = devServicesConfig("default");
+        MicrocksDevServicesConfig orders = devServicesConfig("orders-service");
+        MicrocksDevServicesConfig duplicate = devServicesConfig("orders-service");
+        Map<String, MicrocksBuildTimeConfig.DevServiceConfiguration> namedDevServices = new LinkedHashMap<>();
+        namedDevServices.put("payments", devServiceConfiguration(payments));
+        namedDevServices.put("orders", devServiceConfiguration(orders));
+        namedDevServices.put("other-orders", devServiceConfiguration(duplicate));
+
+        Map<String, MicrocksDevServicesConfig> configs = DevServicesMicrocksProcessor.devServicesConfigs(
+                buildTimeConfig(devServiceConfiguration(defaultConfig), namedDevServices));
+
+        // Default Dev Service comes first, then named ones sorted by name, a named one using its name as service name.
+        Assertions.assertEquals(List.of("default", "orders-service", "payments"), List.copyOf(configs.keySet()));
+        Assertions.assertSame(defaultConfig, configs.get("default"));
+        Assertions.assertSame(orders, configs.get("orders-service"));
+        Assertions.assertSame(payments, configs.get("payments"));
+    }
+
+    @Test
+    public void testNamedDevServicesMapping() {
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withConverter(Duration.class, 100, new DurationConverter())
+                .withMapping(MicrocksBuildTimeConfig.class)
+                .withValidateUnknown(false)
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.microcks.services.payments.devservices.artifacts.primaries", "target/classes/payments-openapi.yaml",
+                        // Runtime properties published for each Microcks container are not named Dev Services.
+                        "quarkus.microcks.payments.http", "http://localhost:8585",
+                        "quarkus.microcks.orders.http", "http://localhost:8586"), "test", 100))
+                .build();
+
+        Map<String, MicrocksDevServicesConfig> configs = DevServicesMicrocksProcessor.devServicesConfigs(
+                config.getConfigMapping(MicrocksBuildTimeConfig.class));
+        Assertions.assertEquals(List.of("default", "payments"), List.copyOf(configs.keySet()));
+        Assertions.assertEquals(List.of("target/classes/payments-openapi.yaml"),
+                configs.get("payments").artifacts().orElseThrow().primaries());
+    }
+
+    @Test
+    public void testReusableInTests() {
+        ScanResultsBuildItem scanResults = new ScanResultsBuildItem("default");
+
+        Assertions.assertTrue(DevServicesMicrocksProcessor.reusableInTests(reusableConfig(false), scanResults, LaunchMode.TEST));
+        Assertions.assertFalse(DevServicesMicrocksProcessor.reusableInTests(reusableConfig(false), scanResults, LaunchMode.DEVELOPMENT));
+        // Port forwarding container used for host access does not outlive the test JVM.
+        Assertions.assertFalse(DevServicesMicrocksProcessor.reusableInTests(reusableConfig(true), scanResults, LaunchMode.TEST));
+    }
+
+    private static MicrocksBuildTimeConfig buildTimeConfig(MicrocksBuildTimeConfig.DevServiceConfiguration defaultDevService,
+                                                           Map<String, MicrocksBuildTimeConfig.DevServiceConfiguration> namedDevServices) {
+        return new MicrocksBuildTimeConfig() {
+            @Override
+            public DevServiceConfiguration defaultDevService() {
+                return defaultDevService;
+            }
+
+            @Override
+            public Map<String, DevServiceConfiguration> namedDevServices() {
+                return namedDevServices;
+            }
+        };
+    }
+
+    private static MicrocksBuildTimeConfig.DevServiceConfiguration devServiceConfiguration(MicrocksDevServicesConfig config) {
+        return () -> config;
+    }
+
+    /** Build a Dev Services configuration asking for reuse in tests, without any ensemble. */
+    private static MicrocksDevServicesConfig reusableConfig(boolean hostAccess) {
+        MicrocksDevServicesConfig.EnsembleConfiguration ensemble = (MicrocksDevServicesConfig.EnsembleConfiguration) Proxy.newProxyInstance(
+                MicrocksDevServicesConfig.class.getClassLoader(), new Class<?>[] { MicrocksDevServicesConfig.EnsembleConfiguration.class },
+                (proxy, method, args) -> false);
+        Map<String, Object> values = Map.of("reuseInTests", true, "hostAccess", hostAccess, "ensemble", ensemble,
+                "artifacts", Optional.empty());
+        return (MicrocksDevServicesConfig) Proxy.newProxyInstance(MicrocksDevServicesConfig.class.getClassLoader(),
+                new Class<?>[] { MicrocksDevServicesConfig.class }, (proxy, method, args) -> values.get(method.getName()));
+    }
+
+    /** Build a Dev Services configuration only telling its service name. */
+    private static MicrocksDevServicesConfig devServicesConfig(String serviceName) {
+        return (MicrocksDevServicesConfig) Proxy.newProxyInstance(MicrocksDevServicesConfig.class.getClassLoader(),
+                new Class<?>[] { MicrocksDevServicesConfig.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "serviceName":
+                            return serviceName;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
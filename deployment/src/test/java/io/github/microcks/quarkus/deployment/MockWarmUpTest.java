@@ -0,0 +1,126 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.microcks.quarkus.runtime.MicrocksArtifactUploader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MockWarmUpTest {
+
+    private final List<String> mockCalls = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private String microcksUrl;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        // A fake Microcks, knowing about a REST and a GraphQL service.
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/services/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/api/services/Pastry API:1.0.0")) {
+                respond(exchange, 200, "{\"service\":{\"id\":\"pastry-id\",\"name\":\"Pastry API\",\"version\":\"1.0.0\",\"type\":\"REST\","
+                        + "\"operations\":[{\"name\":\"GET /pastries\",\"method\":\"GET\",\"resourcePaths\":[\"/pastries\"]},"
+                        + "{\"name\":\"GET /pastries/{name}\",\"method\":\"GET\",\"resourcePaths\":[\"/pastries/Eclair Chocolat\"]},"
+                        + "{\"name\":\"DELETE /pastries/{name}\",\"method\":\"DELETE\",\"resourcePaths\":[\"/pastries/Eclair Chocolat\"]}]},"
+                        + "\"messagesMap\":{\"GET /pastries/{name}\":[{\"request\":{\"content\":\"{}\",\"headers\":["
+                        + "{\"name\":\"Accept\",\"values\":[\"application/json\"]},{\"name\":\"Host\",\"values\":[\"example.com\"]}],"
+                        + "\"queryParameters\":[{\"name\":\"size\",\"value\":\"S\"}]},"
+                        + "\"response\":{\"dispatchCriteria\":\"/name=Eclair Chocolat\"}}]}}");
+            } else if (path.equals("/api/services/Pastry Graph API:1.0.0")) {
+                respond(exchange, 200, "{\"service\":{\"id\":\"graph-id\",\"name\":\"Pastry Graph API\",\"version\":\"1.0.0\","
+                        + "\"type\":\"GRAPHQL\",\"operations\":[{\"name\":\"allPastries\",\"method\":\"QUERY\",\"resourcePaths\":[]}]},"
+                        + "\"messagesMap\":{}}");
+            } else {
+                respond(exchange, 404, "");
+            }
+        });
+        server.createContext("/rest/", exchange -> {
+            String body;
+            try (InputStream is = exchange.getRequestBody()) {
+                body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            mockCalls.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawPath()
+                    + (exchange.getRequestURI().getRawQuery() != null ? "?" + exchange.getRequestURI().getRawQuery() : "")
+                    + " " + exchange.getRequestHeaders().getFirst("Accept") + " " + body);
+            respond(exchange, 200, "[]");
+        });
+        server.start();
+        microcksUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testWarmUp() {
+        ArtifactImportMetrics metrics = new ArtifactImportMetrics();
+        new MockWarmUp(MicrocksArtifactUploader.getInstance(false).client(), 2, 2).warmUp(microcksUrl, List.of("Pastry API:1.0.0", "Pastry Graph API:1.0.0", "Beer API:1.0.0"), metrics);
+
+        // Only safe operations of REST mocks are called, each example request being replayed as many times as iterations.
+        Assertions.assertEquals(4, mockCalls.size());
+        Assertions.assertEquals(2, mockCalls.stream().filter(call -> call.startsWith("GET /rest/Pastry%20API/1.0.0/pastries ")).count());
+        Assertions.assertEquals(2, mockCalls.stream()
+                .filter("GET /rest/Pastry%20API/1.0.0/pastries/Eclair%20Chocolat?size=S application/json {}"::equals).count());
+
+        List<ArtifactImportMetric> warmedUp = metrics.slowestFirst();
+        Assertions.assertEquals(2, warmedUp.size());
+        for (ArtifactImportMetric metric : warmedUp) {
+            Assertions.assertEquals(ArtifactImportMetric.Outcome.WARMED_UP, metric.outcome());
+            Assertions.assertEquals(200, metric.statusCode());
+        }
+        Assertions.assertFalse(metrics.hasFailures());
+    }
+
+    @Test
+    public void testResourcePath() {
+        Assertions.assertEquals("/pastries/Eclair%20Chocolat", MockWarmUp.resourcePath("GET /pastries/{name}", "/name=Eclair Chocolat"));
+        Assertions.assertEquals("/pets/1/owners/2", MockWarmUp.resourcePath("GET /pets/:id/owners/:owner", "/id=1/owner=2"));
+        Assertions.assertEquals("/pastries?size=S", MockWarmUp.resourcePath("GET /pastries", "?size=S"));
+        Assertions.assertEquals("/pastries/Eclair?size=S&type=sweet",
+                MockWarmUp.resourcePath("GET /pastries/{name}", "/name=Eclair?size=S&type=sweet"));
+        Assertions.assertEquals("/pastries", MockWarmUp.resourcePath("GET /pastries", ""));
+    }
+
+    @Test
+    public void testResourcePathWithUnknownParameters() {
+        Assertions.assertNull(MockWarmUp.resourcePath("GET /pastries/{name}", ""));
+        Assertions.assertNull(MockWarmUp.resourcePath("GET /pets/:id", "/owner=2"));
+        Assertions.assertNull(MockWarmUp.resourcePath("PlaceOrder", "/id=1"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OnDemandContainerProxyTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicInteger starts = new AtomicInteger();
+    private HttpServer target;
+    private String targetUrl;
+    private OnDemandContainerProxy proxy;
+
+    @BeforeEach
+    public void startTarget() throws IOException {
+        // A fake container, echoing what it receives.
+        target = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        target.createContext("/", exchange -> {
+            String body;
+            try (InputStream is = exchange.getRequestBody()) {
+                body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            byte[] echo = (exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + body
+                    + " " + exchange.getRequestHeaders().getFirst("X-Request-Id")
+                    + " " + exchange.getRequestHeaders().getFirst("Proxy-Authorization")).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("X-Response-Id", "42");
+            exchange.sendResponseHeaders(201, echo.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(echo);
+            }
+        });
+        target.start();
+        targetUrl = "http://localhost:" + target.getAddress().getPort();
+        proxy = new OnDemandContainerProxy("postman");
+    }
+
+    @AfterEach
+    public void stopTarget() {
+        proxy.close();
+        target.stop(0);
+    }
+
+    @Test
+    public void testTargetStartedOnFirstRequest() throws Exception {
+        proxy.target(() -> {
+            starts.incrementAndGet();
+            return targetUrl;
+        });
+        Assertions.assertEquals(0, starts.get());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(proxyUrl() + "/tests/run?id=1"))
+                .header("X-Request-Id", "abc")
+                .header("Proxy-Authorization", "Basic dropped")
+                .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(201, response.statusCode());
+        Assertions.assertEquals("POST /tests/run?id=1 {} abc null", response.body());
+        Assertions.assertEquals("42", response.headers().firstValue("X-Response-Id").orElse(null));
+
+        Assertions.assertEquals(201, client.send(HttpRequest.newBuilder(URI.create(proxyUrl() + "/health")).build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(1, starts.get());
+    }
+
+    @Test
+    public void testLargeBodiesStreamed() throws Exception {
+        proxy.target(() -> targetUrl);
+        String payload = "x".repeat(4 * 1024 * 1024);
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(proxyUrl() + "/tests/run"))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(201, response.statusCode());
+        Assertions.assertEquals("POST /tests/run " + payload + " null null", response.body());
+    }
+
+    @Test
+    public void testTargetFailingToStart() throws Exception {
+        proxy.target(() -> {
+            starts.incrementAndGet();
+            throw new IllegalStateException("No Docker daemon");
+        });
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(503, client.send(HttpRequest.newBuilder(URI.create(proxyUrl() + "/health")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        // Start is not attempted again.
+        Assertions.assertEquals(1, starts.get());
+    }
+
+    @Test
+    public void testNoTarget() throws Exception {
+        Assertions.assertEquals(503, client.send(HttpRequest.newBuilder(URI.create(proxyUrl() + "/health")).build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private String proxyUrl() {
+        return "http://localhost:" + proxy.port();
+    }
+}
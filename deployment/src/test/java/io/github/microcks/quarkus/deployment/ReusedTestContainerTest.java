@@ -0,0 +1,80 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class ReusedTestContainerTest {
+
+    private static final String IMAGE_NAME = "quay.io/microcks/microcks-uber:1.13.0-native";
+
+    @Test
+    public void testLabelValue() {
+        Map<String, String> env = new LinkedHashMap<>();
+        env.put("SERVICES_UPDATE_INTERVAL", "0");
+        env.put("KEYCLOAK_ENABLED", "false");
+        Map<String, String> reorderedEnv = new LinkedHashMap<>();
+        reorderedEnv.put("KEYCLOAK_ENABLED", "false");
+        reorderedEnv.put("SERVICES_UPDATE_INTERVAL", "0");
+
+        String labelValue = ReusedTestContainer.labelValue("default", config(IMAGE_NAME, env));
+        Assertions.assertTrue(labelValue.matches("default-[0-9a-f]{12}"), labelValue);
+        Assertions.assertEquals(labelValue, ReusedTestContainer.labelValue("default", config(IMAGE_NAME, reorderedEnv)));
+
+        Assertions.assertNotEquals(labelValue, ReusedTestContainer.labelValue("default",
+                config("quay.io/microcks/microcks-uber:1.12.1", env)));
+        Assertions.assertNotEquals(labelValue, ReusedTestContainer.labelValue("default",
+                config(IMAGE_NAME, Map.of("KEYCLOAK_ENABLED", "false"))));
+        Assertions.assertTrue(ReusedTestContainer.labelValue("payments", config(IMAGE_NAME, env)).startsWith("payments-"));
+    }
+
+    @Test
+    public void testAcquireLease() {
+        String labelValue = "default-" + UUID.randomUUID();
+        Assertions.assertTrue(ReusedTestContainer.acquireLease(labelValue));
+        // This JVM keeps the lease it holds.
+        Assertions.assertTrue(ReusedTestContainer.acquireLease(labelValue));
+    }
+
+    @Test
+    public void testAcquireLeaseHeldElsewhere() throws IOException {
+        String labelValue = "default-" + UUID.randomUUID();
+        Path lockFile = Path.of(System.getProperty("java.io.tmpdir"), ReusedTestContainer.LABEL + "-" + labelValue + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            Assertions.assertFalse(ReusedTestContainer.acquireLease(labelValue));
+        }
+        // Refusal is kept even once the lease is released, so that a JVM never switches containers.
+        Assertions.assertFalse(ReusedTestContainer.acquireLease(labelValue));
+    }
+
+    private static MicrocksDevServicesConfig config(String imageName, Map<String, String> containerEnv) {
+        Map<String, Object> values = Map.of("imageName", imageName, "containerEnv", containerEnv);
+        return (MicrocksDevServicesConfig) Proxy.newProxyInstance(MicrocksDevServicesConfig.class.getClassLoader(),
+                new Class<?>[] { MicrocksDevServicesConfig.class }, (proxy, method, args) -> values.get(method.getName()));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.model.Image;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class SeededImageTest {
+
+    private static final long CREATED_SECONDS = 1_700_000_000L;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testName() {
+        SeededImage image = new SeededImage("quay.io/microcks/microcks-uber:1.13.0", "4f2a", 5);
+        Assertions.assertEquals("microcks-devservices-seeded:4f2a", image.name());
+    }
+
+    @Test
+    public void testLastUsed() {
+        Assertions.assertEquals(CREATED_SECONDS * 1000, SeededImage.lastUsed(image("microcks-devservices-seeded:4f2a")));
+        Assertions.assertEquals(1_800_000_000_000L, SeededImage.lastUsed(image("microcks-devservices-seeded:4f2a",
+                "microcks-devservices-seeded:4f2a-used-1750000000000", "microcks-devservices-seeded:4f2a-used-1800000000000")));
+        // Tags that only look like usage tags are ignored.
+        Assertions.assertEquals(CREATED_SECONDS * 1000, SeededImage.lastUsed(image("microcks-devservices-seeded:4f2a-used-yesterday")));
+        Assertions.assertEquals(CREATED_SECONDS * 1000, SeededImage.lastUsed(image()));
+    }
+
+    /** Build an image as listed by the Docker daemon. */
+    private Image image(String... tags) {
+        return mapper.convertValue(Map.of("Id", "sha256:4f2a", "Created", CREATED_SECONDS, "RepoTags", List.of(tags)), Image.class);
+    }
+}
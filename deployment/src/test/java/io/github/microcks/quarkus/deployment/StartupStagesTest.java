@@ -0,0 +1,132 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.deployment;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class StartupStagesTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testInStartOrder() {
+        StartupStages stages = new StartupStages(null, false);
+        long now = System.nanoTime();
+        stages.record("default", StartupStage.Stage.IMPORT_ARTIFACTS, null, now - TimeUnit.MILLISECONDS.toNanos(100), now);
+        stages.record("default", StartupStage.Stage.IMAGE_PULL, "microcks", now - TimeUnit.MILLISECONDS.toNanos(900),
+                now - TimeUnit.MILLISECONDS.toNanos(400));
+
+        List<StartupStage> inStartOrder = stages.inStartOrder();
+        Assertions.assertEquals(2, inStartOrder.size());
+        Assertions.assertEquals(StartupStage.Stage.IMAGE_PULL, inStartOrder.get(0).stage());
+        Assertions.assertEquals("microcks", inStartOrder.get(0).subject());
+        Assertions.assertEquals(500, inStartOrder.get(0).durationMillis());
+        Assertions.assertEquals(StartupStage.Stage.IMPORT_ARTIFACTS, inStartOrder.get(1).stage());
+        Assertions.assertNull(inStartOrder.get(1).subject());
+        Assertions.assertEquals(100, inStartOrder.get(1).durationMillis());
+    }
+
+    @Test
+    public void testSavedOnceEveryServiceCompleted() throws Exception {
+        StartupStages stages = new StartupStages(tempDir, false);
+        stages.starting(List.of("default", "orders"));
+        stages.record("default", StartupStage.Stage.SCAN, null, System.nanoTime());
+        stages.record("orders", StartupStage.Stage.IMPORT_ARTIFACTS, null, System.nanoTime());
+
+        Path stagesFile = tempDir.resolve(StartupStages.STAGES_FILE);
+        stages.completed("default");
+        Assertions.assertFalse(Files.exists(stagesFile));
+        stages.completed("orders");
+        Assertions.assertTrue(Files.exists(stagesFile));
+        Assertions.assertFalse(Files.exists(tempDir.resolve(StartupStages.SPANS_FILE)));
+
+        JsonNode saved = mapper.readTree(stagesFile.toFile()).path("stages");
+        Assertions.assertEquals(2, saved.size());
+        Assertions.assertEquals("default", saved.get(0).path("service").asText());
+        Assertions.assertEquals("scan", saved.get(0).path("stage").asText());
+        Assertions.assertTrue(saved.get(0).path("subject").isNull());
+        Assertions.assertEquals("orders", saved.get(1).path("service").asText());
+        Assertions.assertEquals("import artifacts", saved.get(1).path("stage").asText());
+    }
+
+    @Test
+    public void testLateStagesSaved() throws Exception {
+        StartupStages stages = new StartupStages(tempDir, false);
+        stages.starting(List.of("default"));
+        stages.record("default", StartupStage.Stage.SCAN, null, System.nanoTime());
+        stages.completed("default");
+
+        // Members started on demand record their stages after startup, they're saved on close only.
+        stages.record("default", StartupStage.Stage.CONTAINER_START, "postman", System.nanoTime());
+        Path stagesFile = tempDir.resolve(StartupStages.STAGES_FILE);
+        Assertions.assertEquals(1, mapper.readTree(stagesFile.toFile()).path("stages").size());
+        stages.close();
+        JsonNode saved = mapper.readTree(stagesFile.toFile()).path("stages");
+        Assertions.assertEquals(2, saved.size());
+        Assertions.assertEquals("postman", saved.get(1).path("subject").asText());
+    }
+
+    @Test
+    public void testSavedOnCloseWhenStartupFailed() throws Exception {
+        StartupStages stages = new StartupStages(tempDir, false);
+        stages.starting(List.of("default", "orders"));
+        stages.record("default", StartupStage.Stage.IMAGE_PULL, "microcks", System.nanoTime());
+        stages.completed("default");
+
+        Path stagesFile = tempDir.resolve(StartupStages.STAGES_FILE);
+        Assertions.assertFalse(Files.exists(stagesFile));
+        stages.close();
+        Assertions.assertEquals(1, mapper.readTree(stagesFile.toFile()).path("stages").size());
+
+        // Nothing new to save.
+        Files.delete(stagesFile);
+        stages.close();
+        Assertions.assertFalse(Files.exists(stagesFile));
+    }
+
+    @Test
+    public void testSavedAsSpans() throws Exception {
+        StartupStages stages = new StartupStages(tempDir, true);
+        stages.starting(List.of("default"));
+        stages.record("default", StartupStage.Stage.CONTAINER_START, "microcks", System.nanoTime());
+        stages.completed("default");
+
+        JsonNode spans = mapper.readTree(tempDir.resolve(StartupStages.SPANS_FILE).toFile())
+                .path("resourceSpans").get(0).path("scopeSpans").get(0).path("spans");
+        Assertions.assertEquals(2, spans.size());
+        JsonNode root = spans.get(0);
+        JsonNode child = spans.get(1);
+        Assertions.assertEquals("microcks-devservices startup", root.path("name").asText());
+        Assertions.assertFalse(root.has("parentSpanId"));
+        Assertions.assertEquals("container start", child.path("name").asText());
+        Assertions.assertEquals(root.path("traceId").asText(), child.path("traceId").asText());
+        Assertions.assertEquals(root.path("spanId").asText(), child.path("parentSpanId").asText());
+        Assertions.assertEquals(32, root.path("traceId").asText().length());
+        Assertions.assertEquals("microcks", child.path("attributes").get(1).path("value").path("stringValue").asText());
+    }
+}
@@ -15,24 +15,105 @@
  */
 package io.github.microcks.quarkus.test;
 
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerPort;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.testcontainers.DockerClientFactory;
 
 import io.quarkus.test.QuarkusDevModeTest;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class MicrocksQuarkusDevModeTest {
 
+    private static final String SERVICE_NAME = "microcks-hot-reload-test";
+    private static final String PASTRIES = "/rest/Pastry+API/1.0.0/pastries/";
+
     // Start hot reload (DevMode) test with your extension loaded
     @RegisterExtension
     static final QuarkusDevModeTest devModeTest = new QuarkusDevModeTest()
-        .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class));
+        .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class)
+            .addAsResource("hot-reload/pastry-openapi.yaml", "pastry-openapi.yaml")
+            .addAsResource("hot-reload/pastry-examples.yaml", "pastry-examples.yaml")
+            .addAsResource("hot-reload/application.properties", "application.properties"));
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    @Order(1)
+    public void testModifiedPrimaryKeepsSecondaryExamples() throws Exception {
+        String microcksUrl = microcksUrl();
+        Assertions.assertTrue(get(microcksUrl + PASTRIES + "Tartelette").contains("2.0"));
+        Assertions.assertTrue(get(microcksUrl + PASTRIES + "Eclair").contains("2.5"));
+
+        devModeTest.modifyResourceFile("pastry-openapi.yaml", content -> content.replace("price: 2.0", "price: 2.1"));
+        awaitReload(() -> get(microcksUrl + PASTRIES + "Tartelette").contains("2.1"));
+
+        // Examples of the secondary artifact have been re-applied to the re-imported service.
+        Assertions.assertTrue(get(microcksUrl + PASTRIES + "Eclair").contains("2.5"));
+    }
 
     @Test
-    public void writeYourOwnDevModeTest() {
-        // Write your dev mode tests here - see the testing extension guide https://quarkus.io/guides/writing-extensions#testing-hot-reload for more information
-        Assertions.assertTrue(true, "Add dev mode assertions to " + getClass().getName());
+    @Order(2)
+    public void testDeletedPrimaryRemovesService() throws Exception {
+        String microcksUrl = microcksUrl();
+        Assertions.assertTrue(get(microcksUrl + "/api/services").contains("Pastry API"));
+
+        devModeTest.deleteResourceFile("pastry-openapi.yaml");
+        awaitReload(() -> !get(microcksUrl + "/api/services").contains("Pastry API"));
+    }
+
+    private static String microcksUrl() {
+        List<Container> containers = DockerClientFactory.instance().client().listContainersCmd()
+            .withLabelFilter(Map.of("quarkus-dev-service-microcks", SERVICE_NAME))
+            .exec();
+        Assertions.assertFalse(containers.isEmpty(), "Microcks container should be running");
+        for (ContainerPort port : containers.get(0).getPorts()) {
+            if (port.getPrivatePort() != null && port.getPrivatePort() == 8080 && port.getPublicPort() != null) {
+                return "http://localhost:" + port.getPublicPort();
+            }
+        }
+        throw new AssertionError("Microcks container does not expose port 8080");
+    }
+
+    private String get(String url) {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? response.body() : "";
+        } catch (IOException ioe) {
+            return "";
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    private void awaitReload(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            // Changes are only scanned for when the application gets a request.
+            get("http://localhost:8080/");
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(500);
+        }
+        Assertions.fail("Artifacts have not been reloaded into Microcks");
     }
 }
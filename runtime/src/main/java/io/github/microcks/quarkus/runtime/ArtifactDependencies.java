@@ -0,0 +1,89 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoding of the links between primary artifacts and the secondary artifacts that have to be re-imported
+ * with them, so that Dev Service can publish them as a single configuration property for hot reload.
+ * Format is {@code primary=secondary1;secondary2,otherPrimary=secondary3} where each artifact is Url encoded.
+ * @author laurent
+ */
+public final class ArtifactDependencies {
+
+   private static final String ENTRY_SEPARATOR = ",";
+   private static final String KEY_SEPARATOR = "=";
+   private static final String VALUE_SEPARATOR = ";";
+
+   private ArtifactDependencies() {
+      // Hide the implicit default constructor.
+   }
+
+   /**
+    * Encode dependencies as a property value.
+    * @param secondariesByPrimary The secondary artifacts by primary artifact
+    * @return The encoded value, empty if there's no dependency.
+    */
+   public static String encode(Map<String, List<String>> secondariesByPrimary) {
+      StringBuilder encoded = new StringBuilder();
+      for (Map.Entry<String, List<String>> entry : secondariesByPrimary.entrySet()) {
+         if (entry.getValue().isEmpty()) {
+            continue;
+         }
+         if (encoded.length() > 0) {
+            encoded.append(ENTRY_SEPARATOR);
+         }
+         encoded.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8)).append(KEY_SEPARATOR);
+         for (int i = 0; i < entry.getValue().size(); i++) {
+            if (i > 0) {
+               encoded.append(VALUE_SEPARATOR);
+            }
+            encoded.append(URLEncoder.encode(entry.getValue().get(i), StandardCharsets.UTF_8));
+         }
+      }
+      return encoded.toString();
+   }
+
+   /**
+    * Decode dependencies from a property value.
+    * @param encoded The encoded value, may be null or empty
+    * @return The secondary artifacts by primary artifact.
+    */
+   public static Map<String, List<String>> decode(String encoded) {
+      Map<String, List<String>> secondariesByPrimary = new LinkedHashMap<>();
+      if (encoded == null || encoded.isEmpty()) {
+         return secondariesByPrimary;
+      }
+      for (String entry : encoded.split(ENTRY_SEPARATOR)) {
+         int separatorIndex = entry.indexOf(KEY_SEPARATOR);
+         if (separatorIndex > 0) {
+            List<String> secondaries = new ArrayList<>();
+            for (String secondary : entry.substring(separatorIndex + 1).split(VALUE_SEPARATOR)) {
+               secondaries.add(URLDecoder.decode(secondary, StandardCharsets.UTF_8));
+            }
+            secondariesByPrimary.put(URLDecoder.decode(entry.substring(0, separatorIndex), StandardCharsets.UTF_8), secondaries);
+         }
+      }
+      return secondariesByPrimary;
+   }
+}
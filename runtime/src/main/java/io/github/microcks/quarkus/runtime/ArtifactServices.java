@@ -0,0 +1,130 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The services imported into Microcks from each primary artifact, as {@code name:version}, so that they can be
+ * deleted when their artifact is deleted. Dev Service publishes them as a single configuration property for hot
+ * reload, with format {@code artifact=name:version,otherArtifact=name:version} where each part is Url encoded.
+ * @author laurent
+ */
+public final class ArtifactServices {
+
+   /** Suffixes of the primary artifacts, the ones that define services in Microcks. */
+   public static final List<String> PRIMARY_ARTIFACT_SUFFIXES = List.of("-openapi.yml", "-openapi.yaml", "-openapi.json",
+         ".proto", ".graphql", "-asyncapi.yml", "-asyncapi.yaml", "-asyncapi.json", "-soapui-project.xml");
+
+   private static final String ENTRY_SEPARATOR = ",";
+   private static final String KEY_SEPARATOR = "=";
+
+   private final Map<String, String> serviceByArtifact = new ConcurrentHashMap<>();
+
+   /**
+    * Get the service imported from an upload response.
+    * @param result The result of a primary artifact upload
+    * @return The service name and version, or null if response does not tell.
+    */
+   public static String serviceOf(MicrocksArtifactUploader.UploadResult result) {
+      String body = result.body() != null ? result.body().trim() : "";
+      return body.indexOf(':') > 0 ? body : null;
+   }
+
+   /**
+    * Tell whether a file is named like a primary artifact.
+    * @param path The path or simple name of the file
+    * @return True if it ends with one of the primary artifact suffixes.
+    */
+   public static boolean isPrimaryArtifact(String path) {
+      return PRIMARY_ARTIFACT_SUFFIXES.stream().anyMatch(path::endsWith);
+   }
+
+   /**
+    * Record the service imported from an artifact, replacing the previous one.
+    * @param artifact The absolute path or key of artifact
+    * @param serviceId The service name and version, ignored if null
+    */
+   public void put(String artifact, String serviceId) {
+      if (serviceId != null) {
+         serviceByArtifact.put(artifact, serviceId);
+      }
+   }
+
+   public String get(String artifact) {
+      return serviceByArtifact.get(artifact);
+   }
+
+   /**
+    * Forget about a deleted artifact.
+    * @param artifact The absolute path or key of artifact
+    * @return The service to delete from Microcks, or null if none or if another artifact still defines it.
+    */
+   public synchronized String remove(String artifact) {
+      String serviceId = serviceByArtifact.remove(artifact);
+      if (serviceId == null || serviceByArtifact.containsValue(serviceId)) {
+         return null;
+      }
+      return serviceId;
+   }
+
+   public int size() {
+      return serviceByArtifact.size();
+   }
+
+   /**
+    * Encode services as a property value.
+    * @return The encoded value, empty if there's no service.
+    */
+   public String encode() {
+      StringBuilder encoded = new StringBuilder();
+      // Sort entries so that the property value is stable between runs.
+      for (Map.Entry<String, String> entry : new TreeMap<>(serviceByArtifact).entrySet()) {
+         if (encoded.length() > 0) {
+            encoded.append(ENTRY_SEPARATOR);
+         }
+         encoded.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8)).append(KEY_SEPARATOR)
+               .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+      }
+      return encoded.toString();
+   }
+
+   /**
+    * Decode services from a property value.
+    * @param encoded The encoded value, may be null or empty
+    * @return The services, by artifact.
+    */
+   public static ArtifactServices decode(String encoded) {
+      ArtifactServices services = new ArtifactServices();
+      if (encoded == null || encoded.isEmpty()) {
+         return services;
+      }
+      for (String entry : encoded.split(ENTRY_SEPARATOR)) {
+         int separatorIndex = entry.indexOf(KEY_SEPARATOR);
+         if (separatorIndex > 0) {
+            services.put(URLDecoder.decode(entry.substring(0, separatorIndex), StandardCharsets.UTF_8),
+                  URLDecoder.decode(entry.substring(separatorIndex + 1), StandardCharsets.UTF_8));
+         }
+      }
+      return services;
+   }
+}
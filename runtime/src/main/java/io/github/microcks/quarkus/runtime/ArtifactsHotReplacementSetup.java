@@ -15,8 +15,6 @@
  */
 package io.github.microcks.quarkus.runtime;
 
-import io.github.microcks.testcontainers.MicrocksContainer;
-
 import io.quarkus.dev.spi.HotReplacementContext;
 import io.quarkus.dev.spi.HotReplacementSetup;
 import io.quarkus.logging.Log;
@@ -25,63 +23,198 @@ import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
 import org.jboss.logging.Logger;
 
 import java.io.File;
-import java.net.URL;
-import java.util.Arrays;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Hot replacement setup for Microcks Dev Service.
- * It reloads the artifacts files that have been marked as changed.
+ * It reloads the artifacts files that have been marked as changed. Changes are queued and reloaded by batches
+ * on a background thread. Services imported from primary artifacts that have been deleted are removed from Microcks,
+ * unless another artifact, like the new name of a renamed one, still defines them.
+ * When many Microcks services are started, each change is routed to the services that loaded the changed artifact,
+ * through a queue per service that uses the debounce delay of its Dev Service.
  * @author laurent
  */
 public class ArtifactsHotReplacementSetup implements HotReplacementSetup {
 
    private static final Logger log = Logger.getLogger(ArtifactsHotReplacementSetup.class);
 
+   /** Default delay without changes to wait for before reloading artifacts. */
+   private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(300);
+
+   /** Queues of changed files, by Microcks service name, as each Dev Service has its own debounce delay. */
+   private final Map<String, ArtifactsReloadQueue> reloadQueues = new HashMap<>();
+   /** Index of loaded artifacts, by Microcks service name. */
+   private volatile Map<String, ArtifactsReloadIndex> indexes;
+   /** Services imported from primary artifacts by Microcks service name, kept up to date by reloads across application restarts. */
+   private final Map<String, ArtifactServices> services = new ConcurrentHashMap<>();
+   private final Map<String, String> servicesSources = new HashMap<>();
+
    @Override
    public void setupHotDeployment(HotReplacementContext context) {
+      // Just queue changes so that the live-reload loop is not blocked by imports.
+      context.consumeNoRestartChanges(this::submit);
+      // Dev Service configuration and class loader may have changed with the application.
+      context.addPostRestartStep(this::invalidateIndex);
+   }
+
+   @Override
+   public synchronized void close() {
+      reloadQueues.values().forEach(ArtifactsReloadQueue::close);
+      reloadQueues.clear();
+   }
+
+   private synchronized void submit(Set<String> files) {
+      Config config = ConfigProviderResolver.instance().getConfig();
+      for (String serviceName : MicrocksProperties.getServiceNames(config)) {
+         reloadQueues.computeIfAbsent(serviceName, name -> {
+            Duration debounce = ArtifactsReloadIndex.getDevServicesValue(config, name,
+                  MicrocksProperties.DEVSERVICES_HOT_RELOAD_DEBOUNCE, Duration.class).orElse(DEFAULT_DEBOUNCE);
+            return new ArtifactsReloadQueue(debounce.toMillis(), batch -> reloadArtifacts(name, batch));
+         }).submit(files);
+      }
+   }
+
+   private void invalidateIndex() {
+      indexes = null;
+   }
+
+   private synchronized Map<String, ArtifactsReloadIndex> indexes() {
+      Map<String, ArtifactsReloadIndex> current = indexes;
+      if (current == null) {
+         // Built once from Dev Services configuration, then each change only costs a lookup.
+         Config config = ConfigProviderResolver.instance().getConfig();
+         current = new LinkedHashMap<>();
+         boolean importsDone = true;
+         for (String serviceName : MicrocksProperties.getServiceNames(config)) {
+            if (config.getOptionalValue(MicrocksProperties.getConfigPrefix(serviceName) + MicrocksProperties.HTTP_SUFFIX,
+                  String.class).isEmpty()) {
+               log.debugf("Microcks service '%s' has no container, its artifacts will not be hot reloaded", serviceName);
+               continue;
+            }
+            // Imports running in the background have not published all the loaded artifacts yet.
+            importsDone &= !MicrocksImportStatus.isImporting(config, serviceName);
+            ArtifactsReloadIndex index = ArtifactsReloadIndex.build(config, serviceName, Thread.currentThread().getContextClassLoader());
+            current.put(serviceName, index);
+            if (!index.encodedServices().equals(servicesSources.get(serviceName))) {
+               // Dev Service has (re)started and imported artifacts again.
+               services.put(serviceName, ArtifactServices.decode(index.encodedServices()));
+               servicesSources.put(serviceName, index.encodedServices());
+            }
+            if (log.isInfoEnabled()) {
+               log.infof("Microcks container Url for hot replacement of '%s': %s", serviceName, index.microcksContainerUrl());
+               log.infof("Microcks artifacts watched for hot replacement of '%s': %d", serviceName, index.size());
+            }
+         }
+         if (importsDone) {
+            indexes = current;
+         }
+      }
+      return current;
+   }
+
+   private void reloadArtifacts(String serviceName, Set<String> files) {
+      ArtifactsReloadIndex index = indexes().get(serviceName);
+      if (index != null) {
+         reloadArtifacts(index, services.get(serviceName), files);
+      }
+   }
+
+   private void reloadArtifacts(ArtifactsReloadIndex currentIndex, ArtifactServices services, Set<String> files) {
+      // Keep primary and secondary paths ordered and without duplicates.
+      Set<String> primaries = new LinkedHashSet<>();
+      Set<String> secondaries = new LinkedHashSet<>();
+      Set<String> deleted = new LinkedHashSet<>();
+      // Primary artifacts that are not indexed yet, as they have been added or renamed since startup.
+      Map<String, File> added = new LinkedHashMap<>();
+      for (String file : files) {
+         ArtifactsReloadIndex.Entry entry = currentIndex.get(file);
+         if (entry != null) {
+            (entry.file.exists() ? (entry.primary ? primaries : secondaries) : deleted).add(file);
+         } else if (ArtifactServices.isPrimaryArtifact(file)) {
+            File addedFile = currentIndex.resolve(file);
+            if (addedFile != null && addedFile.exists()) {
+               added.put(file, addedFile);
+            }
+         }
+      }
+      if (primaries.isEmpty() && secondaries.isEmpty() && deleted.isEmpty() && added.isEmpty()) {
+         return;
+      }
+      log.infof("Changed files for Microcks container '%s': %s", currentIndex.microcksContainerUrl(), String.join(",", files));
 
-      context.consumeNoRestartChanges(files -> {
-         // Get Microcks container URL and artifacts from configuration.
-         Config globalConfig = ConfigProviderResolver.instance().getConfig();
-         String configPrefix = MicrocksProperties.getConfigPrefix("default");
-         String microcksContainerUrl = globalConfig.getValue(configPrefix
-               + MicrocksProperties.HTTP_SUFFIX, String.class);
-         Optional<String> primaryArtifacts = globalConfig.getOptionalValue(configPrefix
-               + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS, String.class);
-         Optional<String> secondaryArtifacts = globalConfig.getOptionalValue(configPrefix
-               + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS, String.class);
-
-         if (log.isInfoEnabled()) {
-            log.infof("Microcks container Url for hot replacement: %s", microcksContainerUrl);
-            log.infof("Microcks primary artifacts: %s", primaryArtifacts);
-            log.infof("Microcks secondary artifacts: %s", secondaryArtifacts);
-            log.infof("Changed files: %s", String.join(",", files));
+      // Examples of a deleted secondary artifact only go away when its primary artifacts are imported again.
+      for (String file : deleted) {
+         if (!currentIndex.get(file).primary) {
+            currentIndex.primariesOf(file).stream().filter(primary -> currentIndex.get(primary) != null
+                  && currentIndex.get(primary).file.exists()).forEach(primaries::add);
          }
+      }
 
-         // Import changed files in Microcks as primary artifacts.
-         primaryArtifacts.ifPresent(s -> Arrays.stream(s.split(",")) // Split the comma-separated list
-               .filter(files::contains) // Filter out empty strings and files not in the list
-               .forEach(file -> {
-                  URL fileUrl = Thread.currentThread().getContextClassLoader().getResource(file);
-                  importArtifactInMicrocks(microcksContainerUrl, new File(fileUrl.getFile()), true);
-               }));
-
-         // Import changed files in Microcks as secondary artifacts.
-         secondaryArtifacts.ifPresent(s -> Arrays.stream(s.split(",")) // Split the comma-separated list
-               .filter(files::contains) // Filter out empty strings and files not in the list
-               .forEach(file -> {
-                  URL fileUrl = Thread.currentThread().getContextClassLoader().getResource(file);
-                  importArtifactInMicrocks(microcksContainerUrl, new File(fileUrl.getFile()), false);
-               }));
-      });
+      // Microcks replaces the service of a re-imported primary artifact, so its secondary artifacts have to be re-applied.
+      for (String primary : primaries) {
+         for (String secondary : currentIndex.secondariesOf(primary)) {
+            ArtifactsReloadIndex.Entry entry = currentIndex.get(secondary);
+            if (entry != null && entry.file.exists() && secondaries.add(secondary)) {
+               log.infof("Re-importing '%s' along with changed '%s'", secondary, primary);
+            }
+         }
+      }
+
+      // Import changed primary artifacts before secondary ones.
+      for (String primary : primaries) {
+         services.put(primary, importArtifactInMicrocks(currentIndex.uploader(), currentIndex.microcksContainerUrl(),
+               currentIndex.get(primary).file, true));
+      }
+      for (String secondary : secondaries) {
+         importArtifactInMicrocks(currentIndex.uploader(), currentIndex.microcksContainerUrl(), currentIndex.get(secondary).file, false);
+      }
+
+      // Import added primary artifacts. A renamed one shows up as a deleted one and an added one: importing the added
+      // ones first means the services they still define are not deleted below.
+      for (Map.Entry<String, File> addedFile : added.entrySet()) {
+         services.put(addedFile.getKey(), importArtifactInMicrocks(currentIndex.uploader(), currentIndex.microcksContainerUrl(),
+               addedFile.getValue(), true));
+      }
+
+      // Delete services of deleted primary artifacts, unless another artifact still defines them.
+      for (String file : deleted) {
+         if (currentIndex.get(file).primary) {
+            deleteServiceFromMicrocks(currentIndex.uploader(), currentIndex.microcksContainerUrl(), services, file);
+         }
+      }
    }
 
-   private void importArtifactInMicrocks(String microcksContainerUrl, File artifactFile, boolean mainArtifact) {
+   /**
+    * @return The service imported from this artifact, or null if import failed.
+    */
+   private String importArtifactInMicrocks(MicrocksArtifactUploader uploader, String microcksContainerUrl, File artifactFile,
+                                           boolean mainArtifact) {
       try {
-         MicrocksContainer.importArtifact(microcksContainerUrl, artifactFile, mainArtifact);
+         return ArtifactServices.serviceOf(uploader.importArtifact(microcksContainerUrl, artifactFile.toPath(), mainArtifact));
       } catch (Exception e) {
          Log.errorf("Error while importing artifact %s in Microcks: %s", artifactFile.getName(), e.getMessage());
+         return null;
+      }
+   }
+
+   private void deleteServiceFromMicrocks(MicrocksArtifactUploader uploader, String microcksContainerUrl, ArtifactServices services,
+                                          String artifact) {
+      String serviceId = services.remove(artifact);
+      if (serviceId == null) {
+         return;
+      }
+      try {
+         if (uploader.deleteService(microcksContainerUrl, serviceId)) {
+            log.infof("Deleted service '%s' of deleted artifact '%s' from Microcks", serviceId, artifact);
+         }
+      } catch (Exception e) {
+         Log.errorf("Error while deleting service %s from Microcks: %s", serviceId, e.getMessage());
       }
    }
 }
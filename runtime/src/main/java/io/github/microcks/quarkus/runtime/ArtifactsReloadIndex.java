@@ -0,0 +1,193 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.eclipse.microprofile.config.Config;
+import org.jboss.logging.Logger;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * An immutable index of the artifacts loaded by Microcks Dev Service, built once from its configuration so that
+ * hot reload of changed files only costs lookups. Each relative resource path is mapped to its resolved file
+ * and its primary/secondary flag. Primary artifacts also know the secondary artifacts to re-import with them.
+ * @author laurent
+ */
+final class ArtifactsReloadIndex {
+
+   private static final Logger log = Logger.getLogger(ArtifactsReloadIndex.class);
+
+   private final String microcksContainerUrl;
+   private final MicrocksArtifactUploader uploader;
+   private final Map<String, Entry> entries;
+   private final Map<String, List<String>> secondariesByPrimary;
+   private final String encodedServices;
+   private final ClassLoader classLoader;
+
+   private ArtifactsReloadIndex(String microcksContainerUrl, MicrocksArtifactUploader uploader, Map<String, Entry> entries,
+                                Map<String, List<String>> secondariesByPrimary, String encodedServices, ClassLoader classLoader) {
+      this.microcksContainerUrl = microcksContainerUrl;
+      this.uploader = uploader;
+      this.entries = Collections.unmodifiableMap(entries);
+      this.secondariesByPrimary = Collections.unmodifiableMap(secondariesByPrimary);
+      this.encodedServices = encodedServices;
+      this.classLoader = classLoader;
+   }
+
+   /**
+    * Build the index from Microcks Dev Service configuration.
+    * @param config The global configuration holding Dev Service properties
+    * @param serviceName The name of the Microcks service
+    * @param classLoader The class loader to resolve artifacts resources with
+    * @return The index, never null.
+    */
+   static ArtifactsReloadIndex build(Config config, String serviceName, ClassLoader classLoader) {
+      String configPrefix = MicrocksProperties.getConfigPrefix(serviceName);
+      String microcksContainerUrl = config.getValue(configPrefix + MicrocksProperties.HTTP_SUFFIX, String.class);
+      MicrocksArtifactUploader uploader = MicrocksArtifactUploader.getInstance(
+            getDevServicesValue(config, serviceName, MicrocksProperties.DEVSERVICES_HTTP2, Boolean.class).orElse(false));
+
+      // Imports that ran in the background could only publish loaded artifacts into their status file.
+      Properties importStatus = MicrocksImportStatus.fileOf(config, serviceName).map(MicrocksImportStatus::read)
+            .orElseGet(Properties::new);
+
+      Map<String, Entry> entries = new LinkedHashMap<>();
+      indexArtifacts(getLoadedProperty(config, importStatus, configPrefix + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS),
+            true, classLoader, entries);
+      indexArtifacts(getLoadedProperty(config, importStatus, configPrefix + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS),
+            false, classLoader, entries);
+
+      Map<String, List<String>> secondariesByPrimary = ArtifactDependencies.decode(getLoadedProperty(config, importStatus,
+            configPrefix + MicrocksProperties.ARTIFACT_DEPENDENCIES).orElse(null));
+      String encodedServices = getLoadedProperty(config, importStatus, configPrefix + MicrocksProperties.ARTIFACT_SERVICES)
+            .orElse("");
+
+      log.debugf("Indexed %d artifacts of Microcks container '%s' for hot replacement", entries.size(), microcksContainerUrl);
+      return new ArtifactsReloadIndex(microcksContainerUrl, uploader, entries, secondariesByPrimary, encodedServices, classLoader);
+   }
+
+   private static Optional<String> getLoadedProperty(Config config, Properties importStatus, String property) {
+      return Optional.ofNullable(importStatus.getProperty(property))
+            .or(() -> config.getOptionalValue(property, String.class));
+   }
+
+   /**
+    * Get a value of Dev Services configuration, as configured for a named Dev Service or for the default one.
+    */
+   static <T> Optional<T> getDevServicesValue(Config config, String serviceName, String property, Class<T> type) {
+      return config.getOptionalValue(MicrocksProperties.getNamedDevServicesProperty(serviceName, property), type)
+            .or(() -> config.getOptionalValue(property, type));
+   }
+
+   private static void indexArtifacts(Optional<String> artifacts, boolean primary, ClassLoader classLoader,
+                                      Map<String, Entry> entries) {
+      if (artifacts.isEmpty()) {
+         return;
+      }
+      for (String artifact : artifacts.get().split(",")) {
+         if (artifact.isEmpty() || entries.containsKey(artifact)) {
+            continue;
+         }
+         URL artifactUrl = classLoader.getResource(artifact);
+         if (artifactUrl == null) {
+            log.debugf("Artifact '%s' cannot be resolved as a resource and will not be hot reloaded", artifact);
+            continue;
+         }
+         entries.put(artifact, new Entry(new File(artifactUrl.getFile()), primary));
+      }
+   }
+
+   String microcksContainerUrl() {
+      return microcksContainerUrl;
+   }
+
+   MicrocksArtifactUploader uploader() {
+      return uploader;
+   }
+
+   /**
+    * Get the indexed artifact for a changed file.
+    * @param path The relative path of changed file
+    * @return The indexed entry or null if this file is not a loaded artifact.
+    */
+   Entry get(String path) {
+      return entries.get(path);
+   }
+
+   /**
+    * Resolve a changed file that is not indexed, like an artifact that has just been added or renamed.
+    * @param path The relative path of changed file
+    * @return The file or null if it cannot be resolved as a resource.
+    */
+   File resolve(String path) {
+      URL url = classLoader.getResource(path);
+      return url != null ? new File(url.getFile()) : null;
+   }
+
+   /**
+    * Get the secondary artifacts to re-import after a primary one, as Microcks replaces the service it defines.
+    * @param primaryPath The relative path of primary artifact
+    * @return The relative paths of secondary artifacts, empty if none.
+    */
+   List<String> secondariesOf(String primaryPath) {
+      return secondariesByPrimary.getOrDefault(primaryPath, List.of());
+   }
+
+   /**
+    * Get the primary artifacts a secondary one is re-imported with.
+    * @param secondaryPath The relative path of secondary artifact
+    * @return The relative paths of primary artifacts, empty if none.
+    */
+   List<String> primariesOf(String secondaryPath) {
+      List<String> primaries = new ArrayList<>();
+      secondariesByPrimary.forEach((primary, secondaries) -> {
+         if (secondaries.contains(secondaryPath)) {
+            primaries.add(primary);
+         }
+      });
+      return primaries;
+   }
+
+   /**
+    * @return The services imported from primary artifacts when Dev Service started, as published in configuration.
+    */
+   String encodedServices() {
+      return encodedServices;
+   }
+
+   int size() {
+      return entries.size();
+   }
+
+   /** An indexed artifact. */
+   static final class Entry {
+      final File file;
+      final boolean primary;
+
+      Entry(File file, boolean primary) {
+         this.file = file;
+         this.primary = primary;
+      }
+   }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.jboss.logging.Logger;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A queue of changed files waiting to be reloaded into Microcks. Changes are coalesced and debounced so that
+ * a burst of saved files is reloaded in one batch, on a background thread, once no change happened for the
+ * debounce delay. A continuous stream of changes still gets flushed every ten debounce delays.
+ * @author laurent
+ */
+final class ArtifactsReloadQueue implements AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(ArtifactsReloadQueue.class);
+
+   private static final int MAX_DEBOUNCE_FACTOR = 10;
+
+   private final ScheduledExecutorService executor;
+   private final long debounceMillis;
+   private final Consumer<Set<String>> batchConsumer;
+
+   private final Set<String> pending = new LinkedHashSet<>();
+   private ClassLoader classLoader;
+   private long firstPendingNanos;
+   private ScheduledFuture<?> scheduledFlush;
+
+   /**
+    * Create a new queue.
+    * @param debounceMillis The delay without changes to wait for before reloading
+    * @param batchConsumer The consumer of batches of changed files, called on the background thread
+    */
+   ArtifactsReloadQueue(long debounceMillis, Consumer<Set<String>> batchConsumer) {
+      this.debounceMillis = Math.max(0, debounceMillis);
+      this.batchConsumer = batchConsumer;
+      this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "microcks-hot-reload");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Add changed files to the queue, returning immediately.
+    * @param files The changed files, duplicates with already pending ones are ignored
+    */
+   synchronized void submit(Set<String> files) {
+      if (files.isEmpty()) {
+         return;
+      }
+      if (pending.isEmpty()) {
+         firstPendingNanos = System.nanoTime();
+      }
+      pending.addAll(files);
+      // Resources are looked up through the class loader of the dev mode thread.
+      classLoader = Thread.currentThread().getContextClassLoader();
+
+      if (scheduledFlush != null) {
+         long pendingMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstPendingNanos);
+         if (pendingMillis >= debounceMillis * MAX_DEBOUNCE_FACTOR || !scheduledFlush.cancel(false)) {
+            // Either changes have been pending for too long or flush has already started: keep it.
+            return;
+         }
+      }
+      scheduledFlush = executor.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+   }
+
+   private void flush() {
+      Set<String> batch;
+      ClassLoader batchClassLoader;
+      synchronized (this) {
+         batch = new LinkedHashSet<>(pending);
+         batchClassLoader = classLoader;
+         pending.clear();
+         scheduledFlush = null;
+      }
+      if (batch.isEmpty()) {
+         return;
+      }
+
+      Thread thread = Thread.currentThread();
+      ClassLoader previousClassLoader = thread.getContextClassLoader();
+      thread.setContextClassLoader(batchClassLoader);
+      try {
+         batchConsumer.accept(batch);
+      } catch (RuntimeException e) {
+         log.error("Failed to reload changed artifacts in Microcks", e);
+      } finally {
+         thread.setContextClassLoader(previousClassLoader);
+      }
+   }
+
+   @Override
+   public void close() {
+      executor.shutdownNow();
+   }
+}
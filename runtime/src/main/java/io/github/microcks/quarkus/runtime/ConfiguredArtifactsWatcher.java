@@ -0,0 +1,229 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A watcher of the artifacts explicitly configured for Microcks Dev Service. Those may live outside the application
+ * resources so that Quarkus does not report their changes: each of their parent directories is registered once into
+ * a {@code WatchService} and changed artifacts are reloaded into Microcks through a debounced queue. As Microcks rebuilds
+ * the service of a primary artifact imported again, and as the primary artifacts configured secondaries apply to are
+ * unknown, every configured secondary artifact is imported again after a primary one. The services of deleted primary
+ * artifacts are removed from Microcks.
+ * @author laurent
+ */
+public final class ConfiguredArtifactsWatcher implements AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(ConfiguredArtifactsWatcher.class);
+
+   /** Running watchers, by Microcks service name. */
+   private static final Map<String, ConfiguredArtifactsWatcher> watchers = new HashMap<>();
+
+   private final String microcksContainerUrl;
+   private final MicrocksArtifactUploader uploader;
+   private final ArtifactServices services;
+   /** Watched artifacts and whether they're primary, by parent directory. */
+   private final Map<Path, Map<Path, Boolean>> artifactsByDirectory = new HashMap<>();
+   private final WatchService watchService;
+   private final ArtifactsReloadQueue reloadQueue;
+   private final Thread watchThread;
+
+   private ConfiguredArtifactsWatcher(String serviceName, String microcksContainerUrl, MicrocksArtifactUploader uploader,
+                                      List<Path> primaries, List<Path> secondaries, ArtifactServices services,
+                                      Duration debounce) throws IOException {
+      this.microcksContainerUrl = microcksContainerUrl;
+      this.uploader = uploader;
+      this.services = services;
+      this.watchService = FileSystems.getDefault().newWatchService();
+      this.reloadQueue = new ArtifactsReloadQueue(debounce.toMillis(), this::reloadArtifacts);
+
+      primaries.forEach(artifact -> addArtifact(artifact, true));
+      secondaries.forEach(artifact -> addArtifact(artifact, false));
+      for (Path directory : artifactsByDirectory.keySet()) {
+         if (Files.isDirectory(directory)) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                  StandardWatchEventKinds.ENTRY_DELETE);
+         } else {
+            log.warnf("Directory '%s' of configured artifacts does not exist and cannot be watched", directory);
+         }
+      }
+
+      this.watchThread = new Thread(this::watch, "microcks-artifacts-watcher-" + serviceName);
+      this.watchThread.setDaemon(true);
+      this.watchThread.start();
+   }
+
+   /**
+    * Start watching configured artifacts of a Microcks service, replacing any previous watcher of this service.
+    * @param serviceName The name of Microcks service
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param uploader The uploader to use for reloading artifacts
+    * @param primaries The primary artifacts files
+    * @param secondaries The secondary artifacts files
+    * @param services The services imported from primary artifacts, by artifact absolute path
+    * @param debounce The delay without further changes to wait for before reloading
+    */
+   public static synchronized void start(String serviceName, String microcksContainerUrl, MicrocksArtifactUploader uploader,
+                                         List<Path> primaries, List<Path> secondaries, ArtifactServices services,
+                                         Duration debounce) {
+      stop(serviceName);
+      try {
+         watchers.put(serviceName, new ConfiguredArtifactsWatcher(serviceName, microcksContainerUrl, uploader, primaries,
+               secondaries, services, debounce));
+      } catch (IOException ioe) {
+         log.errorf(ioe, "Failed to watch configured artifacts of Microcks service '%s'", serviceName);
+      }
+   }
+
+   /**
+    * Stop watching configured artifacts of a Microcks service.
+    * @param serviceName The name of Microcks service
+    */
+   public static synchronized void stop(String serviceName) {
+      ConfiguredArtifactsWatcher watcher = watchers.remove(serviceName);
+      if (watcher != null) {
+         watcher.close();
+      }
+   }
+
+   @Override
+   public void close() {
+      try {
+         watchService.close();
+      } catch (IOException ioe) {
+         log.debugf("Failed to close artifacts watch service: %s", ioe.getMessage());
+      }
+      reloadQueue.close();
+   }
+
+   private void addArtifact(Path artifact, boolean primary) {
+      Path absoluteArtifact = artifact.toAbsolutePath().normalize();
+      Map<Path, Boolean> artifacts = artifactsByDirectory.computeIfAbsent(absoluteArtifact.getParent(),
+            directory -> new LinkedHashMap<>());
+      // An artifact configured as both primary and secondary is imported as primary.
+      artifacts.merge(absoluteArtifact.getFileName(), primary, Boolean::logicalOr);
+   }
+
+   private void watch() {
+      try {
+         while (true) {
+            WatchKey key = watchService.take();
+            Path directory = (Path) key.watchable();
+            Map<Path, Boolean> artifacts = artifactsByDirectory.getOrDefault(directory, Map.of());
+            List<String> changed = new ArrayList<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+               if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                  // Some events have been lost, consider every artifact of directory as changed.
+                  artifacts.keySet().forEach(name -> changed.add(directory.resolve(name).toString()));
+               } else if (artifacts.containsKey((Path) event.context())) {
+                  changed.add(directory.resolve((Path) event.context()).toString());
+               }
+            }
+            key.reset();
+            if (!changed.isEmpty()) {
+               reloadQueue.submit(Set.copyOf(changed));
+            }
+         }
+      } catch (ClosedWatchServiceException | InterruptedException e) {
+         log.debugf("Stopped watching configured artifacts of Microcks container '%s'", microcksContainerUrl);
+      }
+   }
+
+   private void reloadArtifacts(Set<String> files) {
+      log.infof("Changed configured artifacts: %s", String.join(",", files));
+      Map<Boolean, List<Path>> artifactsByKind = files.stream().map(Path::of)
+            .collect(Collectors.partitioningBy(this::isPrimary));
+
+      // Import changed primary artifacts before secondary ones, that their rebuilt services need again.
+      boolean primaryImported = false;
+      for (Path artifact : artifactsByKind.get(true)) {
+         primaryImported |= importArtifact(artifact, true);
+      }
+      Set<Path> secondaries = new LinkedHashSet<>(artifactsByKind.get(false));
+      if (primaryImported) {
+         secondaries.addAll(secondaryArtifacts());
+      }
+      secondaries.forEach(artifact -> importArtifact(artifact, false));
+      // Then delete services of deleted primary artifacts, unless another configured artifact still defines them.
+      artifactsByKind.get(true).stream().filter(artifact -> !Files.exists(artifact)).forEach(this::deleteService);
+   }
+
+   private List<Path> secondaryArtifacts() {
+      List<Path> secondaries = new ArrayList<>();
+      artifactsByDirectory.forEach((directory, artifacts) -> artifacts.forEach((name, primary) -> {
+         if (!primary) {
+            secondaries.add(directory.resolve(name));
+         }
+      }));
+      return secondaries;
+   }
+
+   private boolean isPrimary(Path artifact) {
+      return artifactsByDirectory.getOrDefault(artifact.getParent(), Map.of()).getOrDefault(artifact.getFileName(), false);
+   }
+
+   /**
+    * @return Whether the artifact has been imported, even partially, so that Microcks may have rebuilt its service.
+    */
+   private boolean importArtifact(Path artifact, boolean primary) {
+      if (!Files.isRegularFile(artifact)) {
+         return false;
+      }
+      try {
+         MicrocksArtifactUploader.UploadResult result = uploader.importArtifact(microcksContainerUrl, artifact, primary);
+         if (primary) {
+            services.put(artifact.toString(), ArtifactServices.serviceOf(result));
+         }
+      } catch (Exception e) {
+         log.errorf("Error while importing artifact %s in Microcks: %s", artifact.getFileName(), e.getMessage());
+      }
+      return true;
+   }
+
+   private void deleteService(Path artifact) {
+      String serviceId = services.remove(artifact.toString());
+      if (serviceId == null) {
+         return;
+      }
+      try {
+         if (uploader.deleteService(microcksContainerUrl, serviceId)) {
+            log.infof("Deleted service '%s' of deleted artifact %s from Microcks", serviceId, artifact.getFileName());
+         }
+      } catch (Exception e) {
+         log.errorf("Error while deleting service %s from Microcks: %s", serviceId, e.getMessage());
+      }
+   }
+}
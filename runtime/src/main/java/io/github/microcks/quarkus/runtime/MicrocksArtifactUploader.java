@@ -0,0 +1,463 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.github.microcks.testcontainers.model.Secret;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * An uploader of artifacts and secrets into Microcks. Every call goes through one pooled {@code HttpClient}
+ * so that connections to Microcks are kept alive and reused between artifacts instead of being opened for
+ * each of them. Content is streamed by chunks and never fully held in memory, so that large artifacts or
+ * artifacts that are not plain files (eg. entries packaged into a dependency archive) can be imported without
+ * being buffered or extracted first.
+ * @author laurent
+ */
+public class MicrocksArtifactUploader {
+
+   private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+   /** Microcks may take a while to parse a large artifact, but a call must not hang forever on a stuck container. */
+   private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+   /**
+    * Transport failures are retried, as a kept-alive connection may have been closed by Microcks meanwhile. Calls that
+    * are not idempotent are only retried if the connection failed, as Microcks may otherwise have processed them.
+    */
+   private static final int MAX_RETRIES = 2;
+   private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE");
+   /** Unset fields of secrets are left out rather than sent as null. */
+   private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+   private final HttpClient client;
+
+   private MicrocksArtifactUploader(HttpClient client) {
+      this.client = client;
+   }
+
+   /**
+    * Get an uploader using the shared pooled client.
+    * @param http2 Whether HTTP/2 should be negotiated with Microcks. Falls back to HTTP/1.1 if not supported.
+    * @return The uploader using a pooled client for this HTTP version.
+    */
+   public static MicrocksArtifactUploader getInstance(boolean http2) {
+      return new MicrocksArtifactUploader(http2 ? Http2ClientHolder.CLIENT : Http1ClientHolder.CLIENT);
+   }
+
+   /**
+    * Get the pooled client of this uploader, so that other calls to Microcks reuse its kept-alive connections.
+    * @return The shared client, that must not be closed.
+    */
+   public HttpClient client() {
+      return client;
+   }
+
+   /**
+    * Import an artifact file into Microcks. File is read by chunks from a channel while being uploaded.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param artifactFile The artifact file to import
+    * @param mainArtifact Whether this artifact should be considered as main/primary or secondary
+    * @return The result of upload, its body being usually the name and version of imported service.
+    * @throws IOException if upload fails or Microcks rejects the artifact
+    */
+   public UploadResult importArtifact(String microcksContainerUrl, Path artifactFile, boolean mainArtifact) throws IOException {
+      return importArtifact(microcksContainerUrl, artifactFile.getFileName().toString(),
+            () -> FileChannel.open(artifactFile, StandardOpenOption.READ), Files.size(artifactFile), true, mainArtifact);
+   }
+
+   /**
+    * Import an artifact into Microcks, streaming its content in a multipart upload.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param fileName The file name to declare for this artifact
+    * @param content The stream of artifact content. It's consumed and closed.
+    * @param mainArtifact Whether this artifact should be considered as main/primary or secondary
+    * @return The result of upload, its body being usually the name and version of imported service.
+    * @throws IOException if upload fails or Microcks rejects the artifact
+    */
+   public UploadResult importArtifact(String microcksContainerUrl, String fileName, InputStream content,
+                                boolean mainArtifact) throws IOException {
+      AtomicBoolean opened = new AtomicBoolean();
+      return importArtifact(microcksContainerUrl, fileName, () -> {
+         if (opened.getAndSet(true)) {
+            throw new IOException("Content of artifact " + fileName + " cannot be read twice");
+         }
+         return Channels.newChannel(content);
+      }, -1, false, mainArtifact);
+   }
+
+   private UploadResult importArtifact(String microcksContainerUrl, String fileName, MultipartBodyPublisher.ContentOpener contentOpener,
+                                       long contentSize, boolean replayable, boolean mainArtifact) throws IOException {
+      String boundary = UUID.randomUUID().toString();
+      MultipartBodyPublisher body = new MultipartBodyPublisher(boundary, "file", fileName, contentOpener, contentSize);
+
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/artifact/upload" + (mainArtifact ? "" : "?mainArtifact=false")))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            // Body is sent in chunks when its length is unknown, instead of being buffered to compute it.
+            .POST(body.contentLength() > 0 ? HttpRequest.BodyPublishers.fromPublisher(body, body.contentLength())
+                  : HttpRequest.BodyPublishers.fromPublisher(body))
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+      return send(request, replayable, body::bytesPublished, 201,
+            "Artifact " + fileName + " has not been correctly imported");
+   }
+
+   /**
+    * Ask Microcks to download and import a remote artifact.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param remoteArtifactUrl The Url of the remote artifact
+    * @param secretName The name of the secret to use for download, may be null
+    * @param mainArtifact Whether this artifact should be considered as main/primary or secondary
+    * @return The result of download request
+    * @throws IOException if download fails or Microcks rejects the artifact
+    */
+   public UploadResult downloadArtifact(String microcksContainerUrl, String remoteArtifactUrl, String secretName,
+                                boolean mainArtifact) throws IOException {
+      StringBuilder form = new StringBuilder("mainArtifact=").append(mainArtifact)
+            .append("&url=").append(URLEncoder.encode(remoteArtifactUrl, StandardCharsets.UTF_8));
+      if (secretName != null) {
+         form.append("&secretName=").append(URLEncoder.encode(secretName, StandardCharsets.UTF_8));
+      }
+
+      byte[] body = form.toString().getBytes(StandardCharsets.UTF_8);
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/artifact/download"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+      return send(request, true, () -> body.length, 201,
+            "Artifact " + remoteArtifactUrl + " has not been correctly downloaded");
+   }
+
+   /**
+    * Create a secret into Microcks.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param secret The secret to create
+    * @return The result of creation request
+    * @throws IOException if Microcks rejects the secret
+    */
+   public UploadResult createSecret(String microcksContainerUrl, Secret secret) throws IOException {
+      byte[] body = MAPPER.writeValueAsBytes(secret);
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/secrets"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+      return send(request, true, () -> body.length, 201,
+            "Secret " + secret.getName() + " has not been correctly created");
+   }
+
+   /**
+    * Update a secret in Microcks, typically because its configuration changed since it has been created.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param secret The secret with its new values
+    * @return The result of the update, or of the creation if secret does not exist in Microcks anymore.
+    * @throws IOException if Microcks fails to update the secret
+    */
+   public UploadResult updateSecret(String microcksContainerUrl, Secret secret) throws IOException {
+      // Microcks updates secrets by their technical identifier, that has to be looked up first.
+      String technicalId = lookupSecretId(microcksContainerUrl, secret.getName());
+      if (technicalId == null) {
+         return createSecret(microcksContainerUrl, secret);
+      }
+
+      byte[] body = MAPPER.writeValueAsBytes(secret);
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/secrets/" + technicalId))
+            .header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(body))
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+      return send(request, true, () -> body.length, 200,
+            "Secret " + secret.getName() + " has not been correctly updated");
+   }
+
+   /**
+    * Delete a service from Microcks, typically because the artifact it has been imported from has been deleted.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param serviceId The name and version of service, as {@code name:version}
+    * @return True if service has been deleted, false if it does not exist in Microcks.
+    * @throws IOException if Microcks fails to delete the service
+    */
+   public boolean deleteService(String microcksContainerUrl, String serviceId) throws IOException {
+      // Microcks deletes services by their technical identifier, that has to be looked up first.
+      String technicalId = lookupServiceId(microcksContainerUrl, serviceId);
+      if (technicalId == null) {
+         return false;
+      }
+
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/services/" + technicalId))
+            .DELETE()
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+      CallResult result = call(request, true);
+      if (result.statusCode == 404) {
+         // Deleted meanwhile.
+         return false;
+      }
+      if (result.statusCode != 200) {
+         throw new IOException("Service " + serviceId + " has not been correctly deleted: " + result.statusCode);
+      }
+      return true;
+   }
+
+   /**
+    * Export a snapshot of services from Microcks repository, with their resources and examples.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param serviceIds The names and versions of services to export, as {@code name:version}
+    * @param snapshotFile The file to write snapshot into
+    * @return The number of exported services, services that do not exist in Microcks being ignored.
+    * @throws IOException if Microcks fails to export services or snapshot cannot be written
+    */
+   public int exportSnapshot(String microcksContainerUrl, Collection<String> serviceIds, Path snapshotFile) throws IOException {
+      // Microcks exports services by their technical identifiers, that have to be looked up first.
+      StringBuilder query = new StringBuilder();
+      int exported = 0;
+      for (String serviceId : serviceIds) {
+         String technicalId = lookupServiceId(microcksContainerUrl, serviceId);
+         if (technicalId != null) {
+            query.append(exported++ == 0 ? "?" : "&").append("serviceIds=")
+                  .append(URLEncoder.encode(technicalId, StandardCharsets.UTF_8));
+         }
+      }
+      if (exported == 0) {
+         return 0;
+      }
+
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/export" + query))
+            .GET()
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+      try {
+         // Snapshot may be large: stream it to file rather than holding it in memory.
+         HttpResponse<Path> response = client.send(request, HttpResponse.BodyHandlers.ofFile(snapshotFile));
+         if (response.statusCode() != 200) {
+            Files.deleteIfExists(snapshotFile);
+            throw new UploadException("Snapshot has not been correctly exported: " + response.statusCode(),
+                  new UploadResult(response.statusCode(), "", 0, 0));
+         }
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while calling Microcks at " + request.uri(), ie);
+      }
+      return exported;
+   }
+
+   /**
+    * Import a snapshot previously exported from Microcks repository, restoring all its services in a single call.
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param snapshotFile The snapshot file to import
+    * @return The result of import request
+    * @throws IOException if upload fails or Microcks rejects the snapshot
+    */
+   public UploadResult importSnapshot(String microcksContainerUrl, Path snapshotFile) throws IOException {
+      String boundary = UUID.randomUUID().toString();
+      MultipartBodyPublisher body = new MultipartBodyPublisher(boundary, "file", snapshotFile.getFileName().toString(),
+            () -> FileChannel.open(snapshotFile, StandardOpenOption.READ), Files.size(snapshotFile));
+
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/import"))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.fromPublisher(body, body.contentLength()))
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+      return send(request, true, body::bytesPublished, 201, "Snapshot " + snapshotFile.getFileName() + " has not been correctly imported");
+   }
+
+   /**
+    * @return The technical identifier of a service, or null if it does not exist in Microcks.
+    */
+   private String lookupServiceId(String microcksContainerUrl, String serviceId) throws IOException {
+      HttpRequest lookup = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/services/"
+                  + URLEncoder.encode(serviceId, StandardCharsets.UTF_8).replace("+", "%20") + "?messages=false"))
+            .GET()
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+      CallResult result = call(lookup, true);
+      if (result.statusCode == 404) {
+         return null;
+      }
+      if (result.statusCode != 200) {
+         throw new IOException("Service " + serviceId + " cannot be found: " + result.statusCode);
+      }
+      JsonNode id = MAPPER.readTree(result.body).path("id");
+      return id.isTextual() ? id.asText() : null;
+   }
+
+   private String lookupSecretId(String microcksContainerUrl, String secretName) throws IOException {
+      HttpRequest lookup = HttpRequest.newBuilder()
+            .uri(URI.create(microcksContainerUrl + "/api/secrets/search?name="
+                  + URLEncoder.encode(secretName, StandardCharsets.UTF_8).replace("+", "%20")))
+            .GET()
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+      CallResult result = call(lookup, true);
+      if (result.statusCode != 200) {
+         throw new IOException("Secret " + secretName + " cannot be found: " + result.statusCode);
+      }
+      // Search matches names partially, so look for the exact one.
+      for (JsonNode secret : MAPPER.readTree(result.body)) {
+         if (secretName.equals(secret.path("name").asText()) && secret.path("id").isTextual()) {
+            return secret.path("id").asText();
+         }
+      }
+      return null;
+   }
+
+   private UploadResult send(HttpRequest request, boolean replayable, LongSupplier bytesSent, int expectedStatus,
+                             String failureMessage) throws IOException {
+      CallResult response = call(request, replayable);
+      UploadResult result = new UploadResult(response.statusCode, response.body, bytesSent.getAsLong(), response.retries);
+      if (response.statusCode != expectedStatus) {
+         throw new UploadException(failureMessage + ": " + response.statusCode, result);
+      }
+      return result;
+   }
+
+   private CallResult call(HttpRequest request, boolean replayable) throws IOException {
+      int retries = 0;
+      while (true) {
+         try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return new CallResult(response.statusCode(), response.body(), retries);
+         } catch (HttpTimeoutException hte) {
+            throw hte;
+         } catch (IOException ioe) {
+            // A request that failed to connect has never been sent, so it can be sent again whatever its method.
+            boolean retryable = ioe instanceof ConnectException || IDEMPOTENT_METHODS.contains(request.method());
+            if (!replayable || !retryable || retries >= MAX_RETRIES) {
+               throw ioe;
+            }
+            retries++;
+         } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling Microcks at " + request.uri(), ie);
+         }
+      }
+   }
+
+   private static HttpClient newClient(HttpClient.Version version) {
+      return HttpClient.newBuilder()
+            .version(version)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+   }
+
+   /** Lazy holder of the HTTP/1.1 client, kept-alive connections being pooled by the client itself. */
+   private static final class Http1ClientHolder {
+      static final HttpClient CLIENT = newClient(HttpClient.Version.HTTP_1_1);
+   }
+
+   /** Lazy holder of the HTTP/2 client. */
+   private static final class Http2ClientHolder {
+      static final HttpClient CLIENT = newClient(HttpClient.Version.HTTP_2);
+   }
+
+   /** The raw response of Microcks to a call, whatever its status. */
+   private static final class CallResult {
+      private final int statusCode;
+      private final String body;
+      private final int retries;
+
+      private CallResult(int statusCode, String body, int retries) {
+         this.statusCode = statusCode;
+         this.body = body;
+         this.retries = retries;
+      }
+   }
+
+   /** The result of an upload, download or creation call to Microcks. */
+   public static final class UploadResult {
+      private final int statusCode;
+      private final String body;
+      private final long bytesSent;
+      private final int retries;
+
+      UploadResult(int statusCode, String body, long bytesSent, int retries) {
+         this.statusCode = statusCode;
+         this.body = body;
+         this.bytesSent = bytesSent;
+         this.retries = retries;
+      }
+
+      public int statusCode() {
+         return statusCode;
+      }
+
+      public String body() {
+         return body;
+      }
+
+      /**
+       * @return The number of request body bytes sent, counting retries.
+       */
+      public long bytesSent() {
+         return bytesSent;
+      }
+
+      public int retries() {
+         return retries;
+      }
+   }
+
+   /** A failure of a call that has been answered by Microcks with an unexpected status. */
+   public static final class UploadException extends IOException {
+      private final transient UploadResult result;
+
+      UploadException(String message, UploadResult result) {
+         super(message);
+         this.result = result;
+      }
+
+      public UploadResult getResult() {
+         return result;
+      }
+   }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.eclipse.microprofile.config.Config;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * The status of the imports into a Microcks service, written by Dev Service Processor into a file whose location is
+ * published as a configuration property. When imports run in the background, it's the way for the application to
+ * know when they are done. Once ready, the file also holds the loaded artifacts properties that could not be published
+ * along with the container address.
+ * @author laurent
+ */
+public final class MicrocksImportStatus {
+
+   private static final Logger log = Logger.getLogger(MicrocksImportStatus.class);
+
+   /** The property holding the status. */
+   public static final String STATUS = "status";
+   /** Imports are still running. */
+   public static final String IMPORTING = "importing";
+   /** Imports are done. */
+   public static final String READY = "ready";
+   /** Imports have been interrupted by an unexpected failure. */
+   public static final String FAILED = "failed";
+
+   private MicrocksImportStatus() {
+      // Hide the implicit default constructor.
+   }
+
+   /**
+    * Get the status file of a Microcks service.
+    * @param config The global configuration holding Dev Services properties
+    * @param serviceName The name of the Microcks service
+    * @return The status file, if Dev Service published one.
+    */
+   public static Optional<Path> fileOf(Config config, String serviceName) {
+      return config.getOptionalValue(MicrocksProperties.getConfigPrefix(serviceName) + MicrocksProperties.IMPORT_STATUS_FILE,
+            String.class).map(Path::of);
+   }
+
+   /**
+    * Tell if the imports into a Microcks service are still running.
+    * @param config The global configuration holding Dev Services properties
+    * @param serviceName The name of the Microcks service
+    * @return True if Dev Service published a status file telling so.
+    */
+   public static boolean isImporting(Config config, String serviceName) {
+      return fileOf(config, serviceName)
+            .map(statusFile -> IMPORTING.equals(read(statusFile).getProperty(STATUS)))
+            .orElse(false);
+   }
+
+   /**
+    * Read a status file.
+    * @param statusFile The status file
+    * @return The status properties, empty if file cannot be read.
+    */
+   public static Properties read(Path statusFile) {
+      Properties status = new Properties();
+      if (Files.isRegularFile(statusFile)) {
+         try (InputStream is = Files.newInputStream(statusFile)) {
+            status.load(is);
+         } catch (IOException ioe) {
+            log.debugf("Ignoring unreadable import status '%s': %s", statusFile, ioe.getMessage());
+         }
+      }
+      return status;
+   }
+
+   /**
+    * Write a status file, replacing it at once so that readers never see a partial one.
+    * @param statusFile The status file
+    * @param status One of {@link #IMPORTING}, {@link #READY} or {@link #FAILED}
+    * @param values Additional properties, like the loaded artifacts ones
+    */
+   public static void write(Path statusFile, String status, Map<String, String> values) {
+      Properties properties = new Properties();
+      properties.putAll(values);
+      properties.setProperty(STATUS, status);
+      try {
+         Files.createDirectories(statusFile.getParent());
+         Path tmpStatusFile = statusFile.resolveSibling(statusFile.getFileName() + ".tmp");
+         try (OutputStream os = Files.newOutputStream(tmpStatusFile)) {
+            properties.store(os, "Microcks imports status");
+         }
+         Files.move(tmpStatusFile, statusFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException ioe) {
+         log.warnf("Failed to write import status '%s': %s", statusFile, ioe.getMessage());
+      }
+   }
+}
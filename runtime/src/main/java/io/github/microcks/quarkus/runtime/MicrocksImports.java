@@ -0,0 +1,190 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Readiness gate of the imports into Microcks Dev Services. When imports run in the background, the application
+ * starts while they are still running: inject this bean to await them, or observe {@link MicrocksImportsReadyEvent}.
+ * Services without any published import status, like the ones not started by Dev Services, are considered ready.
+ * @author laurent
+ */
+@Singleton
+public class MicrocksImports {
+
+   private static final Logger log = Logger.getLogger(MicrocksImports.class);
+
+   /** The interval between two reads of the import status files. */
+   private static final long POLL_INTERVAL_MILLIS = 100;
+
+   @Inject
+   Event<MicrocksImportsReadyEvent> readyEvent;
+
+   private final Map<String, CompletableFuture<Boolean>> imports = new LinkedHashMap<>();
+   private volatile ScheduledExecutorService executor;
+
+   void onStart(@Observes StartupEvent event) {
+      Config config = ConfigProviderResolver.instance().getConfig();
+      Map<String, Path> statusFiles = new LinkedHashMap<>();
+      synchronized (imports) {
+         for (String serviceName : MicrocksProperties.getServiceNames(config)) {
+            Optional<Path> statusFile = MicrocksImportStatus.fileOf(config, serviceName);
+            CompletableFuture<Boolean> serviceImports = imports.computeIfAbsent(serviceName, name -> new CompletableFuture<>());
+            if (statusFile.isPresent()) {
+               statusFiles.put(serviceName, statusFile.get());
+            } else {
+               serviceImports.complete(true);
+            }
+         }
+      }
+      if (statusFiles.isEmpty()) {
+         return;
+      }
+      executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "microcks-imports-readiness");
+         thread.setDaemon(true);
+         return thread;
+      });
+      // Events are fired from the poll thread, so that the application keeps on starting.
+      executor.scheduleWithFixedDelay(() -> checkStatus(statusFiles), 0, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+   }
+
+   void onStop(@Observes ShutdownEvent event) {
+      if (executor != null) {
+         executor.shutdownNow();
+      }
+   }
+
+   private void checkStatus(Map<String, Path> statusFiles) {
+      boolean allDone = true;
+      for (Map.Entry<String, Path> statusFile : statusFiles.entrySet()) {
+         CompletableFuture<Boolean> serviceImports = imports(statusFile.getKey());
+         if (serviceImports.isDone()) {
+            continue;
+         }
+         String status = MicrocksImportStatus.read(statusFile.getValue()).getProperty(MicrocksImportStatus.STATUS);
+         if (MicrocksImportStatus.READY.equals(status) || MicrocksImportStatus.FAILED.equals(status)) {
+            boolean successful = MicrocksImportStatus.READY.equals(status);
+            log.debugf("Imports into Microcks service '%s' are %s", statusFile.getKey(), status);
+            serviceImports.complete(successful);
+            try {
+               readyEvent.fire(new MicrocksImportsReadyEvent(statusFile.getKey(), successful));
+            } catch (RuntimeException re) {
+               log.errorf(re, "Observer of Microcks imports of '%s' failed", statusFile.getKey());
+            }
+         } else {
+            allDone = false;
+         }
+      }
+      if (allDone) {
+         // Periodic task is not run again once executor is shut down.
+         executor.shutdown();
+      }
+   }
+
+   private CompletableFuture<Boolean> imports(String serviceName) {
+      synchronized (imports) {
+         return imports.computeIfAbsent(serviceName, name -> new CompletableFuture<>());
+      }
+   }
+
+   /**
+    * @param serviceName The name of a Microcks service
+    * @return A stage completed with whether imports ran to completion, once they're done.
+    */
+   public CompletionStage<Boolean> ready(String serviceName) {
+      return imports(serviceName).copy();
+   }
+
+   /**
+    * @return A stage completed once the imports into every Microcks service are done.
+    */
+   public CompletionStage<Void> ready() {
+      CompletableFuture<?>[] all;
+      synchronized (imports) {
+         all = imports.values().toArray(new CompletableFuture<?>[0]);
+      }
+      return CompletableFuture.allOf(all);
+   }
+
+   /**
+    * @param serviceName The name of a Microcks service
+    * @return Whether the imports into this Microcks service are done.
+    */
+   public boolean isReady(String serviceName) {
+      return imports(serviceName).isDone();
+   }
+
+   /**
+    * @return Whether the imports into every Microcks service are done.
+    */
+   public boolean isReady() {
+      return ready().toCompletableFuture().isDone();
+   }
+
+   /**
+    * @return The imports status of every Microcks service, by name.
+    */
+   public Map<String, String> statuses() {
+      Map<String, String> statuses = new LinkedHashMap<>();
+      synchronized (imports) {
+         imports.forEach((serviceName, serviceImports) -> statuses.put(serviceName, !serviceImports.isDone()
+               ? MicrocksImportStatus.IMPORTING
+               : serviceImports.join() ? MicrocksImportStatus.READY : MicrocksImportStatus.FAILED));
+      }
+      return statuses;
+   }
+
+   /**
+    * Wait for the imports into every Microcks service to be done.
+    * @param timeout The maximum time to wait for
+    * @throws IllegalStateException if imports are not done in time
+    */
+   public void await(Duration timeout) {
+      try {
+         ready().toCompletableFuture().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException te) {
+         throw new IllegalStateException("Microcks imports are not done after " + timeout + ": " + statuses());
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while waiting for Microcks imports", ie);
+      } catch (ExecutionException ee) {
+         throw new IllegalStateException("Microcks imports failed", ee.getCause());
+      }
+   }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+
+/**
+ * Readiness check that is down until the imports into every Microcks Dev Service are done. It's only registered
+ * when the SmallRye Health extension is present.
+ * @author laurent
+ */
+@Readiness
+@ApplicationScoped
+public class MicrocksImportsHealthCheck implements HealthCheck {
+
+   @Inject
+   MicrocksImports imports;
+
+   @Override
+   public HealthCheckResponse call() {
+      HealthCheckResponseBuilder builder = HealthCheckResponse.named("Microcks imports").status(imports.isReady());
+      for (Map.Entry<String, String> status : imports.statuses().entrySet()) {
+         builder.withData(status.getKey(), status.getValue());
+      }
+      return builder.build();
+   }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+/**
+ * CDI event fired once the artifacts and secrets of a Microcks Dev Service have been imported into its container.
+ * Observe it to start using mocks as soon as they are available.
+ * @author laurent
+ */
+public class MicrocksImportsReadyEvent {
+
+   private final String serviceName;
+   private final boolean successful;
+
+   public MicrocksImportsReadyEvent(String serviceName, boolean successful) {
+      this.serviceName = serviceName;
+      this.successful = successful;
+   }
+
+   /**
+    * @return The name of the Microcks service whose imports are done.
+    */
+   public String serviceName() {
+      return serviceName;
+   }
+
+   /**
+    * @return Whether imports ran to completion, some artifacts may still have failed to import.
+    */
+   public boolean successful() {
+      return successful;
+   }
+}
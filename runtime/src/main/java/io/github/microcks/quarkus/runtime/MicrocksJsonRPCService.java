@@ -4,22 +4,33 @@ import io.smallrye.common.annotation.NonBlocking;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class MicrocksJsonRPCService {
 
     @NonBlocking
     public String getConsoleDefaultLink() {
         Config globalConfig = ConfigProviderResolver.instance().getConfig();
         // TODO this should be parameterised, but that needs https://github.com/quarkusio/quarkus/pull/51659
-        String configPrefix = MicrocksProperties.getConfigPrefix("default");
-        String microcksContainerUrl = globalConfig.getValue(configPrefix
-                + MicrocksProperties.HTTP_SUFFIX, String.class);
+        return getConsoleLink(MicrocksProperties.getServiceNames(globalConfig).get(0));
+    }
+
+    @NonBlocking
+    public String getConsoleLink(String serviceName) {
+        Config globalConfig = ConfigProviderResolver.instance().getConfig();
+        String configPrefix = MicrocksProperties.getConfigPrefix(serviceName);
+        // Should never be empty unless there is no container for this service, but ...
+        return globalConfig.getOptionalValue(configPrefix + MicrocksProperties.HTTP_SUFFIX, String.class).orElse("");
+    }
 
-        if (microcksContainerUrl != null) {
-            return microcksContainerUrl;
+    @NonBlocking
+    public Map<String, String> getConsoleLinks() {
+        Config globalConfig = ConfigProviderResolver.instance().getConfig();
+        Map<String, String> consoleLinks = new LinkedHashMap<>();
+        for (String serviceName : MicrocksProperties.getServiceNames(globalConfig)) {
+            consoleLinks.put(serviceName, getConsoleLink(serviceName));
         }
-        // Should never be called unless there is a container configured, but ...
-        return "";
+        return consoleLinks;
     }
 }
-
-
@@ -15,6 +15,11 @@
  */
 package io.github.microcks.quarkus.runtime;
 
+import org.eclipse.microprofile.config.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * {@code }MicrocksProperties} are contributed by Dev Service Processor to Quarkus global configuration.
  * They may be reused at runtime so are defined in this runtime module.
@@ -37,6 +42,14 @@ public class MicrocksProperties {
    public static final String INTERNAL_HOST_SUFFIX = ".internal.host";
    public static final String LOADED_PRIMARY_ARTIFACTS = ".primary-artifacts";
    public static final String LOADED_SECONDARY_ARTIFACTS = ".secondary-artifacts";
+   public static final String ARTIFACT_DEPENDENCIES = ".artifact-dependencies";
+   public static final String ARTIFACT_SERVICES = ".artifact-services";
+   public static final String IMPORT_STATUS_FILE = ".import-status-file";
+   public static final String SERVICE_NAMES = CONFIG_PREFIX + "service-names";
+   public static final String DEFAULT_SERVICE_NAME = "default";
+   public static final String DEVSERVICES_HTTP2 = CONFIG_PREFIX + "devservices.http2";
+   public static final String DEVSERVICES_HOT_RELOAD_DEBOUNCE = CONFIG_PREFIX + "devservices.hot-reload-debounce";
+   public static final String NAMED_DEVSERVICES_PREFIX = CONFIG_PREFIX + "services.";
 
    /**
     * Get configuration properties prefix for a Microcks service.
@@ -46,4 +59,25 @@ public class MicrocksProperties {
    public static String getConfigPrefix(String serviceName) {
       return CONFIG_PREFIX + serviceName;
    }
+
+   /**
+    * Get a Dev Services property as configured for a named Dev Service.
+    * @param serviceName The name of the Microcks service
+    * @param property The property of the default Dev Service, like {@link #DEVSERVICES_HTTP2}
+    * @return The property of the named Dev Service, like {@code quarkus.microcks.services.<serviceName>.devservices.http2}.
+    */
+   public static String getNamedDevServicesProperty(String serviceName, String property) {
+      return NAMED_DEVSERVICES_PREFIX + serviceName + "." + property.substring(CONFIG_PREFIX.length());
+   }
+
+   /**
+    * Get the names of the Microcks services started by Dev Services.
+    * @param config The global configuration holding Dev Services properties
+    * @return The service names, the default one coming first. Only 'default' if none has been published.
+    */
+   public static List<String> getServiceNames(Config config) {
+      return config.getOptionalValue(SERVICE_NAMES, String.class)
+            .map(serviceNames -> Arrays.asList(serviceNames.split(",")))
+            .orElse(List.of(DEFAULT_SERVICE_NAME));
+   }
 }
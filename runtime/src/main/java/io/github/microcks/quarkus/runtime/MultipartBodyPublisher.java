@@ -0,0 +1,206 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A publisher of a multipart body holding a single file part. Part content is read from a channel by chunks,
+ * only when the Http client asks for more, so that the whole artifact is never held in memory.
+ * <p>
+ * Body is never compressed: Microcks does not decode {@code Content-Encoding: gzip} request bodies, and artifacts are
+ * uploaded to a local container where bandwidth is not the bottleneck.
+ * @author laurent
+ */
+final class MultipartBodyPublisher implements Flow.Publisher<ByteBuffer> {
+
+   /** The size of chunks read from part content. */
+   static final int CHUNK_SIZE = 64 * 1024;
+
+   private static final String CRLF = "\r\n";
+
+   /** Opens the channel of part content, once per subscription. */
+   @FunctionalInterface
+   interface ContentOpener {
+      ReadableByteChannel open() throws IOException;
+   }
+
+   private final byte[] preamble;
+   private final byte[] epilogue;
+   private final ContentOpener contentOpener;
+   private final long contentSize;
+   private final AtomicLong bytesPublished = new AtomicLong();
+
+   /**
+    * Build a new publisher.
+    * @param boundary The multipart boundary
+    * @param fieldName The name of the form field holding the file
+    * @param fileName The name of the file
+    * @param contentOpener The opener of the channel to read file content from
+    * @param contentSize The size of file content, or -1 if unknown
+    */
+   MultipartBodyPublisher(String boundary, String fieldName, String fileName, ContentOpener contentOpener,
+                          long contentSize) {
+      this.preamble = ("--" + boundary + CRLF
+            + "Content-Disposition: form-data; name=\"" + fieldName + "\"; filename=\"" + fileName + "\"" + CRLF
+            + "Content-Type: application/octet-stream" + CRLF + CRLF).getBytes(StandardCharsets.UTF_8);
+      this.epilogue = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
+      this.contentOpener = contentOpener;
+      this.contentSize = contentSize;
+   }
+
+   /**
+    * @return The length of the body, or -1 if it cannot be known before being sent.
+    */
+   long contentLength() {
+      if (contentSize < 0) {
+         return -1;
+      }
+      return preamble.length + contentSize + epilogue.length;
+   }
+
+   /**
+    * @return The number of bytes published so far, counting every subscription.
+    */
+   long bytesPublished() {
+      return bytesPublished.get();
+   }
+
+   @Override
+   public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      subscriber.onSubscribe(new MultipartSubscription(subscriber));
+   }
+
+   /** A subscription reading the body chunk by chunk, driven by subscriber demand. */
+   private final class MultipartSubscription implements Flow.Subscription {
+
+      private static final int PREAMBLE = 0;
+      private static final int CONTENT = 1;
+      private static final int EPILOGUE = 2;
+      private static final int COMPLETE = 3;
+
+      private final Flow.Subscriber<? super ByteBuffer> subscriber;
+      private final AtomicLong demand = new AtomicLong();
+      private final AtomicInteger wip = new AtomicInteger();
+
+      private volatile boolean cancelled;
+      private boolean done;
+      private int stage = PREAMBLE;
+      private ReadableByteChannel channel;
+
+      MultipartSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+         this.subscriber = subscriber;
+      }
+
+      @Override
+      public void request(long n) {
+         if (n <= 0) {
+            cancelled = true;
+            drain();
+            subscriber.onError(new IllegalArgumentException("Requested demand must be positive: " + n));
+            return;
+         }
+         demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+         drain();
+      }
+
+      @Override
+      public void cancel() {
+         cancelled = true;
+         drain();
+      }
+
+      private void drain() {
+         // Only one thread emits at a time, re-entrant requests from onNext are handled by the running loop.
+         if (wip.getAndIncrement() != 0) {
+            return;
+         }
+         do {
+            while (!done && !cancelled && demand.get() > 0) {
+               ByteBuffer chunk;
+               try {
+                  chunk = nextChunk();
+               } catch (IOException ioe) {
+                  release();
+                  subscriber.onError(ioe);
+                  break;
+               }
+               if (chunk == null) {
+                  release();
+                  subscriber.onComplete();
+                  break;
+               }
+               if (chunk.hasRemaining()) {
+                  demand.decrementAndGet();
+                  bytesPublished.addAndGet(chunk.remaining());
+                  subscriber.onNext(chunk);
+               }
+            }
+            if (cancelled) {
+               release();
+            }
+         } while (wip.decrementAndGet() != 0);
+      }
+
+      private ByteBuffer nextChunk() throws IOException {
+         switch (stage) {
+            case PREAMBLE:
+               channel = contentOpener.open();
+               stage = CONTENT;
+               return ByteBuffer.wrap(preamble);
+            case CONTENT:
+               ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+               int read = 0;
+               while (buffer.hasRemaining() && (read = channel.read(buffer)) >= 0) {
+                  // Fill the chunk as much as possible.
+               }
+               if (read < 0) {
+                  closeChannel();
+                  stage = EPILOGUE;
+               }
+               buffer.flip();
+               return buffer;
+            case EPILOGUE:
+               stage = COMPLETE;
+               return ByteBuffer.wrap(epilogue);
+            default:
+               return null;
+         }
+      }
+
+      private void release() {
+         done = true;
+         closeChannel();
+      }
+
+      private void closeChannel() {
+         if (channel != null) {
+            try {
+               channel.close();
+            } catch (IOException ioe) {
+               // Nothing to do, content has already been read.
+            }
+            channel = null;
+         }
+      }
+   }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.github.microcks.testcontainers.model.Secret;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A poller of the remote artifacts loaded into Microcks Dev Service. Each remote artifact is checked with a conditional
+ * request ({@code If-None-Match} / {@code If-Modified-Since}) and Microcks is only asked to download it again when
+ * upstream content actually changed. Artifacts declared with a secret are checked with this secret credentials. As
+ * Microcks rebuilds the service of a primary artifact downloaded again, every secondary remote artifact is downloaded
+ * again after a primary one, even if unchanged. Only token and basic credentials of secrets are used: an artifact whose
+ * location cannot be reached, such as one served with a certificate of a private authority, is reported once at warn level.
+ * @author laurent
+ */
+public final class RemoteArtifactsPoller implements AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(RemoteArtifactsPoller.class);
+
+   private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+   /** Running pollers, by Microcks service name. */
+   private static final Map<String, RemoteArtifactsPoller> pollers = new HashMap<>();
+
+   private final String microcksContainerUrl;
+   private final MicrocksArtifactUploader uploader;
+   private final List<PolledArtifact> artifacts;
+   private final Map<String, Secret> secrets;
+   private final long intervalMillis;
+   private final long jitterMillis;
+   private final ScheduledExecutorService executor;
+
+   private RemoteArtifactsPoller(String serviceName, String microcksContainerUrl, MicrocksArtifactUploader uploader,
+                                 List<PolledArtifact> artifacts, Map<String, Secret> secrets, Duration interval, Duration jitter) {
+      this.microcksContainerUrl = microcksContainerUrl;
+      this.uploader = uploader;
+      this.artifacts = artifacts;
+      this.secrets = secrets;
+      this.intervalMillis = Math.max(1, interval.toMillis());
+      this.jitterMillis = Math.max(0, jitter.toMillis());
+      this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "microcks-remote-poller-" + serviceName);
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Start polling remote artifacts of a Microcks service, replacing any previous poller of this service.
+    * @param serviceName The name of Microcks service
+    * @param microcksContainerUrl The Http endpoint of the Microcks container
+    * @param uploader The uploader to use for asking Microcks to download artifacts again
+    * @param primaries The primary remote artifacts, as {@code url} or {@code url|secretName} entries
+    * @param secondaries The secondary remote artifacts, as {@code url} or {@code url|secretName} entries
+    * @param secrets The secrets that may be used by remote artifacts, by name
+    * @param interval The interval between two polls
+    * @param jitter The maximum random delay added to each interval
+    */
+   public static synchronized void start(String serviceName, String microcksContainerUrl, MicrocksArtifactUploader uploader,
+                                         List<String> primaries, List<String> secondaries, Map<String, Secret> secrets,
+                                         Duration interval, Duration jitter) {
+      stop(serviceName);
+      List<PolledArtifact> artifacts = new ArrayList<>();
+      primaries.forEach(entry -> artifacts.add(PolledArtifact.parse(entry, true)));
+      secondaries.forEach(entry -> artifacts.add(PolledArtifact.parse(entry, false)));
+      if (artifacts.isEmpty()) {
+         return;
+      }
+      RemoteArtifactsPoller poller = new RemoteArtifactsPoller(serviceName, microcksContainerUrl, uploader, artifacts,
+            secrets, interval, jitter);
+      pollers.put(serviceName, poller);
+      // First poll only records current validators as Microcks has just downloaded artifacts.
+      poller.executor.execute(poller::pollAndReschedule);
+   }
+
+   /**
+    * Stop polling remote artifacts of a Microcks service.
+    * @param serviceName The name of Microcks service
+    */
+   public static synchronized void stop(String serviceName) {
+      RemoteArtifactsPoller poller = pollers.remove(serviceName);
+      if (poller != null) {
+         poller.close();
+      }
+   }
+
+   @Override
+   public void close() {
+      executor.shutdownNow();
+   }
+
+   private void pollAndReschedule() {
+      try {
+         downloadChanged(poll());
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         return;
+      }
+
+      long delay = intervalMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+      if (!executor.isShutdown()) {
+         executor.schedule(this::pollAndReschedule, delay, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private List<PolledArtifact> poll() throws InterruptedException {
+      List<PolledArtifact> changed = new ArrayList<>();
+      for (PolledArtifact artifact : artifacts) {
+         try {
+            if (artifact.poll(secrets.get(artifact.secretName))) {
+               changed.add(artifact);
+            }
+            artifact.failing = false;
+         } catch (IOException | RuntimeException e) {
+            // Warn once per failure streak, so that an artifact never reloaded (eg. TLS handshake failures) is noticed.
+            if (!artifact.failing) {
+               log.warnf("Failed to poll remote artifact '%s', it will not be reloaded until polls succeed again: %s",
+                     artifact.url, e.getMessage());
+            } else {
+               log.debugf("Failed to poll remote artifact '%s': %s", artifact.url, e.getMessage());
+            }
+            artifact.failing = true;
+         }
+      }
+      // Services of changed primary artifacts are rebuilt, losing what secondary ones brought.
+      if (changed.stream().anyMatch(artifact -> artifact.primary)) {
+         artifacts.stream().filter(artifact -> !artifact.primary && !changed.contains(artifact)).forEach(changed::add);
+      }
+      return changed;
+   }
+
+   private void downloadChanged(List<PolledArtifact> changed) {
+      // Primary artifacts are downloaded again before secondary ones.
+      changed.sort((a1, a2) -> Boolean.compare(a2.primary, a1.primary));
+      for (PolledArtifact artifact : changed) {
+         log.infof("Downloading remote artifact '%s' again as %s artifact", artifact.url,
+               artifact.primary ? "primary" : "secondary");
+         try {
+            uploader.downloadArtifact(microcksContainerUrl, artifact.url, artifact.secretName, artifact.primary);
+         } catch (IOException | RuntimeException e) {
+            log.errorf("Error while downloading remote artifact %s in Microcks: %s", artifact.url, e.getMessage());
+         }
+      }
+   }
+
+   /** A polled remote artifact and the validators of its last known content. */
+   private static final class PolledArtifact {
+      private final String url;
+      private final String secretName;
+      private final boolean primary;
+      private boolean initialized;
+      private boolean failing;
+      private String etag;
+      private String lastModified;
+      private String contentHash;
+
+      private PolledArtifact(String url, String secretName, boolean primary) {
+         this.url = url;
+         this.secretName = secretName;
+         this.primary = primary;
+      }
+
+      static PolledArtifact parse(String entry, boolean primary) {
+         if (entry.contains("|")) {
+            String[] parts = entry.split("\\|", 2);
+            return new PolledArtifact(parts[0], parts[1], primary);
+         }
+         return new PolledArtifact(entry, null, primary);
+      }
+
+      /**
+       * Check whether upstream content changed since the previous poll.
+       * @param secret The secret to authenticate with, may be null
+       * @return True if content changed, false if unchanged or on first poll.
+       */
+      boolean poll(Secret secret) throws IOException, InterruptedException {
+         HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET();
+         if (etag != null) {
+            builder.header("If-None-Match", etag);
+         }
+         if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+         }
+         addCredentials(builder, secret);
+
+         HttpResponse<InputStream> response = UpstreamClientHolder.CLIENT.send(builder.build(),
+               HttpResponse.BodyHandlers.ofInputStream());
+         try (InputStream body = response.body()) {
+            if (response.statusCode() == 304) {
+               return false;
+            }
+            if (response.statusCode() != 200) {
+               throw new IOException("Unexpected status " + response.statusCode());
+            }
+            etag = response.headers().firstValue("ETag").orElse(null);
+            lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            // Validators may change without content changing (eg. after a redeployment), so compare content too.
+            String previousHash = contentHash;
+            contentHash = sha256(body);
+            boolean changed = initialized && !contentHash.equals(previousHash);
+            initialized = true;
+            return changed;
+         }
+      }
+
+      private static void addCredentials(HttpRequest.Builder builder, Secret secret) {
+         if (secret == null) {
+            return;
+         }
+         if (secret.getToken() != null) {
+            if (secret.getTokenHeader() != null) {
+               builder.header(secret.getTokenHeader(), secret.getToken());
+            } else {
+               builder.header("Authorization", "Bearer " + secret.getToken());
+            }
+         } else if (secret.getUsername() != null && secret.getPassword() != null) {
+            builder.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                  (secret.getUsername() + ":" + secret.getPassword()).getBytes(StandardCharsets.UTF_8)));
+         }
+      }
+
+      private static String sha256(InputStream content) throws IOException {
+         MessageDigest digest;
+         try {
+            digest = MessageDigest.getInstance("SHA-256");
+         } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+         }
+         byte[] buffer = new byte[8192];
+         int read;
+         while ((read = content.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+         }
+         return Base64.getEncoder().encodeToString(digest.digest());
+      }
+   }
+
+   /** Lazy holder of the client used to reach upstream artifacts locations. */
+   private static final class UpstreamClientHolder {
+      static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+   }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ArtifactDependenciesTest {
+
+    @Test
+    public void testEncodeAndDecode() {
+        Map<String, List<String>> secondariesByPrimary = new LinkedHashMap<>();
+        secondariesByPrimary.put("apis/pastry-openapi.yaml", List.of("apis/pastry-examples.yaml", "apis/pastry-metadata.yaml"));
+        secondariesByPrimary.put("apis/beer-openapi.yaml", List.of());
+        secondariesByPrimary.put("apis/order-asyncapi.yaml", List.of("apis/order-examples.yaml"));
+
+        String encoded = ArtifactDependencies.encode(secondariesByPrimary);
+        Assertions.assertEquals("apis%2Fpastry-openapi.yaml=apis%2Fpastry-examples.yaml;apis%2Fpastry-metadata.yaml,"
+                + "apis%2Forder-asyncapi.yaml=apis%2Forder-examples.yaml", encoded);
+
+        Map<String, List<String>> decoded = ArtifactDependencies.decode(encoded);
+        Assertions.assertEquals(2, decoded.size());
+        Assertions.assertEquals(List.of("apis/pastry-examples.yaml", "apis/pastry-metadata.yaml"),
+                decoded.get("apis/pastry-openapi.yaml"));
+        Assertions.assertEquals(List.of("apis/order-examples.yaml"), decoded.get("apis/order-asyncapi.yaml"));
+        Assertions.assertFalse(decoded.containsKey("apis/beer-openapi.yaml"));
+    }
+
+    @Test
+    public void testEncodeAndDecodeWithSeparatorsInPaths() {
+        Map<String, List<String>> secondariesByPrimary = new LinkedHashMap<>();
+        secondariesByPrimary.put("apis/v=1,2/pastry-openapi.yaml", List.of("apis/v=1,2/pastry;examples.yaml", "apis/100% pastry.yaml"));
+        secondariesByPrimary.put("apis/beer-openapi.yaml", List.of("apis/beer-examples.yaml"));
+
+        Map<String, List<String>> decoded = ArtifactDependencies.decode(ArtifactDependencies.encode(secondariesByPrimary));
+        Assertions.assertEquals(secondariesByPrimary, decoded);
+    }
+
+    @Test
+    public void testDecodeEmpty() {
+        Assertions.assertTrue(ArtifactDependencies.decode(null).isEmpty());
+        Assertions.assertTrue(ArtifactDependencies.decode("").isEmpty());
+        Assertions.assertTrue(ArtifactDependencies.decode("=apis/pastry-examples.yaml").isEmpty());
+        Assertions.assertEquals("", ArtifactDependencies.encode(Map.of()));
+    }
+}
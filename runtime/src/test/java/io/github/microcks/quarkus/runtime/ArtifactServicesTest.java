@@ -0,0 +1,82 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ArtifactServicesTest {
+
+    @Test
+    public void testEncodeAndDecode() {
+        ArtifactServices services = new ArtifactServices();
+        services.put("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        // Separators and escapes in artifact keys or service names must survive encoding.
+        services.put("/app/odd,name=1%.yaml", "Odd, API=1:2.0 %");
+        services.put("/app/ignored-openapi.yaml", null);
+
+        String encoded = services.encode();
+        Assertions.assertEquals("%2Fapp%2Fodd%2Cname%3D1%25.yaml=Odd%2C+API%3D1%3A2.0+%25,"
+                + "%2Fapp%2Fpastry-openapi.yaml=Pastry+API%3A1.0.0", encoded);
+
+        ArtifactServices decoded = ArtifactServices.decode(encoded);
+        Assertions.assertEquals(2, decoded.size());
+        Assertions.assertEquals("Pastry API:1.0.0", decoded.get("/app/pastry-openapi.yaml"));
+        Assertions.assertEquals("Odd, API=1:2.0 %", decoded.get("/app/odd,name=1%.yaml"));
+        Assertions.assertNull(decoded.get("/app/ignored-openapi.yaml"));
+        Assertions.assertEquals(encoded, decoded.encode());
+    }
+
+    @Test
+    public void testDecodeEmpty() {
+        Assertions.assertEquals(0, ArtifactServices.decode(null).size());
+        Assertions.assertEquals(0, ArtifactServices.decode("").size());
+        Assertions.assertEquals(0, ArtifactServices.decode("malformed").size());
+        Assertions.assertEquals("", new ArtifactServices().encode());
+    }
+
+    @Test
+    public void testRemove() {
+        ArtifactServices services = new ArtifactServices();
+        services.put("/app/pastry-openapi.yaml", "Pastry API:1.0.0");
+        services.put("/app/pastries-openapi.yaml", "Pastry API:1.0.0");
+        services.put("/app/beer-openapi.yaml", "Beer API:1.0.0");
+
+        // Another artifact still defines this service.
+        Assertions.assertNull(services.remove("/app/pastry-openapi.yaml"));
+        Assertions.assertEquals("Pastry API:1.0.0", services.remove("/app/pastries-openapi.yaml"));
+        Assertions.assertEquals("Beer API:1.0.0", services.remove("/app/beer-openapi.yaml"));
+        Assertions.assertNull(services.remove("/app/unknown-openapi.yaml"));
+        Assertions.assertEquals(0, services.size());
+    }
+
+    @Test
+    public void testIsPrimaryArtifact() {
+        Assertions.assertTrue(ArtifactServices.isPrimaryArtifact("apis/pastry-openapi.yaml"));
+        Assertions.assertTrue(ArtifactServices.isPrimaryArtifact("pastry.graphql"));
+        Assertions.assertFalse(ArtifactServices.isPrimaryArtifact("apis/pastry-examples.yaml"));
+        Assertions.assertFalse(ArtifactServices.isPrimaryArtifact("application.properties"));
+    }
+
+    @Test
+    public void testServiceOf() {
+        Assertions.assertEquals("Pastry API:1.0.0",
+                ArtifactServices.serviceOf(new MicrocksArtifactUploader.UploadResult(201, "Pastry API:1.0.0\n", 100, 0)));
+        Assertions.assertNull(ArtifactServices.serviceOf(new MicrocksArtifactUploader.UploadResult(201, "", 100, 0)));
+        Assertions.assertNull(ArtifactServices.serviceOf(new MicrocksArtifactUploader.UploadResult(201, null, 100, 0)));
+        Assertions.assertNull(ArtifactServices.serviceOf(new MicrocksArtifactUploader.UploadResult(201, ":1.0.0", 100, 0)));
+    }
+}
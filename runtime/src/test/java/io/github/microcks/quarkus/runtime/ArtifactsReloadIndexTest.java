@@ -0,0 +1,158 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ArtifactsReloadIndexTest {
+
+    private static final String PREFIX = MicrocksProperties.getConfigPrefix(MicrocksProperties.DEFAULT_SERVICE_NAME);
+
+    @TempDir
+    Path resourcesDir;
+
+    private URLClassLoader classLoader;
+    private final Map<String, String> properties = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(resourcesDir.resolve("apis"));
+        Files.writeString(resourcesDir.resolve("apis/pastry-openapi.yaml"), "openapi: 3.0.0");
+        Files.writeString(resourcesDir.resolve("apis/pastry-examples.yaml"), "kind: APIExamples");
+        Files.writeString(resourcesDir.resolve("apis/pastry-metadata.yaml"), "kind: APIMetadata");
+        classLoader = new URLClassLoader(new URL[] { resourcesDir.toUri().toURL() }, null);
+
+        properties.put(PREFIX + MicrocksProperties.HTTP_SUFFIX, "http://localhost:8585");
+        properties.put(PREFIX + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS, "apis/pastry-openapi.yaml,apis/deleted-openapi.yaml");
+        properties.put(PREFIX + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS, "apis/pastry-examples.yaml,apis/pastry-metadata.yaml");
+        properties.put(PREFIX + MicrocksProperties.ARTIFACT_DEPENDENCIES,
+                "apis/pastry-openapi.yaml=apis/pastry-examples.yaml;apis/pastry-metadata.yaml");
+        properties.put(PREFIX + MicrocksProperties.ARTIFACT_SERVICES, "apis%2Fpastry-openapi.yaml=Pastry+API%3A1.0.0");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        classLoader.close();
+    }
+
+    @Test
+    public void testBuild() {
+        ArtifactsReloadIndex index = ArtifactsReloadIndex.build(config(), MicrocksProperties.DEFAULT_SERVICE_NAME, classLoader);
+
+        Assertions.assertEquals("http://localhost:8585", index.microcksContainerUrl());
+        Assertions.assertNotNull(index.uploader());
+        // Deleted artifact cannot be resolved anymore.
+        Assertions.assertEquals(3, index.size());
+        Assertions.assertNull(index.get("apis/deleted-openapi.yaml"));
+        Assertions.assertNull(index.get("application.properties"));
+
+        ArtifactsReloadIndex.Entry primary = index.get("apis/pastry-openapi.yaml");
+        Assertions.assertTrue(primary.primary);
+        Assertions.assertEquals(resourcesDir.resolve("apis/pastry-openapi.yaml").toFile().getAbsoluteFile(),
+                primary.file.getAbsoluteFile());
+        Assertions.assertFalse(index.get("apis/pastry-examples.yaml").primary);
+
+        Assertions.assertEquals(List.of("apis/pastry-examples.yaml", "apis/pastry-metadata.yaml"),
+                index.secondariesOf("apis/pastry-openapi.yaml"));
+        Assertions.assertTrue(index.secondariesOf("apis/pastry-examples.yaml").isEmpty());
+        Assertions.assertEquals(List.of("apis/pastry-openapi.yaml"), index.primariesOf("apis/pastry-metadata.yaml"));
+        Assertions.assertTrue(index.primariesOf("apis/pastry-openapi.yaml").isEmpty());
+
+        Assertions.assertEquals("apis%2Fpastry-openapi.yaml=Pastry+API%3A1.0.0", index.encodedServices());
+        Assertions.assertEquals("Pastry API:1.0.0", ArtifactServices.decode(index.encodedServices()).get("apis/pastry-openapi.yaml"));
+    }
+
+    @Test
+    public void testResolveAddedArtifact() throws IOException {
+        ArtifactsReloadIndex index = ArtifactsReloadIndex.build(config(), MicrocksProperties.DEFAULT_SERVICE_NAME, classLoader);
+        // A renamed artifact is not indexed but can still be resolved.
+        Files.writeString(resourcesDir.resolve("apis/pastries-openapi.yaml"), "openapi: 3.0.0");
+
+        Assertions.assertNull(index.get("apis/pastries-openapi.yaml"));
+        Assertions.assertEquals(resourcesDir.resolve("apis/pastries-openapi.yaml").toFile().getAbsoluteFile(),
+                index.resolve("apis/pastries-openapi.yaml").getAbsoluteFile());
+        Assertions.assertNull(index.resolve("apis/unknown-openapi.yaml"));
+    }
+
+    @Test
+    public void testBuildFromImportStatus() {
+        // Imports that ran in the background publish loaded artifacts into their status file.
+        Path statusFile = resourcesDir.resolve("import-status.properties");
+        properties.put(PREFIX + MicrocksProperties.IMPORT_STATUS_FILE, statusFile.toString());
+        MicrocksImportStatus.write(statusFile, MicrocksImportStatus.READY, Map.of(
+                PREFIX + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS, "apis/pastry-openapi.yaml",
+                PREFIX + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS, "apis/pastry-examples.yaml",
+                PREFIX + MicrocksProperties.ARTIFACT_DEPENDENCIES, "apis/pastry-openapi.yaml=apis/pastry-examples.yaml"));
+
+        ArtifactsReloadIndex index = ArtifactsReloadIndex.build(config(), MicrocksProperties.DEFAULT_SERVICE_NAME, classLoader);
+        Assertions.assertEquals(2, index.size());
+        Assertions.assertNull(index.get("apis/pastry-metadata.yaml"));
+        Assertions.assertEquals(List.of("apis/pastry-examples.yaml"), index.secondariesOf("apis/pastry-openapi.yaml"));
+        // Services that are not in status file are still read from configuration.
+        Assertions.assertEquals("apis%2Fpastry-openapi.yaml=Pastry+API%3A1.0.0", index.encodedServices());
+    }
+
+    @Test
+    public void testBuildWithoutLoadedArtifacts() {
+        properties.remove(PREFIX + MicrocksProperties.LOADED_PRIMARY_ARTIFACTS);
+        properties.remove(PREFIX + MicrocksProperties.LOADED_SECONDARY_ARTIFACTS);
+        properties.remove(PREFIX + MicrocksProperties.ARTIFACT_DEPENDENCIES);
+        properties.remove(PREFIX + MicrocksProperties.ARTIFACT_SERVICES);
+
+        ArtifactsReloadIndex index = ArtifactsReloadIndex.build(config(), MicrocksProperties.DEFAULT_SERVICE_NAME, classLoader);
+        Assertions.assertEquals(0, index.size());
+        Assertions.assertTrue(index.secondariesOf("apis/pastry-openapi.yaml").isEmpty());
+        Assertions.assertEquals("", index.encodedServices());
+    }
+
+    @Test
+    public void testGetDevServicesValue() {
+        properties.put(MicrocksProperties.DEVSERVICES_HOT_RELOAD_DEBOUNCE, "PT1S");
+        properties.put("quarkus.microcks.services.payments.devservices.hot-reload-debounce", "PT0.05S");
+        SmallRyeConfig config = config();
+
+        // A named Dev Service falls back to the default one.
+        Assertions.assertEquals(Duration.ofMillis(50), ArtifactsReloadIndex.getDevServicesValue(config, "payments",
+                MicrocksProperties.DEVSERVICES_HOT_RELOAD_DEBOUNCE, Duration.class).orElseThrow());
+        Assertions.assertEquals(Duration.ofSeconds(1), ArtifactsReloadIndex.getDevServicesValue(config, "orders",
+                MicrocksProperties.DEVSERVICES_HOT_RELOAD_DEBOUNCE, Duration.class).orElseThrow());
+        Assertions.assertTrue(ArtifactsReloadIndex.getDevServicesValue(config, "payments",
+                MicrocksProperties.DEVSERVICES_HTTP2, Boolean.class).isEmpty());
+    }
+
+    private SmallRyeConfig config() {
+        return new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(properties, "test", 100))
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ArtifactsReloadQueueTest {
+
+    @Test
+    public void testBurstIsDebouncedIntoOneBatch() throws Exception {
+        BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+        try (ArtifactsReloadQueue queue = new ArtifactsReloadQueue(200, batches::add)) {
+            queue.submit(Set.of("pastry-openapi.yaml"));
+            queue.submit(Set.of("pastry-examples.yaml"));
+            queue.submit(Set.of("beer-openapi.yaml"));
+
+            Set<String> batch = batches.poll(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(Set.of("pastry-openapi.yaml", "pastry-examples.yaml", "beer-openapi.yaml"), batch);
+            Assertions.assertNull(batches.poll(500, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void testDuplicatesAreCoalesced() throws Exception {
+        BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+        try (ArtifactsReloadQueue queue = new ArtifactsReloadQueue(200, batches::add)) {
+            queue.submit(Set.of("pastry-openapi.yaml"));
+            queue.submit(Set.of("pastry-examples.yaml"));
+            queue.submit(Set.of("pastry-openapi.yaml"));
+
+            Set<String> batch = batches.poll(10, TimeUnit.SECONDS);
+            // Files keep the order they have first been changed in.
+            Assertions.assertEquals(List.of("pastry-openapi.yaml", "pastry-examples.yaml"), List.copyOf(batch));
+        }
+    }
+
+    @Test
+    public void testLaterChangesGoInNextBatch() throws Exception {
+        BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+        try (ArtifactsReloadQueue queue = new ArtifactsReloadQueue(100, batches::add)) {
+            queue.submit(Set.of("pastry-openapi.yaml"));
+            Assertions.assertEquals(Set.of("pastry-openapi.yaml"), batches.poll(10, TimeUnit.SECONDS));
+
+            queue.submit(Set.of());
+            queue.submit(Set.of("pastry-examples.yaml"));
+            Assertions.assertEquals(Set.of("pastry-examples.yaml"), batches.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testFailureDoesNotStopQueue() throws Exception {
+        BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+        try (ArtifactsReloadQueue queue = new ArtifactsReloadQueue(100, batch -> {
+            batches.add(batch);
+            throw new IllegalStateException("Microcks is not reachable");
+        })) {
+            queue.submit(Set.of("pastry-openapi.yaml"));
+            Assertions.assertNotNull(batches.poll(10, TimeUnit.SECONDS));
+            queue.submit(Set.of("pastry-examples.yaml"));
+            Assertions.assertEquals(Set.of("pastry-examples.yaml"), batches.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testFlushUsesSubmitterClassLoader() throws Exception {
+        AtomicReference<ClassLoader> flushClassLoader = new AtomicReference<>();
+        BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+        Thread thread = Thread.currentThread();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        try (URLClassLoader devModeClassLoader = new URLClassLoader(new URL[0], previousClassLoader);
+             ArtifactsReloadQueue queue = new ArtifactsReloadQueue(50, batch -> {
+                 flushClassLoader.set(Thread.currentThread().getContextClassLoader());
+                 batches.add(batch);
+             })) {
+            thread.setContextClassLoader(devModeClassLoader);
+            try {
+                queue.submit(Set.of("pastry-openapi.yaml"));
+            } finally {
+                thread.setContextClassLoader(previousClassLoader);
+            }
+            Assertions.assertNotNull(batches.poll(10, TimeUnit.SECONDS));
+            Assertions.assertSame(devModeClassLoader, flushClassLoader.get());
+        }
+    }
+}
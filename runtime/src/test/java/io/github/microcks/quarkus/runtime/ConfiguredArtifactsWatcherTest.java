@@ -0,0 +1,126 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ConfiguredArtifactsWatcherTest {
+
+    private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]+)\"");
+    private static final String SERVICE_NAME = "watcher-test";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer microcks;
+    private String microcksUrl;
+    private final List<String> uploads = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startMicrocks() throws IOException {
+        // A fake Microcks, recording the names of uploaded artifacts.
+        microcks = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        microcks.createContext("/api/artifact/upload", exchange -> {
+            try (InputStream is = exchange.getRequestBody()) {
+                Matcher matcher = FILE_NAME.matcher(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                if (matcher.find()) {
+                    uploads.add(matcher.group(1));
+                }
+            }
+            respond(exchange, 201, "Pastry API:1.0.0");
+        });
+        microcks.start();
+        microcksUrl = "http://localhost:" + microcks.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopMicrocks() {
+        ConfiguredArtifactsWatcher.stop(SERVICE_NAME);
+        microcks.stop(0);
+    }
+
+    @Test
+    public void testReloadChangedArtifacts() throws Exception {
+        Path primary = Files.writeString(tempDir.resolve("pastry-openapi.yaml"), "openapi: 3.0.0");
+        Path secondary = Files.writeString(tempDir.resolve("pastry-examples.yaml"), "kind: APIExamples");
+        Files.writeString(tempDir.resolve("unrelated.txt"), "unrelated");
+        start(primary, secondary);
+
+        // A changed secondary artifact is imported alone.
+        Files.writeString(secondary, "kind: APIExamples\n");
+        awaitUploads(1);
+        Assertions.assertEquals(List.of("pastry-examples.yaml"), uploads);
+
+        // A changed primary artifact is imported again with every configured secondary one.
+        uploads.clear();
+        Files.writeString(primary, "openapi: 3.0.1");
+        Files.writeString(tempDir.resolve("unrelated.txt"), "still unrelated");
+        awaitUploads(2);
+        Assertions.assertEquals(List.of("pastry-openapi.yaml", "pastry-examples.yaml"), uploads);
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        Path primary = Files.writeString(tempDir.resolve("pastry-openapi.yaml"), "openapi: 3.0.0");
+        start(primary, tempDir.resolve("missing/pastry-examples.yaml"));
+        ConfiguredArtifactsWatcher.stop(SERVICE_NAME);
+
+        Files.writeString(primary, "openapi: 3.0.1");
+        Thread.sleep(500);
+        Assertions.assertTrue(uploads.isEmpty());
+    }
+
+    private void start(Path primary, Path secondary) {
+        ConfiguredArtifactsWatcher.start(SERVICE_NAME, microcksUrl, MicrocksArtifactUploader.getInstance(false),
+                List.of(primary), List.of(secondary), new ArtifactServices(), Duration.ofMillis(50));
+    }
+
+    private void awaitUploads(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (uploads.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        // Leave time for unexpected extra uploads.
+        Thread.sleep(200);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
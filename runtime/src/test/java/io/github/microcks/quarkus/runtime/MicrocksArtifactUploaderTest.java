@@ -0,0 +1,203 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.github.microcks.testcontainers.model.Secret;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MicrocksArtifactUploaderTest {
+
+    private static final String CONTENT = "openapi: 3.0.0";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer microcks;
+    private String microcksUrl;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger drops = new AtomicInteger();
+    private final MicrocksArtifactUploader uploader = MicrocksArtifactUploader.getInstance(false);
+
+    @BeforeEach
+    public void startMicrocks() throws IOException {
+        // A fake Microcks, only knowing about the Pastry API service.
+        microcks = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        microcks.createContext("/", exchange -> {
+            String body;
+            try (InputStream is = exchange.getRequestBody()) {
+                body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (drops.getAndUpdate(drop -> Math.max(0, drop - 1)) > 0) {
+                // Connection is closed without any response, like a kept-alive one Microcks has dropped.
+                exchange.close();
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            requests.add(exchange.getRequestMethod() + " " + path
+                    + (exchange.getRequestURI().getRawQuery() != null ? "?" + exchange.getRequestURI().getRawQuery() : ""));
+            bodies.add(body);
+            if ("/api/artifact/upload".equals(path)) {
+                respond(exchange, body.contains("invalid") ? 400 : 201, "Pastry API:1.0.0");
+            } else if ("/api/artifact/download".equals(path) || "/api/secrets".equals(path)) {
+                respond(exchange, 201, "");
+            } else if ("/api/secrets/search".equals(path)) {
+                respond(exchange, 200, exchange.getRequestURI().getQuery().equals("name=github")
+                        ? "[{\"id\":\"github-token-id\",\"name\":\"github-token\"},{\"id\":\"github-id\",\"name\":\"github\"}]" : "[]");
+            } else if ("/api/secrets/github-id".equals(path) && "PUT".equals(exchange.getRequestMethod())) {
+                respond(exchange, 200, "");
+            } else if ("/api/services/Pastry API:1.0.0".equals(path)) {
+                respond(exchange, 200, "{\"id\":\"pastry-id\",\"name\":\"Pastry API\",\"version\":\"1.0.0\"}");
+            } else if ("/api/services/pastry-id".equals(path) && "DELETE".equals(exchange.getRequestMethod())) {
+                respond(exchange, 200, "");
+            } else {
+                respond(exchange, 404, "");
+            }
+        });
+        microcks.start();
+        microcksUrl = "http://localhost:" + microcks.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopMicrocks() {
+        microcks.stop(0);
+    }
+
+    @Test
+    public void testImportArtifactFile() throws Exception {
+        Path artifact = Files.write(tempDir.resolve("pastry-examples.yaml"), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+        MicrocksArtifactUploader.UploadResult result = uploader.importArtifact(microcksUrl, artifact, false);
+
+        Assertions.assertEquals(201, result.statusCode());
+        Assertions.assertEquals("Pastry API:1.0.0", result.body());
+        Assertions.assertEquals(0, result.retries());
+        Assertions.assertEquals(bodies.get(0).length(), result.bytesSent());
+        Assertions.assertEquals(List.of("POST /api/artifact/upload?mainArtifact=false"), requests);
+        Assertions.assertTrue(bodies.get(0).contains("filename=\"pastry-examples.yaml\""));
+        Assertions.assertTrue(bodies.get(0).contains(CONTENT));
+    }
+
+    @Test
+    public void testImportArtifactStream() throws Exception {
+        InputStream content = new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+
+        MicrocksArtifactUploader.UploadResult result = uploader.importArtifact(microcksUrl, "pastry-openapi.yaml", content, true);
+
+        Assertions.assertEquals(201, result.statusCode());
+        Assertions.assertEquals(List.of("POST /api/artifact/upload"), requests);
+        Assertions.assertTrue(bodies.get(0).contains(CONTENT));
+    }
+
+    @Test
+    public void testImportRejectedArtifact() throws Exception {
+        Path artifact = Files.write(tempDir.resolve("pastry-openapi.yaml"), "invalid".getBytes(StandardCharsets.UTF_8));
+
+        MicrocksArtifactUploader.UploadException exception = Assertions.assertThrows(MicrocksArtifactUploader.UploadException.class,
+                () -> uploader.importArtifact(microcksUrl, artifact, true));
+        Assertions.assertEquals(400, exception.getResult().statusCode());
+        Assertions.assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void testDroppedUploadNotRetried() throws Exception {
+        Path artifact = Files.write(tempDir.resolve("pastry-openapi.yaml"), CONTENT.getBytes(StandardCharsets.UTF_8));
+        drops.set(1);
+
+        // Microcks may have imported the artifact before the connection dropped.
+        Assertions.assertThrows(IOException.class, () -> uploader.importArtifact(microcksUrl, artifact, true));
+        Assertions.assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    public void testRetryOnDroppedConnection() throws Exception {
+        drops.set(2);
+
+        // Lookup is idempotent so it is sent again.
+        Assertions.assertTrue(uploader.deleteService(microcksUrl, "Pastry API:1.0.0"));
+        Assertions.assertEquals(List.of("GET /api/services/Pastry API:1.0.0?messages=false", "DELETE /api/services/pastry-id"),
+                requests);
+    }
+
+    @Test
+    public void testDownloadArtifact() throws Exception {
+        uploader.downloadArtifact(microcksUrl, "https://example.com/pastry-openapi.yaml", "github", true);
+
+        Assertions.assertEquals(List.of("POST /api/artifact/download"), requests);
+        Assertions.assertEquals("mainArtifact=true&url=https%3A%2F%2Fexample.com%2Fpastry-openapi.yaml&secretName=github",
+                bodies.get(0));
+    }
+
+    @Test
+    public void testCreateSecret() throws Exception {
+        Secret secret = new Secret.Builder().name("github").username("user").password("s3cr3t").build();
+
+        uploader.createSecret(microcksUrl, secret);
+
+        Assertions.assertEquals(List.of("POST /api/secrets"), requests);
+        Assertions.assertTrue(bodies.get(0).contains("\"name\":\"github\""));
+        Assertions.assertTrue(bodies.get(0).contains("\"password\":\"s3cr3t\""));
+        // Unset fields are left out.
+        Assertions.assertFalse(bodies.get(0).contains("token"));
+    }
+
+    @Test
+    public void testUpdateSecret() throws Exception {
+        uploader.updateSecret(microcksUrl, new Secret.Builder().name("github").token("t0k3n").build());
+        // Secret that does not exist anymore is created again.
+        uploader.updateSecret(microcksUrl, new Secret.Builder().name("gitlab").token("t0k3n").build());
+
+        Assertions.assertEquals(List.of("GET /api/secrets/search?name=github", "PUT /api/secrets/github-id",
+                "GET /api/secrets/search?name=gitlab", "POST /api/secrets"), requests);
+        Assertions.assertTrue(bodies.get(1).contains("\"token\":\"t0k3n\""));
+    }
+
+    @Test
+    public void testDeleteService() throws Exception {
+        Assertions.assertTrue(uploader.deleteService(microcksUrl, "Pastry API:1.0.0"));
+        Assertions.assertFalse(uploader.deleteService(microcksUrl, "Beer API:1.0.0"));
+
+        Assertions.assertEquals(List.of("GET /api/services/Pastry API:1.0.0?messages=false", "DELETE /api/services/pastry-id",
+                "GET /api/services/Beer API:1.0.0?messages=false"), requests);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
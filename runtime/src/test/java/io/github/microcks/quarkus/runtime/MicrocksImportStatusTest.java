@@ -0,0 +1,75 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+public class MicrocksImportStatusTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteAndRead() {
+        Path statusFile = tempDir.resolve("microcks/default.status");
+        MicrocksImportStatus.write(statusFile, MicrocksImportStatus.IMPORTING, Map.of());
+        Assertions.assertEquals(MicrocksImportStatus.IMPORTING, MicrocksImportStatus.read(statusFile).getProperty(MicrocksImportStatus.STATUS));
+
+        MicrocksImportStatus.write(statusFile, MicrocksImportStatus.READY, Map.of("quarkus.microcks.default.http", "http://localhost:8080"));
+        Properties status = MicrocksImportStatus.read(statusFile);
+        Assertions.assertEquals(MicrocksImportStatus.READY, status.getProperty(MicrocksImportStatus.STATUS));
+        Assertions.assertEquals("http://localhost:8080", status.getProperty("quarkus.microcks.default.http"));
+        Assertions.assertFalse(Files.exists(statusFile.resolveSibling("default.status.tmp")));
+    }
+
+    @Test
+    public void testReadMissingFile() {
+        Assertions.assertTrue(MicrocksImportStatus.read(tempDir.resolve("missing.status")).isEmpty());
+    }
+
+    @Test
+    public void testIsImporting() {
+        Path statusFile = tempDir.resolve("default.status");
+        SmallRyeConfig config = config(MicrocksProperties.getConfigPrefix(MicrocksProperties.DEFAULT_SERVICE_NAME)
+                + MicrocksProperties.IMPORT_STATUS_FILE, statusFile.toString());
+
+        Assertions.assertEquals(Optional.of(statusFile), MicrocksImportStatus.fileOf(config, MicrocksProperties.DEFAULT_SERVICE_NAME));
+        Assertions.assertFalse(MicrocksImportStatus.fileOf(config, "payments").isPresent());
+        Assertions.assertFalse(MicrocksImportStatus.isImporting(config, MicrocksProperties.DEFAULT_SERVICE_NAME));
+
+        MicrocksImportStatus.write(statusFile, MicrocksImportStatus.IMPORTING, Map.of());
+        Assertions.assertTrue(MicrocksImportStatus.isImporting(config, MicrocksProperties.DEFAULT_SERVICE_NAME));
+        MicrocksImportStatus.write(statusFile, MicrocksImportStatus.FAILED, Map.of());
+        Assertions.assertFalse(MicrocksImportStatus.isImporting(config, MicrocksProperties.DEFAULT_SERVICE_NAME));
+    }
+
+    private SmallRyeConfig config(String name, String value) {
+        return new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(Map.of(name, value), "test", 100))
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultipartBodyPublisherTest {
+
+    private static final String PREAMBLE = "--boundary\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"pastry-openapi.yaml\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n";
+    private static final String EPILOGUE = "\r\n--boundary--\r\n";
+
+    @Test
+    public void testBody() throws Exception {
+        byte[] content = "openapi: 3.0.0".getBytes(StandardCharsets.UTF_8);
+        MultipartBodyPublisher publisher = publisherOf(content, content.length);
+
+        Collector collector = collect(publisher);
+        Assertions.assertTrue(collector.completed);
+        Assertions.assertNull(collector.failure);
+        Assertions.assertEquals(PREAMBLE + "openapi: 3.0.0" + EPILOGUE, collector.body.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(collector.body.size(), publisher.contentLength());
+        Assertions.assertEquals(collector.body.size(), publisher.bytesPublished());
+    }
+
+    @Test
+    public void testLargeContentIsChunked() throws Exception {
+        byte[] content = new byte[MultipartBodyPublisher.CHUNK_SIZE * 2 + 100];
+        Arrays.fill(content, (byte) 'x');
+        MultipartBodyPublisher publisher = publisherOf(content, content.length);
+
+        Collector collector = collect(publisher);
+        byte[] body = collector.body.toByteArray();
+        // Preamble, 3 chunks of content and epilogue.
+        Assertions.assertEquals(5, collector.chunks);
+        Assertions.assertEquals(PREAMBLE.length() + content.length + EPILOGUE.length(), body.length);
+        Assertions.assertEquals(body.length, publisher.contentLength());
+        Assertions.assertArrayEquals(content, Arrays.copyOfRange(body, PREAMBLE.length(), PREAMBLE.length() + content.length));
+        Assertions.assertEquals(EPILOGUE, new String(body, body.length - EPILOGUE.length(), EPILOGUE.length(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBytesPublishedAcrossSubscriptions() throws Exception {
+        byte[] content = "openapi: 3.0.0".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        MultipartBodyPublisher publisher = new MultipartBodyPublisher("boundary", "file", "pastry-openapi.yaml", () -> {
+            opened.incrementAndGet();
+            return Channels.newChannel(new ByteArrayInputStream(content));
+        }, content.length);
+
+        // Http client subscribes again when it retries a request.
+        Collector first = collect(publisher);
+        Collector second = collect(publisher);
+        Assertions.assertEquals(2, opened.get());
+        Assertions.assertEquals(first.body.toString(StandardCharsets.UTF_8), second.body.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(2 * publisher.contentLength(), publisher.bytesPublished());
+    }
+
+    @Test
+    public void testUnknownContentSize() throws Exception {
+        byte[] content = "openapi: 3.0.0".getBytes(StandardCharsets.UTF_8);
+        MultipartBodyPublisher publisher = publisherOf(content, -1);
+        Assertions.assertEquals(-1, publisher.contentLength());
+        Assertions.assertEquals(PREAMBLE + "openapi: 3.0.0" + EPILOGUE,
+                collect(publisher).body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testContentFailure() {
+        MultipartBodyPublisher publisher = new MultipartBodyPublisher("boundary", "file", "pastry-openapi.yaml", () -> {
+            throw new IOException("Artifact cannot be read");
+        }, 10);
+
+        Collector collector = collect(publisher);
+        Assertions.assertFalse(collector.completed);
+        Assertions.assertTrue(collector.failure instanceof IOException);
+    }
+
+    private static MultipartBodyPublisher publisherOf(byte[] content, long contentSize) {
+        return new MultipartBodyPublisher("boundary", "file", "pastry-openapi.yaml",
+                () -> Channels.newChannel(new ByteArrayInputStream(content)), contentSize);
+    }
+
+    private static Collector collect(MultipartBodyPublisher publisher) {
+        Collector collector = new Collector();
+        publisher.subscribe(collector);
+        return collector;
+    }
+
+    /** A subscriber requesting one chunk at a time, like the Http client does. */
+    private static final class Collector implements Flow.Subscriber<ByteBuffer> {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Flow.Subscription subscription;
+        int chunks;
+        boolean completed;
+        Throwable failure;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            chunks++;
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            body.write(bytes, 0, bytes.length);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
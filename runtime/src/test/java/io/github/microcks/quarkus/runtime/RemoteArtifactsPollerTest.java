@@ -0,0 +1,138 @@
+/*
+ * Copyright The Microcks Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.microcks.quarkus.runtime;
+
+import io.github.microcks.testcontainers.model.Secret;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class RemoteArtifactsPollerTest {
+
+    private static final String SERVICE_NAME = "poller-test";
+
+    private HttpServer server;
+    private String serverUrl;
+    /** Content of upstream artifacts, by path. */
+    private final Map<String, String> contents = new ConcurrentHashMap<>();
+    private final List<String> conditionalRequests = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<String> downloads = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        // Serves both upstream artifacts, with their content as ETag, and a fake Microcks downloading them.
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/artifacts/", exchange -> {
+            String content = contents.get(exchange.getRequestURI().getPath());
+            String etag = "\"" + content.hashCode() + "\"";
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization != null) {
+                authorizations.add(authorization);
+            }
+            if (ifNoneMatch != null) {
+                conditionalRequests.add(exchange.getRequestURI().getPath());
+                if (ifNoneMatch.equals(etag)) {
+                    respond(exchange, 304, "");
+                    return;
+                }
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+            respond(exchange, 200, content);
+        });
+        server.createContext("/api/artifact/download", exchange -> {
+            try (InputStream is = exchange.getRequestBody()) {
+                downloads.add(URLDecoder.decode(new String(is.readAllBytes(), StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+            }
+            respond(exchange, 201, "");
+        });
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        RemoteArtifactsPoller.stop(SERVICE_NAME);
+        server.stop(0);
+    }
+
+    @Test
+    public void testUnchangedArtifactsAreNotDownloaded() throws Exception {
+        contents.put("/artifacts/pastry-openapi.yaml", "openapi: 3.0.0");
+        start(List.of(serverUrl + "/artifacts/pastry-openapi.yaml"), List.of());
+
+        awaitSize(conditionalRequests, 2);
+        Assertions.assertTrue(downloads.isEmpty());
+    }
+
+    @Test
+    public void testChangedPrimaryIsDownloadedWithSecondaries() throws Exception {
+        contents.put("/artifacts/pastry-openapi.yaml", "openapi: 3.0.0");
+        contents.put("/artifacts/pastry-examples.yaml", "kind: APIExamples");
+        start(List.of(serverUrl + "/artifacts/pastry-openapi.yaml|github"), List.of(serverUrl + "/artifacts/pastry-examples.yaml"));
+        awaitSize(conditionalRequests, 2);
+
+        contents.put("/artifacts/pastry-openapi.yaml", "openapi: 3.0.1");
+        awaitSize(downloads, 2);
+        RemoteArtifactsPoller.stop(SERVICE_NAME);
+
+        Assertions.assertEquals("mainArtifact=true&url=" + serverUrl + "/artifacts/pastry-openapi.yaml&secretName=github",
+                downloads.get(0));
+        Assertions.assertEquals("mainArtifact=false&url=" + serverUrl + "/artifacts/pastry-examples.yaml", downloads.get(1));
+        Assertions.assertTrue(authorizations.contains("Bearer t0k3n"));
+    }
+
+    private void start(List<String> primaries, List<String> secondaries) {
+        Map<String, Secret> secrets = new HashMap<>();
+        secrets.put("github", new Secret.Builder().name("github").token("t0k3n").build());
+        RemoteArtifactsPoller.start(SERVICE_NAME, serverUrl, MicrocksArtifactUploader.getInstance(false), primaries, secondaries,
+                secrets, Duration.ofMillis(50), Duration.ZERO);
+    }
+
+    private static void awaitSize(List<String> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assertions.assertTrue(list.size() >= size, "Expected at least " + size + " elements in " + list);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}